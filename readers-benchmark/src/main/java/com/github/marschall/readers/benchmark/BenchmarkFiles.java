@@ -0,0 +1,44 @@
+package com.github.marschall.readers.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Creates temporary files with generated content.
+ */
+final class BenchmarkFiles {
+
+  private static final int CHUNK_SIZE = 1024 * 1024;
+
+  private BenchmarkFiles() {
+    throw new AssertionError("not instantiable");
+  }
+
+  /**
+   * Creates a temporary file of the given size.
+   *
+   * <p>Files larger than 1 MiB repeat the same generated chunk, chunks end at
+   * a character boundary.
+   *
+   * @param corpus the corpus from which to generate the content
+   * @param size the size of the file in bytes
+   * @return the path to the created file, to be deleted by the caller
+   * @throws IOException if the file can not be written
+   */
+  static Path create(Corpus corpus, long size) throws IOException {
+    Path file = Files.createTempFile("readers-" + corpus.name().toLowerCase() + "-", ".txt");
+    byte[] chunk = corpus.generate((int) Math.min(size, CHUNK_SIZE));
+    try (OutputStream output = Files.newOutputStream(file)) {
+      long remaining = size;
+      while (remaining > 0L) {
+        int length = (int) Math.min(remaining, chunk.length);
+        output.write(chunk, 0, length);
+        remaining -= length;
+      }
+    }
+    return file;
+  }
+
+}
@@ -0,0 +1,47 @@
+package com.github.marschall.readers.benchmark;
+
+import java.io.Writer;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * A {@link Writer} that hands everything to a {@link Blackhole} without allocating.
+ */
+final class BlackholeWriter extends Writer {
+
+  private final Blackhole blackhole;
+
+  BlackholeWriter(Blackhole blackhole) {
+    this.blackhole = blackhole;
+  }
+
+  @Override
+  public void write(int c) {
+    this.blackhole.consume(c);
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) {
+    this.blackhole.consume(cbuf);
+    this.blackhole.consume(off);
+    this.blackhole.consume(len);
+  }
+
+  @Override
+  public void write(String str, int off, int len) {
+    this.blackhole.consume(str);
+    this.blackhole.consume(off);
+    this.blackhole.consume(len);
+  }
+
+  @Override
+  public void flush() {
+    // nothing to flush
+  }
+
+  @Override
+  public void close() {
+    // nothing to close
+  }
+
+}
@@ -0,0 +1,36 @@
+package com.github.marschall.readers.benchmark;
+
+import static org.openjdk.jmh.annotations.AuxCounters.Type.OPERATIONS;
+import static org.openjdk.jmh.annotations.Scope.Thread;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the number of bytes decoded so that throughput can be reported in
+ * MB/s independent of the input size. Requires the benchmark to report
+ * throughput per second.
+ */
+@AuxCounters(OPERATIONS)
+@State(Thread)
+public class ByteCounter {
+
+  private static final double BYTES_PER_MEGABYTE = 1_000_000.0d;
+
+  /**
+   * The number of megabytes decoded, reported as MB/s.
+   */
+  public double megabytes;
+
+  @Setup(Level.Iteration)
+  public void reset() {
+    this.megabytes = 0.0d;
+  }
+
+  void add(long bytes) {
+    this.megabytes += bytes / BYTES_PER_MEGABYTE;
+  }
+
+}
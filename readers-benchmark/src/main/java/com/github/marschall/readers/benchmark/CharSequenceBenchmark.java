@@ -0,0 +1,66 @@
+package com.github.marschall.readers.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.github.marschall.readers.Utf8CharSequence;
+
+/**
+ * Compares matching a short pattern over a UTF-8 payload through
+ * {@link Utf8CharSequence} against decoding the payload into a
+ * {@link String} first.
+ */
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(MILLISECONDS)
+@State(Benchmark)
+public class CharSequenceBenchmark {
+
+  private static final int DATA_SIZE = 1024 * 1024;
+
+  @Param({"ASCII", "ENGLISH", "CJK"})
+  public Corpus corpus;
+
+  @Param({"first", "none"})
+  public String match;
+
+  private byte[] data;
+
+  private Pattern pattern;
+
+  @Setup
+  public void setup() {
+    this.data = this.corpus.generate(DATA_SIZE);
+    String text = new String(this.data, UTF_8);
+    if (this.match.equals("first")) {
+      // a pattern that matches close to the start
+      this.pattern = Pattern.compile(Pattern.quote(text.substring(100, 104)));
+    } else {
+      this.pattern = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+    }
+  }
+
+  @Benchmark
+  public boolean decodeString() {
+    Matcher matcher = this.pattern.matcher(new String(this.data, UTF_8));
+    return matcher.find();
+  }
+
+  @Benchmark
+  public boolean charSequence() {
+    Matcher matcher = this.pattern.matcher(new Utf8CharSequence(this.data));
+    return matcher.find();
+  }
+
+}
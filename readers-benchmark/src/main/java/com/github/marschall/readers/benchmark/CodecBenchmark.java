@@ -0,0 +1,67 @@
+package com.github.marschall.readers.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.github.marschall.readers.Utf8Codec;
+
+/**
+ * Compares {@link Utf8Codec} with the {@link String} based conversions.
+ */
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(MILLISECONDS)
+@State(Benchmark)
+public class CodecBenchmark {
+
+  @Param
+  public Corpus corpus;
+
+  @Param({"64", "65536"})
+  public int size;
+
+  private byte[] bytes;
+
+  private char[] chars;
+
+  private char[] charBuffer;
+
+  private byte[] byteBuffer;
+
+  @Setup
+  public void setup() {
+    this.bytes = this.corpus.generate(this.size);
+    this.chars = new String(this.bytes, UTF_8).toCharArray();
+    this.charBuffer = new char[this.size];
+    this.byteBuffer = new byte[this.chars.length * 3];
+  }
+
+  @Benchmark
+  public long decode() {
+    return Utf8Codec.decode(this.bytes, 0, this.bytes.length, this.charBuffer, 0);
+  }
+
+  @Benchmark
+  public String newString() {
+    return new String(this.bytes, UTF_8);
+  }
+
+  @Benchmark
+  public long encode() {
+    return Utf8Codec.encode(this.chars, 0, this.chars.length, this.byteBuffer, 0);
+  }
+
+  @Benchmark
+  public byte[] getBytes() {
+    return new String(this.chars).getBytes(UTF_8);
+  }
+
+}
@@ -0,0 +1,182 @@
+package com.github.marschall.readers.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+/**
+ * Deterministically generated benchmark input.
+ */
+public enum Corpus {
+
+  /**
+   * Pure ASCII text.
+   */
+  ASCII {
+
+    @Override
+    void appendWord(StringBuilder builder, Random random) {
+      appendAscii(builder, random);
+    }
+
+  },
+
+  /**
+   * English text with occasional accented characters.
+   */
+  ENGLISH {
+
+    private static final String ACCENTS = "éèêëàâäüöïñçß’“”–";
+
+    @Override
+    void appendWord(StringBuilder builder, Random random) {
+      if (random.nextInt(20) == 0) {
+        builder.append(ACCENTS.charAt(random.nextInt(ACCENTS.length())));
+      }
+      appendAscii(builder, random);
+    }
+
+  },
+
+  /**
+   * Cyrillic text, mostly two byte sequences.
+   */
+  CYRILLIC {
+
+    @Override
+    void appendWord(StringBuilder builder, Random random) {
+      appendRange(builder, random, 0x0410, 0x044F);
+    }
+
+  },
+
+  /**
+   * CJK text, mostly three byte sequences.
+   */
+  CJK {
+
+    @Override
+    void appendWord(StringBuilder builder, Random random) {
+      appendRange(builder, random, 0x4E00, 0x9FFF);
+    }
+
+  },
+
+  /**
+   * Emoji heavy text, mostly four byte sequences resulting in surrogate pairs.
+   */
+  EMOJI {
+
+    @Override
+    void appendWord(StringBuilder builder, Random random) {
+      appendRange(builder, random, 0x1F600, 0x1F64F);
+    }
+
+  },
+
+  /**
+   * English text interspersed with malformed sequences.
+   */
+  MALFORMED {
+
+    private final byte[][] malformed = {
+      {(byte) 0x80},
+      {(byte) 0xBF},
+      {(byte) 0xC0, (byte) 0x80},
+      {(byte) 0xC2},
+      {(byte) 0xE0, (byte) 0x80, (byte) 0x80},
+      {(byte) 0xED, (byte) 0xA0, (byte) 0x80},
+      {(byte) 0xE2, (byte) 0x82},
+      {(byte) 0xF0, (byte) 0x90, (byte) 0x8D},
+      {(byte) 0xF5, (byte) 0x80, (byte) 0x80, (byte) 0x80},
+      {(byte) 0xFF}
+    };
+
+    @Override
+    void appendWord(StringBuilder builder, Random random) {
+      ENGLISH.appendWord(builder, random);
+    }
+
+    @Override
+    public byte[] generate(int size) {
+      Random random = new Random(SEED);
+      ByteArrayOutputStream output = new ByteArrayOutputStream(size + 16);
+      StringBuilder builder = new StringBuilder();
+      while (output.size() < size) {
+        builder.setLength(0);
+        this.appendWord(builder, random);
+        builder.append(' ');
+        output.writeBytes(builder.toString().getBytes(UTF_8));
+        if (random.nextInt(10) == 0) {
+          output.writeBytes(this.malformed[random.nextInt(this.malformed.length)]);
+        }
+      }
+      byte[] data = output.toByteArray();
+      byte[] truncated = new byte[size];
+      System.arraycopy(data, 0, truncated, 0, size);
+      return truncated;
+    }
+
+  };
+
+  private static final long SEED = 0x5EED_5EEDL;
+
+  abstract void appendWord(StringBuilder builder, Random random);
+
+  /**
+   * Generates a UTF-8 encoded input of the given size in bytes.
+   *
+   * <p>The same size always generates the same input.
+   *
+   * @param size the size in bytes
+   * @return the generated input
+   */
+  public byte[] generate(int size) {
+    Random random = new Random(SEED);
+    StringBuilder builder = new StringBuilder(size);
+    int lineLength = 0;
+    // chars are at most three bytes, surrogate pairs are two chars for four bytes
+    while (builder.length() < size) {
+      int start = builder.length();
+      this.appendWord(builder, random);
+      lineLength += builder.length() - start;
+      if (lineLength > 80) {
+        builder.append('\n');
+        lineLength = 0;
+      } else {
+        builder.append(' ');
+      }
+    }
+    byte[] data = builder.toString().getBytes(UTF_8);
+    // truncate at a character boundary
+    int end = size;
+    while ((end > 0) && (end < data.length) && ((data[end] & 0b11000000) == 0b10000000)) {
+      end -= 1;
+    }
+    byte[] truncated = new byte[size];
+    System.arraycopy(data, 0, truncated, 0, end);
+    for (int i = end; i < size; i++) {
+      truncated[i] = ' ';
+    }
+    return truncated;
+  }
+
+  static void appendAscii(StringBuilder builder, Random random) {
+    int length = 1 + random.nextInt(10);
+    for (int i = 0; i < length; i++) {
+      builder.append((char) ('a' + random.nextInt(26)));
+    }
+    if (random.nextInt(8) == 0) {
+      builder.append(random.nextBoolean() ? ',' : '.');
+    }
+  }
+
+  static void appendRange(StringBuilder builder, Random random, int first, int last) {
+    int length = 1 + random.nextInt(6);
+    for (int i = 0; i < length; i++) {
+      builder.appendCodePoint(first + random.nextInt((last - first) + 1));
+    }
+  }
+
+}
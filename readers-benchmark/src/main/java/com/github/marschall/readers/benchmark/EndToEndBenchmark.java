@@ -0,0 +1,83 @@
+package com.github.marschall.readers.benchmark;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Decodes a whole temporary file per operation, either read from the file
+ * system or over a loopback socket.
+ *
+ * <p>Throughput is reported in MB/s by the {@code megabytes} counter, the
+ * operation count depends on the size. Use {@code -p size=} to skip the
+ * larger sizes.
+ *
+ * @see JdkFileBenchmark
+ */
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(SECONDS)
+@State(Benchmark)
+public class EndToEndBenchmark {
+
+  @Param
+  public Corpus corpus;
+
+  @Param({"100", "10000", "1000000", "100000000", "1000000000"})
+  public long size;
+
+  @Param
+  public InputSource inputSource;
+
+  @Param({"UTF8_INPUT_STREAM_READER", "BUFFERED_UTF8_INPUT_STREAM_READER", "BUFFERED_UTF8_READER", "INPUT_STREAM_READER"})
+  public ReaderType readerType;
+
+  @Param({"8192"})
+  public int bufferSize;
+
+  private Path file;
+
+  private LoopbackServer server;
+
+  private char[] charArray;
+
+  @Setup
+  public void setup() throws IOException {
+    this.file = BenchmarkFiles.create(this.corpus, this.size);
+    this.server = new LoopbackServer(this.file);
+    this.charArray = new char[8192];
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    this.server.close();
+    Files.delete(this.file);
+  }
+
+  @Benchmark
+  public void readCharArray(Blackhole blackhole, ByteCounter counter) throws IOException {
+    char[] buffer = this.charArray;
+    try (Reader reader = this.readerType.newReader(this.inputSource.open(this.file, this.server, this.bufferSize), this.bufferSize)) {
+      int read = reader.read(buffer, 0, buffer.length);
+      while (read != -1) {
+        blackhole.consume(buffer);
+        read = reader.read(buffer, 0, buffer.length);
+      }
+    }
+    counter.add(this.size);
+  }
+
+}
@@ -0,0 +1,100 @@
+package com.github.marschall.readers.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.github.marschall.readers.BufferedUtf8InputStreamReader;
+
+/**
+ * Compares filtering log lines by a substring after decoding every line
+ * against {@link BufferedUtf8InputStreamReader#readLineContaining(byte[])}.
+ */
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(MILLISECONDS)
+@State(Benchmark)
+public class GrepBenchmark {
+
+  private static final int DATA_SIZE = 1024 * 1024;
+
+  private static final String[] LEVELS = {"DEBUG", "INFO", "INFO", "WARN"};
+
+  private static final byte[] NEEDLE = "ERROR".getBytes(UTF_8);
+
+  private byte[] data;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42L);
+    StringBuilder buffer = new StringBuilder(DATA_SIZE);
+    int line = 0;
+    while (buffer.length() < DATA_SIZE) {
+      // about 4% of the lines match
+      String level = (random.nextInt(25) == 0) ? "ERROR" : LEVELS[random.nextInt(LEVELS.length)];
+      buffer.append("2024-05-17T10:15:")
+        .append(line % 60)
+        .append(' ')
+        .append(level)
+        .append(" [worker-")
+        .append(random.nextInt(16))
+        .append("] request ")
+        .append(random.nextInt(1_000_000))
+        .append(" processed for café in ")
+        .append(random.nextInt(1000))
+        .append(" ms\n");
+      line += 1;
+    }
+    this.data = buffer.toString().getBytes(UTF_8);
+  }
+
+  @Benchmark
+  public int jdkReadLine() throws IOException {
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(this.data), UTF_8))) {
+      return countMatches(reader);
+    }
+  }
+
+  @Benchmark
+  public int bufferedUtf8ReadLine() throws IOException {
+    try (BufferedReader reader = new BufferedReader(new BufferedUtf8InputStreamReader(new ByteArrayInputStream(this.data)))) {
+      return countMatches(reader);
+    }
+  }
+
+  @Benchmark
+  public int readLineContaining() throws IOException {
+    try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(this.data))) {
+      int matches = 0;
+      while (reader.readLineContaining(NEEDLE) != null) {
+        matches += 1;
+      }
+      return matches;
+    }
+  }
+
+  private static int countMatches(BufferedReader reader) throws IOException {
+    int matches = 0;
+    String line = reader.readLine();
+    while (line != null) {
+      if (line.contains("ERROR")) {
+        matches += 1;
+      }
+      line = reader.readLine();
+    }
+    return matches;
+  }
+
+}
@@ -0,0 +1,101 @@
+package com.github.marschall.readers.benchmark;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.marschall.readers.BufferedUtf8InputStreamReader;
+import com.github.marschall.readers.InflatingUtf8Readers;
+
+/**
+ * Compares decoding a GZIP compressed temporary file with
+ * {@link InflatingUtf8Readers} against a {@link GZIPInputStream} stacked
+ * under a {@link BufferedUtf8InputStreamReader}.
+ *
+ * <p>Throughput is reported in uncompressed MB/s by the {@code megabytes}
+ * counter.
+ */
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(SECONDS)
+@State(Benchmark)
+public class InflatingBenchmark {
+
+  @Param({"ASCII", "CJK"})
+  public Corpus corpus;
+
+  @Param({"1000000", "100000000"})
+  public long size;
+
+  private Path file;
+
+  private char[] charArray;
+
+  @Setup
+  public void setup() throws IOException {
+    Path uncompressed = BenchmarkFiles.create(this.corpus, this.size);
+    try {
+      this.file = Files.createTempFile("readers-" + this.corpus.name().toLowerCase() + "-", ".txt.gz");
+      try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(this.file), 64 * 1024)) {
+        Files.copy(uncompressed, output);
+      }
+    } finally {
+      Files.delete(uncompressed);
+    }
+    this.charArray = new char[8192];
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.delete(this.file);
+  }
+
+  @Benchmark
+  public void stacked(Blackhole blackhole, ByteCounter counter) throws IOException {
+    InputStream input = new GZIPInputStream(Files.newInputStream(this.file));
+    this.readFully(new BufferedUtf8InputStreamReader(input), blackhole);
+    counter.add(this.size);
+  }
+
+  @Benchmark
+  public void stackedLargeBuffer(Blackhole blackhole, ByteCounter counter) throws IOException {
+    InputStream input = new GZIPInputStream(Files.newInputStream(this.file), 64 * 1024);
+    this.readFully(new BufferedUtf8InputStreamReader(input), blackhole);
+    counter.add(this.size);
+  }
+
+  @Benchmark
+  public void fused(Blackhole blackhole, ByteCounter counter) throws IOException {
+    this.readFully(InflatingUtf8Readers.newGzipReader(this.file), blackhole);
+    counter.add(this.size);
+  }
+
+  private void readFully(Reader reader, Blackhole blackhole) throws IOException {
+    char[] buffer = this.charArray;
+    try (reader) {
+      int read = reader.read(buffer, 0, buffer.length);
+      while (read != -1) {
+        blackhole.consume(buffer);
+        read = reader.read(buffer, 0, buffer.length);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,66 @@
+package com.github.marschall.readers.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The ways of obtaining an {@link InputStream} of a file that are benchmarked.
+ */
+public enum InputSource {
+
+  /**
+   * {@link FileInputStream}, every read is a system call.
+   */
+  FILE_INPUT_STREAM {
+
+    @Override
+    InputStream open(Path file, LoopbackServer server, int bufferSize) throws IOException {
+      return new FileInputStream(file.toFile());
+    }
+
+  },
+
+  /**
+   * {@link Files#newInputStream(Path, java.nio.file.OpenOption...)}, backed by a channel.
+   */
+  FILES_NEW_INPUT_STREAM {
+
+    @Override
+    InputStream open(Path file, LoopbackServer server, int bufferSize) throws IOException {
+      return Files.newInputStream(file);
+    }
+
+  },
+
+  /**
+   * {@link FileInputStream} wrapped in a {@link BufferedInputStream}.
+   */
+  BUFFERED_INPUT_STREAM {
+
+    @Override
+    InputStream open(Path file, LoopbackServer server, int bufferSize) throws IOException {
+      return new BufferedInputStream(new FileInputStream(file.toFile()), bufferSize);
+    }
+
+  },
+
+  /**
+   * A socket connected over the loopback interface, reads may return fewer
+   * bytes than requested.
+   */
+  SOCKET {
+
+    @Override
+    InputStream open(Path file, LoopbackServer server, int bufferSize) throws IOException {
+      return server.connect();
+    }
+
+  };
+
+  abstract InputStream open(Path file, LoopbackServer server, int bufferSize) throws IOException;
+
+}
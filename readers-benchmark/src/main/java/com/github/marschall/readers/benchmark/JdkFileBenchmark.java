@@ -0,0 +1,82 @@
+package com.github.marschall.readers.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * JDK baselines for {@link EndToEndBenchmark}, reading a whole temporary file
+ * per operation.
+ *
+ * <p>The JDK methods either report malformed input or, in the case of
+ * {@link #newStringFromBytes(ByteCounter)}, materialize the whole file, so
+ * {@link Corpus#MALFORMED} is not measured and the heap is large enough for
+ * the largest file.
+ */
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(SECONDS)
+@State(Benchmark)
+@Fork(jvmArgsAppend = "-Xmx4g")
+public class JdkFileBenchmark {
+
+  @Param({"ASCII", "ENGLISH", "CYRILLIC", "CJK", "EMOJI"})
+  public Corpus corpus;
+
+  @Param({"100", "10000", "1000000", "100000000", "1000000000"})
+  public long size;
+
+  private Path file;
+
+  @Setup
+  public void setup() throws IOException {
+    this.file = BenchmarkFiles.create(this.corpus, this.size);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.delete(this.file);
+  }
+
+  @Benchmark
+  public String filesReadString(ByteCounter counter) throws IOException {
+    String s = Files.readString(this.file);
+    counter.add(this.size);
+    return s;
+  }
+
+  @Benchmark
+  public void bufferedReaderReadLine(Blackhole blackhole, ByteCounter counter) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(this.file)) {
+      String line = reader.readLine();
+      while (line != null) {
+        blackhole.consume(line);
+        line = reader.readLine();
+      }
+    }
+    counter.add(this.size);
+  }
+
+  @Benchmark
+  public String newStringFromBytes(ByteCounter counter) throws IOException {
+    String s = new String(Files.readAllBytes(this.file), UTF_8);
+    counter.add(this.size);
+    return s;
+  }
+
+}
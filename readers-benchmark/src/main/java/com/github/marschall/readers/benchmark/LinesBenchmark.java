@@ -0,0 +1,86 @@
+package com.github.marschall.readers.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.github.marschall.readers.Utf8Files;
+
+/**
+ * Compares the scaling of parallel line streams of
+ * {@link Utf8Files#lines(Path)} and {@link Files#lines(Path, java.nio.charset.Charset)}.
+ *
+ * <p>The streams run in a {@link ForkJoinPool} with {@link #parallelism}
+ * threads, perfect scaling means the throughput grows linearly with the
+ * parallelism.
+ */
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(SECONDS)
+@State(Benchmark)
+public class LinesBenchmark {
+
+  @Param({"ASCII", "ENGLISH", "CJK"})
+  public Corpus corpus;
+
+  // whole chunks of BenchmarkFiles, Files.lines fails on a cut off character
+  @Param({"104857600"})
+  public long size;
+
+  @Param({"1", "2", "4", "8"})
+  public int parallelism;
+
+  private Path file;
+
+  private ForkJoinPool pool;
+
+  @Setup
+  public void setup() throws IOException {
+    this.file = BenchmarkFiles.create(this.corpus, this.size);
+    this.pool = new ForkJoinPool(this.parallelism);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    this.pool.shutdown();
+    Files.delete(this.file);
+  }
+
+  @Benchmark
+  public long utf8FilesLines(ByteCounter counter) throws InterruptedException, ExecutionException {
+    long length = this.pool.submit(() -> {
+      try (Stream<String> lines = Utf8Files.lines(this.file)) {
+        return lines.parallel().mapToLong(String::length).sum();
+      }
+    }).get();
+    counter.add(this.size);
+    return length;
+  }
+
+  @Benchmark
+  public long filesLines(ByteCounter counter) throws InterruptedException, ExecutionException {
+    long length = this.pool.submit(() -> {
+      try (Stream<String> lines = Files.lines(this.file, UTF_8)) {
+        return lines.parallel().mapToLong(String::length).sum();
+      }
+    }).get();
+    counter.add(this.size);
+    return length;
+  }
+
+}
@@ -0,0 +1,122 @@
+package com.github.marschall.readers.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.marschall.readers.BufferedUtf8InputStreamReader;
+import com.github.marschall.readers.LockingReader;
+
+/**
+ * Measures the uncontended overhead of {@link LockingReader}.
+ *
+ * <p>{@code locking} should be close to {@code unlocked} for large reads,
+ * small reads and {@code read()} show the per call cost of the lock.
+ * {@code synchronizedReader} is the {@link Reader#lock} convention for
+ * comparison.
+ */
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(MILLISECONDS)
+@State(Benchmark)
+public class LockingBenchmark {
+
+  private static final int DATA_SIZE = 64 * 1024;
+
+  @Param({"ASCII", "CJK"})
+  public Corpus corpus;
+
+  @Param({"1", "16", "8192"})
+  public int readSize;
+
+  private byte[] data;
+
+  private char[] charArray;
+
+  @Setup
+  public void setup() {
+    this.data = this.corpus.generate(DATA_SIZE);
+    this.charArray = new char[this.readSize];
+  }
+
+  @Benchmark
+  public void unlocked(Blackhole blackhole) throws IOException {
+    this.readFully(this.newReader(), blackhole);
+  }
+
+  @Benchmark
+  public void locking(Blackhole blackhole) throws IOException {
+    this.readFully(new LockingReader(this.newReader()), blackhole);
+  }
+
+  @Benchmark
+  public void synchronizedReader(Blackhole blackhole) throws IOException {
+    this.readFully(new SynchronizedReader(this.newReader()), blackhole);
+  }
+
+  private Reader newReader() {
+    return new BufferedUtf8InputStreamReader(new ByteArrayInputStream(this.data));
+  }
+
+  private void readFully(Reader reader, Blackhole blackhole) throws IOException {
+    try (reader) {
+      if (this.readSize == 1) {
+        int c = reader.read();
+        while (c != -1) {
+          blackhole.consume(c);
+          c = reader.read();
+        }
+      } else {
+        char[] buffer = this.charArray;
+        int read = reader.read(buffer, 0, buffer.length);
+        while (read != -1) {
+          blackhole.consume(buffer);
+          read = reader.read(buffer, 0, buffer.length);
+        }
+      }
+    }
+  }
+
+  static final class SynchronizedReader extends Reader {
+
+    private final Reader delegate;
+
+    SynchronizedReader(Reader delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public int read() throws IOException {
+      synchronized (this.lock) {
+        return this.delegate.read();
+      }
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+      synchronized (this.lock) {
+        return this.delegate.read(cbuf, off, len);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      synchronized (this.lock) {
+        this.delegate.close();
+      }
+    }
+
+  }
+
+}
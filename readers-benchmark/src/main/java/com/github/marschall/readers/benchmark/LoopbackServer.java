@@ -0,0 +1,72 @@
+package com.github.marschall.readers.benchmark;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Serves the content of a file to every connection on the loopback interface.
+ *
+ * <p>Connections are served one after the other, the server writes the whole
+ * file and then closes the connection.
+ */
+final class LoopbackServer implements Closeable {
+
+  private final Path file;
+
+  private final ServerSocket serverSocket;
+
+  private final Thread acceptor;
+
+  LoopbackServer(Path file) throws IOException {
+    this.file = file;
+    this.serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    this.acceptor = new Thread(this::acceptLoop, "loopback-server");
+    this.acceptor.setDaemon(true);
+    this.acceptor.start();
+  }
+
+  private void acceptLoop() {
+    while (!this.serverSocket.isClosed()) {
+      try (Socket socket = this.serverSocket.accept();
+           OutputStream output = socket.getOutputStream()) {
+        Files.copy(this.file, output);
+      } catch (SocketException e) {
+        // closed, either by us or by the client
+      } catch (IOException e) {
+        throw new RuntimeException("could not serve " + this.file, e);
+      }
+    }
+  }
+
+  /**
+   * Opens a new connection to the server.
+   *
+   * @return the stream of the file content, closing it closes the connection
+   * @throws IOException if the connection can not be established
+   */
+  InputStream connect() throws IOException {
+    Socket socket = new Socket();
+    socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), this.serverSocket.getLocalPort()));
+    return socket.getInputStream();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.serverSocket.close();
+    try {
+      this.acceptor.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
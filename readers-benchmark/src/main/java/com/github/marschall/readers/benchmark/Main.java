@@ -1,23 +1,46 @@
 package com.github.marschall.readers.benchmark;
 
+import org.openjdk.jmh.profile.GCProfiler;
 import org.openjdk.jmh.results.format.ResultFormatType;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
-import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
+/**
+ * Runs the benchmarks.
+ *
+ * <p>Accepts the usual JMH command line options, eg. {@code -p corpus=CJK} to
+ * restrict parameters or {@code -wi}/{@code -i} to change the number of
+ * iterations. Without any benchmark pattern {@link ReaderBenchmark} is run.
+ * Without any profiler the {@link GCProfiler} is added so that allocation
+ * rates ({@code gc.alloc.rate.norm}) are reported next to the throughput.
+ */
 public class Main {
 
-  public static void main(String[] args) throws RunnerException {
-    String fileName = "readers-result.txt";
-    Options options = new OptionsBuilder()
-        .include(".*ReaderBenchmark.*")
-        .warmupIterations(3)
-        .measurementIterations(5)
-        .resultFormat(ResultFormatType.TEXT)
-        .result(fileName)
-        .build();
-    new Runner(options).run();
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    ChainedOptionsBuilder builder = new OptionsBuilder()
+        .parent(commandLineOptions);
+    if (commandLineOptions.getIncludes().isEmpty()) {
+      builder.include(".*" + ReaderBenchmark.class.getSimpleName() + ".*");
+    }
+    if (!commandLineOptions.getWarmupIterations().hasValue()) {
+      builder.warmupIterations(3);
+    }
+    if (!commandLineOptions.getMeasurementIterations().hasValue()) {
+      builder.measurementIterations(5);
+    }
+    if (commandLineOptions.getProfilers().isEmpty()) {
+      builder.addProfiler(GCProfiler.class);
+    }
+    if (!commandLineOptions.getResult().hasValue()) {
+      builder.resultFormat(ResultFormatType.TEXT)
+        .result("readers-result.txt");
+    }
+    new Runner(builder.build()).run();
   }
 
 }
@@ -1,140 +1,139 @@
 package com.github.marschall.readers.benchmark;
 
-import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.openjdk.jmh.annotations.Mode.Throughput;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
 
-import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.infra.Blackhole;
 
-import com.github.marschall.readers.BufferedUtf8InputStreamReader;
-import com.github.marschall.readers.Utf8InputStreamReader;
-
+/**
+ * Decodes a whole in-memory document per operation.
+ *
+ * <p>Every combination of corpus, reader, buffer size, read size and offset is
+ * measured, use {@code -p} to restrict the parameters.
+ */
 @BenchmarkMode(Throughput)
-@OutputTimeUnit(MICROSECONDS)
+@OutputTimeUnit(MILLISECONDS)
 @State(Benchmark)
 public class ReaderBenchmark {
 
-  private static final byte[] DATA = new byte[8192];
-
-  private static final int BUFFER_SIZE = 1024;
+  private static final int DATA_SIZE = 64 * 1024;
 
-  static {
-    Arrays.fill(DATA, (byte) 'A');
-  }
+  @Param
+  public Corpus corpus;
 
-  private Reader inputStreamReader;
+  @Param
+  public ReaderType readerType;
 
-  private char[] inputStreamReaderBuffer;
+  @Param({"1024", "8192"})
+  public int bufferSize;
 
-  private Reader bufferedInputStreamReader;
+  @Param({"64", "8192"})
+  public int readSize;
 
-  private char[] bufferedInputStreamReaderBuffer;
+  /**
+   * Non-zero offsets misalign both the source, by skipping the first chars,
+   * and the destination array.
+   */
+  @Param({"0", "1"})
+  public int offset;
 
-  private Reader bufferedUtf8InputStreamReader;
+  private byte[] data;
 
-  private char[] bufferedUtf8InputStreamReaderBuffer;
+  private char[] charArray;
 
-  private Reader utf8InputStreamReader;
+  private CharBuffer heapCharBuffer;
 
-  private char[] utf8InputStreamReaderBuffer;
+  private CharBuffer directCharBuffer;
 
   @Setup
   public void setup() {
-    this.inputStreamReader = new InputStreamReader(new ByteArrayInputStream(DATA), StandardCharsets.UTF_8);
-    this.inputStreamReaderBuffer = new char[BUFFER_SIZE];
-
-    this.bufferedInputStreamReader = new InputStreamReader(new BufferedInputStream(new ByteArrayInputStream(DATA)), StandardCharsets.UTF_8);
-    this.bufferedInputStreamReaderBuffer = new char[BUFFER_SIZE];
-
-    this.utf8InputStreamReader = new Utf8InputStreamReader(new ByteArrayInputStream(DATA));
-    this.utf8InputStreamReaderBuffer = new char[BUFFER_SIZE];
-
-    this.bufferedUtf8InputStreamReader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(DATA));
-    this.bufferedUtf8InputStreamReaderBuffer = new char[BUFFER_SIZE];
+    this.data = this.corpus.generate(DATA_SIZE);
+    this.charArray = new char[this.offset + this.readSize];
+    this.heapCharBuffer = CharBuffer.allocate(this.offset + this.readSize);
+    this.directCharBuffer = ByteBuffer.allocateDirect((this.offset + this.readSize) * Character.BYTES).asCharBuffer();
   }
 
-  @Benchmark
-  public void readSingleCharBufferedInputStreamReader(Blackhole blackhole) throws IOException {
-    int c = this.bufferedInputStreamReader.read();
-    while (c != -1) {
-      blackhole.consume(c);
-      c = this.bufferedInputStreamReader.read();
+  private Reader newReader() throws IOException {
+    Reader reader = this.readerType.newReader(new ByteArrayInputStream(this.data), this.bufferSize);
+    for (int i = 0; i < this.offset; i++) {
+      reader.read();
     }
+    return reader;
   }
 
   @Benchmark
-  public void readMultipleCharBufferedInputStreamReader(Blackhole blackhole) throws IOException {
-    int c = this.bufferedInputStreamReader.read(this.bufferedInputStreamReaderBuffer);
-    while (c != -1) {
-      blackhole.consume(this.bufferedInputStreamReaderBuffer);
-      c = this.bufferedInputStreamReader.read(this.bufferedInputStreamReaderBuffer);
+  public void readSingleChar(Blackhole blackhole) throws IOException {
+    try (Reader reader = this.newReader()) {
+      int c = reader.read();
+      while (c != -1) {
+        blackhole.consume(c);
+        c = reader.read();
+      }
     }
   }
 
   @Benchmark
-  public void readSingleCharInputStreamReader(Blackhole blackhole) throws IOException {
-    int c = this.inputStreamReader.read();
-    while (c != -1) {
-      blackhole.consume(c);
-      c = this.inputStreamReader.read();
+  public void readCharArray(Blackhole blackhole) throws IOException {
+    char[] buffer = this.charArray;
+    try (Reader reader = this.newReader()) {
+      int read = reader.read(buffer, this.offset, this.readSize);
+      while (read != -1) {
+        blackhole.consume(buffer);
+        read = reader.read(buffer, this.offset, this.readSize);
+      }
     }
   }
 
   @Benchmark
-  public void readMultipleCharInputStreamReader(Blackhole blackhole) throws IOException {
-    int c = this.inputStreamReader.read(this.inputStreamReaderBuffer);
-    while (c != -1) {
-      blackhole.consume(this.inputStreamReaderBuffer);
-      c = this.inputStreamReader.read(this.inputStreamReaderBuffer);
-    }
+  public void readHeapCharBuffer(Blackhole blackhole) throws IOException {
+    this.readCharBuffer(this.heapCharBuffer, blackhole);
   }
 
   @Benchmark
-  public void readSingleCharUtf8InputStreamReader(Blackhole blackhole) throws IOException {
-    int c = this.utf8InputStreamReader.read();
-    while (c != -1) {
-      blackhole.consume(c);
-      c = this.utf8InputStreamReader.read();
-    }
+  public void readDirectCharBuffer(Blackhole blackhole) throws IOException {
+    this.readCharBuffer(this.directCharBuffer, blackhole);
   }
 
-  @Benchmark
-  public void readMultipleCharUtf8InputStreamReader(Blackhole blackhole) throws IOException {
-    int c = this.utf8InputStreamReader.read(this.utf8InputStreamReaderBuffer);
-    while (c != -1) {
-      blackhole.consume(this.utf8InputStreamReaderBuffer);
-      c = this.utf8InputStreamReader.read(this.utf8InputStreamReaderBuffer);
+  private void readCharBuffer(CharBuffer buffer, Blackhole blackhole) throws IOException {
+    try (Reader reader = this.newReader()) {
+      buffer.clear().position(this.offset);
+      int read = reader.read(buffer);
+      while (read != -1) {
+        blackhole.consume(buffer);
+        buffer.clear().position(this.offset);
+        read = reader.read(buffer);
+      }
     }
   }
 
   @Benchmark
-  public void readSingleCharBufferedUtf8InputStreamReader(Blackhole blackhole) throws IOException {
-    int c = this.bufferedUtf8InputStreamReader.read();
-    while (c != -1) {
-      blackhole.consume(c);
-      c = this.bufferedUtf8InputStreamReader.read();
+  public void skip(Blackhole blackhole) throws IOException {
+    try (Reader reader = this.newReader()) {
+      long skipped = reader.skip(this.readSize);
+      while (skipped > 0L) {
+        blackhole.consume(skipped);
+        skipped = reader.skip(this.readSize);
+      }
     }
   }
 
   @Benchmark
-  public void readMultipleCharBufferedUtf8InputStreamReader(Blackhole blackhole) throws IOException {
-    int c = this.bufferedUtf8InputStreamReader.read(this.bufferedUtf8InputStreamReaderBuffer);
-    while (c != -1) {
-      blackhole.consume(this.bufferedUtf8InputStreamReaderBuffer);
-      c = this.bufferedUtf8InputStreamReader.read(this.bufferedUtf8InputStreamReaderBuffer);
+  public long transferTo(Blackhole blackhole) throws IOException {
+    try (Reader reader = this.newReader()) {
+      return reader.transferTo(new BlackholeWriter(blackhole));
     }
   }
 
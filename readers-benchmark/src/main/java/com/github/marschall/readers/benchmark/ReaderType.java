@@ -0,0 +1,81 @@
+package com.github.marschall.readers.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import com.github.marschall.readers.BufferedUtf8InputStreamReader;
+import com.github.marschall.readers.Utf8InputStreamReader;
+
+/**
+ * The {@link Reader} implementations that are benchmarked, including the JDK baselines.
+ */
+public enum ReaderType {
+
+  /**
+   * JDK baseline, {@link InputStreamReader} has a fixed internal buffer.
+   */
+  INPUT_STREAM_READER {
+
+    @Override
+    public Reader newReader(InputStream in, int bufferSize) {
+      return new InputStreamReader(in, UTF_8);
+    }
+
+  },
+
+  /**
+   * JDK baseline, {@link InputStreamReader} on a {@link BufferedInputStream}.
+   */
+  BUFFERED_INPUT_STREAM_READER {
+
+    @Override
+    public Reader newReader(InputStream in, int bufferSize) {
+      return new InputStreamReader(new BufferedInputStream(in, bufferSize), UTF_8);
+    }
+
+  },
+
+  UTF8_INPUT_STREAM_READER {
+
+    @Override
+    public Reader newReader(InputStream in, int bufferSize) {
+      return new Utf8InputStreamReader(in);
+    }
+
+  },
+
+  /**
+   * {@link Utf8InputStreamReader} on a {@link BufferedInputStream}, the intended use case.
+   */
+  BUFFERED_UTF8_INPUT_STREAM_READER {
+
+    @Override
+    public Reader newReader(InputStream in, int bufferSize) {
+      return new Utf8InputStreamReader(new BufferedInputStream(in, bufferSize));
+    }
+
+  },
+
+  BUFFERED_UTF8_READER {
+
+    @Override
+    public Reader newReader(InputStream in, int bufferSize) {
+      return new BufferedUtf8InputStreamReader(in, bufferSize);
+    }
+
+  };
+
+  /**
+   * Creates a new reader.
+   *
+   * @param in the stream to read from
+   * @param bufferSize the buffer size in bytes, ignored by unbuffered readers
+   * @return the new reader
+   */
+  public abstract Reader newReader(InputStream in, int bufferSize);
+
+}
@@ -0,0 +1,67 @@
+package com.github.marschall.readers.benchmark;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+import static org.openjdk.jmh.annotations.Scope.Thread;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Every thread decodes its own in-memory document, nothing is shared except
+ * for static state like the {@link java.lang.invoke.VarHandle}s.
+ *
+ * <p>Perfect scaling means the throughput per thread stays constant as the
+ * number of threads ({@code -t}) increases. {@link ScalingMain} runs this
+ * benchmark for 1 to 64 threads and reports the throughput per thread.
+ */
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(SECONDS)
+@State(Thread)
+public class ScalingBenchmark {
+
+  private static final int DATA_SIZE = 64 * 1024;
+
+  @Param({"ASCII", "CJK"})
+  public Corpus corpus;
+
+  @Param({"BUFFERED_UTF8_READER", "UTF8_INPUT_STREAM_READER", "INPUT_STREAM_READER"})
+  public ReaderType readerType;
+
+  @Param({"8192"})
+  public int bufferSize;
+
+  private byte[] data;
+
+  private char[] charArray;
+
+  @Setup
+  public void setup() {
+    // allocated by each thread, so on its NUMA node and in its TLAB
+    this.data = this.corpus.generate(DATA_SIZE);
+    this.charArray = new char[8192];
+  }
+
+  @Benchmark
+  public void decode(Blackhole blackhole, ByteCounter counter) throws IOException {
+    char[] buffer = this.charArray;
+    try (Reader reader = this.readerType.newReader(new ByteArrayInputStream(this.data), this.bufferSize)) {
+      int read = reader.read(buffer, 0, buffer.length);
+      while (read != -1) {
+        blackhole.consume(buffer);
+        read = reader.read(buffer, 0, buffer.length);
+      }
+    }
+    counter.add(DATA_SIZE);
+  }
+
+}
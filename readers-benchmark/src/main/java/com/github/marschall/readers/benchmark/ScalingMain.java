@@ -0,0 +1,158 @@
+package com.github.marschall.readers.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.LinuxPerfNormProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the multi-threaded benchmarks for 1 to 64 threads and reports the
+ * throughput per thread.
+ *
+ * <p>The efficiency of a thread count is the throughput per thread relative
+ * to the throughput per thread with the fewest threads. Efficiencies below
+ * 80% are flagged, they point to false sharing, contention or the memory
+ * bandwidth ceiling, the {@code perfnorm} counters help to tell them apart. On Linux the
+ * {@link LinuxPerfNormProfiler} is added if {@code perf} is available and no
+ * profiler was given on the command line, {@code -prof perfasm} or
+ * {@code -prof perfc2c} can be given instead.
+ *
+ * <p>Accepts the usual JMH command line options, except for {@code -t}.
+ */
+public class ScalingMain {
+
+  private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+  private static final double EFFICIENCY_THRESHOLD = 0.8d;
+
+  private static final String THREADS_PARAM = "threads";
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+    List<RunResult> results = new ArrayList<>();
+    for (int threads : THREAD_COUNTS) {
+      ChainedOptionsBuilder builder = newBuilder(commandLineOptions)
+          .include(".*" + ScalingBenchmark.class.getSimpleName() + ".*")
+          .include(".*" + SharedSymbolTableBenchmark.class.getSimpleName() + ".*")
+          .threads(threads);
+      results.addAll(new Runner(builder.build()).run());
+    }
+    ChainedOptionsBuilder builder = newBuilder(commandLineOptions)
+        .include(".*" + VirtualThreadBenchmark.class.getSimpleName() + ".*");
+    if (!ThreadType.VIRTUAL.isSupported()) {
+      builder.param("threadType", ThreadType.PLATFORM.name());
+    }
+    results.addAll(new Runner(builder.build()).run());
+    report(results);
+  }
+
+  private static ChainedOptionsBuilder newBuilder(CommandLineOptions commandLineOptions) {
+    ChainedOptionsBuilder builder = new OptionsBuilder()
+        .parent(commandLineOptions);
+    if (!commandLineOptions.getWarmupIterations().hasValue()) {
+      builder.warmupIterations(3);
+    }
+    if (!commandLineOptions.getMeasurementIterations().hasValue()) {
+      builder.measurementIterations(5);
+    }
+    if (commandLineOptions.getProfilers().isEmpty() && isPerfAvailable()) {
+      builder.addProfiler(LinuxPerfNormProfiler.class);
+    }
+    return builder;
+  }
+
+  private static boolean isPerfAvailable() {
+    if (!System.getProperty("os.name").toLowerCase(Locale.ROOT).contains("linux")) {
+      return false;
+    }
+    try {
+      Process process = new ProcessBuilder("perf", "stat", "--", "true")
+          .redirectErrorStream(true)
+          .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+          .start();
+      return process.waitFor(10L, TimeUnit.SECONDS) && (process.exitValue() == 0);
+    } catch (IOException e) {
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static void report(Collection<RunResult> results) {
+    // groups run at least one thread per group member, so the baseline is the fewest threads
+    Map<String, RunResult> baselines = new HashMap<>();
+    for (RunResult result : results) {
+      baselines.merge(getLabel(result.getParams()), result,
+          (a, b) -> getThreads(a.getParams()) <= getThreads(b.getParams()) ? a : b);
+    }
+    System.out.println();
+    System.out.printf("%-80s %7s %14s %14s %10s%n", "benchmark", "threads", "total MB/s", "thread MB/s", "efficiency");
+    for (RunResult result : results) {
+      BenchmarkParams params = result.getParams();
+      String label = getLabel(params);
+      int threads = getThreads(params);
+      double total = getThroughput(result);
+      double perThread = total / threads;
+      RunResult baseline = baselines.get(label);
+      double ratio = perThread / (getThroughput(baseline) / getThreads(baseline.getParams()));
+      String efficiency = String.format("%9.0f%%", ratio * 100.0d);
+      String flag = "";
+      if (ratio < EFFICIENCY_THRESHOLD) {
+        flag = "  <- check for false sharing, contention or memory bandwidth";
+      }
+      System.out.printf("%-80s %7d %14.1f %14.1f %10s%s%n", label, threads, total, perThread, efficiency, flag);
+    }
+  }
+
+  private static int getThreads(BenchmarkParams params) {
+    String threads = params.getParam(THREADS_PARAM);
+    if (threads != null) {
+      return Integer.parseInt(threads);
+    }
+    return params.getThreads();
+  }
+
+  private static String getLabel(BenchmarkParams params) {
+    String benchmark = params.getBenchmark();
+    StringJoiner label = new StringJoiner(",", benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1) + "(", ")");
+    for (String key : params.getParamsKeys()) {
+      if (!key.equals(THREADS_PARAM)) {
+        label.add(params.getParam(key));
+      }
+    }
+    return label.toString();
+  }
+
+  private static double getThroughput(RunResult result) {
+    Result<?> megabytes = result.getSecondaryResults().get("megabytes");
+    if (megabytes != null) {
+      return megabytes.getScore();
+    }
+    // per group results are prefixed with the method name
+    double sum = 0.0d;
+    for (Map.Entry<String, Result> entry : result.getSecondaryResults().entrySet()) {
+      if (entry.getKey().endsWith("megabytes")) {
+        sum += entry.getValue().getScore();
+      }
+    }
+    return sum;
+  }
+
+}
@@ -0,0 +1,118 @@
+package com.github.marschall.readers.benchmark;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.marschall.readers.BufferedUtf8InputStreamReader;
+import com.github.marschall.readers.Utf8SymbolTable;
+
+/**
+ * Tokenizes independent streams into a {@link Utf8SymbolTable} that is either
+ * shared by all threads of a group or private to each thread.
+ *
+ * <p>The difference between the {@code shared} and {@code unshared} groups is
+ * the cost of contention on the table entries and statistics counters. Use
+ * {@code -t} to increase the number of threads, {@code -prof perfc2c} on
+ * Linux shows false sharing.
+ */
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(SECONDS)
+public class SharedSymbolTableBenchmark {
+
+  private static final int DATA_SIZE = 64 * 1024;
+
+  @State(Scope.Group)
+  public static class SharedTable {
+
+    Utf8SymbolTable symbolTable;
+
+    @Setup
+    public void setup() {
+      this.symbolTable = new Utf8SymbolTable();
+    }
+
+  }
+
+  @State(Scope.Thread)
+  public static class PrivateTable {
+
+    Utf8SymbolTable symbolTable;
+
+    @Setup
+    public void setup() {
+      this.symbolTable = new Utf8SymbolTable();
+    }
+
+  }
+
+  @State(Scope.Thread)
+  public static class Input {
+
+    byte[] asciiData;
+
+    byte[] cyrillicData;
+
+    @Setup
+    public void setup() {
+      this.asciiData = Corpus.ASCII.generate(DATA_SIZE);
+      this.cyrillicData = Corpus.CYRILLIC.generate(DATA_SIZE);
+    }
+
+  }
+
+  @Benchmark
+  @Group("shared")
+  @GroupThreads(1)
+  public void sharedAscii(SharedTable table, Input input, Blackhole blackhole, ByteCounter counter) throws IOException {
+    tokenize(input.asciiData, table.symbolTable, blackhole);
+    counter.add(DATA_SIZE);
+  }
+
+  @Benchmark
+  @Group("shared")
+  @GroupThreads(1)
+  public void sharedCyrillic(SharedTable table, Input input, Blackhole blackhole, ByteCounter counter) throws IOException {
+    tokenize(input.cyrillicData, table.symbolTable, blackhole);
+    counter.add(DATA_SIZE);
+  }
+
+  @Benchmark
+  @Group("unshared")
+  @GroupThreads(1)
+  public void unsharedAscii(PrivateTable table, Input input, Blackhole blackhole, ByteCounter counter) throws IOException {
+    tokenize(input.asciiData, table.symbolTable, blackhole);
+    counter.add(DATA_SIZE);
+  }
+
+  @Benchmark
+  @Group("unshared")
+  @GroupThreads(1)
+  public void unsharedCyrillic(PrivateTable table, Input input, Blackhole blackhole, ByteCounter counter) throws IOException {
+    tokenize(input.cyrillicData, table.symbolTable, blackhole);
+    counter.add(DATA_SIZE);
+  }
+
+  private static void tokenize(byte[] data, Utf8SymbolTable symbolTable, Blackhole blackhole) throws IOException {
+    try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(data))) {
+      String token = reader.readToken(' ', symbolTable);
+      while (token != null) {
+        blackhole.consume(token);
+        token = reader.readToken(' ', symbolTable);
+      }
+    }
+  }
+
+}
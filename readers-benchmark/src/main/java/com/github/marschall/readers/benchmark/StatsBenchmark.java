@@ -0,0 +1,87 @@
+package com.github.marschall.readers.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.marschall.readers.BufferedUtf8InputStreamReader;
+import com.github.marschall.readers.DecoderStats;
+import com.github.marschall.readers.Utf8InputStreamReader;
+
+/**
+ * Measures the overhead of {@link DecoderStats}.
+ *
+ * <p>{@code disabled} should match the corresponding {@link ReaderBenchmark}
+ * numbers, run with {@code -prof perfasm} to verify that the hot loop does
+ * not contain any statistics code.
+ */
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(MILLISECONDS)
+@State(Benchmark)
+public class StatsBenchmark {
+
+  private static final int DATA_SIZE = 64 * 1024;
+
+  @Param({"ASCII", "CJK", "MALFORMED"})
+  public Corpus corpus;
+
+  @Param({"8192"})
+  public int bufferSize;
+
+  private byte[] data;
+
+  private char[] charArray;
+
+  private DecoderStats stats;
+
+  @Setup
+  public void setup() {
+    this.data = this.corpus.generate(DATA_SIZE);
+    this.charArray = new char[8192];
+    this.stats = new DecoderStats();
+  }
+
+  @Benchmark
+  public void bufferedDisabled(Blackhole blackhole) throws IOException {
+    this.readFully(new BufferedUtf8InputStreamReader(new ByteArrayInputStream(this.data), this.bufferSize), blackhole);
+  }
+
+  @Benchmark
+  public void bufferedEnabled(Blackhole blackhole) throws IOException {
+    this.readFully(new BufferedUtf8InputStreamReader(new ByteArrayInputStream(this.data), this.bufferSize, this.bufferSize, this.stats), blackhole);
+  }
+
+  @Benchmark
+  public void unbufferedDisabled(Blackhole blackhole) throws IOException {
+    this.readFully(new Utf8InputStreamReader(new ByteArrayInputStream(this.data)), blackhole);
+  }
+
+  @Benchmark
+  public void unbufferedEnabled(Blackhole blackhole) throws IOException {
+    this.readFully(new Utf8InputStreamReader(new ByteArrayInputStream(this.data), this.stats), blackhole);
+  }
+
+  private void readFully(Reader reader, Blackhole blackhole) throws IOException {
+    char[] buffer = this.charArray;
+    try (reader) {
+      int read = reader.read(buffer, 0, buffer.length);
+      while (read != -1) {
+        blackhole.consume(buffer);
+        read = reader.read(buffer, 0, buffer.length);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,68 @@
+package com.github.marschall.readers.benchmark;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The kinds of threads on which {@link VirtualThreadBenchmark} decodes.
+ */
+public enum ThreadType {
+
+  /**
+   * A fixed pool of platform threads, one per task.
+   */
+  PLATFORM {
+
+    @Override
+    ExecutorService newExecutor(int threads) {
+      return Executors.newFixedThreadPool(threads);
+    }
+
+    @Override
+    boolean isSupported() {
+      return true;
+    }
+
+  },
+
+  /**
+   * A new virtual thread per task, requires Java 21 or later.
+   */
+  VIRTUAL {
+
+    @Override
+    ExecutorService newExecutor(int threads) {
+      Method factory = lookupFactory();
+      if (factory == null) {
+        throw new UnsupportedOperationException("virtual threads require Java 21 or later");
+      }
+      try {
+        return (ExecutorService) factory.invoke(null);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        throw new IllegalStateException("could not create virtual thread executor", e);
+      }
+    }
+
+    @Override
+    boolean isSupported() {
+      return lookupFactory() != null;
+    }
+
+    private Method lookupFactory() {
+      // looked up reflectively as the benchmarks are compiled for Java 11
+      try {
+        return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      } catch (NoSuchMethodException e) {
+        return null;
+      }
+    }
+
+  };
+
+  abstract ExecutorService newExecutor(int threads);
+
+  abstract boolean isSupported();
+
+}
@@ -0,0 +1,89 @@
+package com.github.marschall.readers.benchmark;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.github.marschall.readers.BufferedUtf8InputStreamReader;
+import com.github.marschall.readers.TranscodingInputStream;
+
+/**
+ * Compares converting UTF-8 into another encoding with
+ * {@link TranscodingInputStream} against decoding with
+ * {@link BufferedUtf8InputStreamReader} and encoding with an
+ * {@link OutputStreamWriter}.
+ */
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(MILLISECONDS)
+@State(Benchmark)
+public class TranscodingBenchmark {
+
+  private static final int DATA_SIZE = 1024 * 1024;
+
+  @Param({"ASCII", "ENGLISH"})
+  public Corpus corpus;
+
+  @Param({"ISO-8859-1", "UTF-16LE"})
+  public String target;
+
+  private byte[] data;
+
+  private Charset charset;
+
+  private byte[] byteBuffer;
+
+  private char[] charBuffer;
+
+  @Setup
+  public void setup() {
+    this.data = this.corpus.generate(DATA_SIZE);
+    this.charset = Charset.forName(this.target);
+    this.byteBuffer = new byte[8192];
+    this.charBuffer = new char[8192];
+  }
+
+  @Benchmark
+  public long decodeEncode() throws IOException {
+    long count = 0L;
+    try (Reader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(this.data));
+         Writer writer = new OutputStreamWriter(OutputStream.nullOutputStream(), this.charset)) {
+      int read = reader.read(this.charBuffer);
+      while (read != -1) {
+        writer.write(this.charBuffer, 0, read);
+        count += read;
+        read = reader.read(this.charBuffer);
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public long transcode() throws IOException {
+    long count = 0L;
+    try (InputStream stream = TranscodingInputStream.fromUtf8(new ByteArrayInputStream(this.data), this.charset)) {
+      int read = stream.read(this.byteBuffer);
+      while (read != -1) {
+        count += read;
+        read = stream.read(this.byteBuffer);
+      }
+    }
+    return count;
+  }
+
+}
@@ -0,0 +1,94 @@
+package com.github.marschall.readers.benchmark;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Decodes independent in-memory documents on platform or virtual threads.
+ *
+ * <p>JMH only drives platform threads, so every operation submits one task
+ * per thread to an executor and waits for all of them. The {@code megabytes}
+ * counter is the total throughput, divide it by {@code threads} for the
+ * throughput per thread. {@link ThreadType#VIRTUAL} requires Java 21 or later.
+ */
+@BenchmarkMode(Throughput)
+@OutputTimeUnit(SECONDS)
+@State(Benchmark)
+public class VirtualThreadBenchmark {
+
+  private static final int DATA_SIZE = 64 * 1024;
+
+  @Param({"1", "2", "4", "8", "16", "32", "64"})
+  public int threads;
+
+  @Param
+  public ThreadType threadType;
+
+  @Param({"ASCII", "CJK"})
+  public Corpus corpus;
+
+  @Param({"BUFFERED_UTF8_READER", "INPUT_STREAM_READER"})
+  public ReaderType readerType;
+
+  private ExecutorService executor;
+
+  private List<Callable<Long>> tasks;
+
+  @Setup
+  public void setup() {
+    this.executor = this.threadType.newExecutor(this.threads);
+    this.tasks = new ArrayList<>(this.threads);
+    for (int i = 0; i < this.threads; i++) {
+      byte[] data = this.corpus.generate(DATA_SIZE);
+      char[] buffer = new char[8192];
+      this.tasks.add(() -> this.decode(data, buffer));
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.executor.shutdownNow();
+  }
+
+  private long decode(byte[] data, char[] buffer) throws IOException {
+    long chars = 0L;
+    try (Reader reader = this.readerType.newReader(new ByteArrayInputStream(data), 8192)) {
+      int read = reader.read(buffer, 0, buffer.length);
+      while (read != -1) {
+        chars += read;
+        read = reader.read(buffer, 0, buffer.length);
+      }
+    }
+    return chars;
+  }
+
+  @Benchmark
+  public long decode(ByteCounter counter) throws InterruptedException, ExecutionException {
+    long chars = 0L;
+    for (Future<Long> future : this.executor.invokeAll(this.tasks)) {
+      chars += future.get();
+    }
+    counter.add((long) DATA_SIZE * this.threads);
+    return chars;
+  }
+
+}
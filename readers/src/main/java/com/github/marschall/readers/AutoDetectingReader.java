@@ -0,0 +1,207 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_16BE;
+import static java.nio.charset.StandardCharsets.UTF_16LE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.Objects;
+
+/**
+ * A {@link Reader} that detects whether an {@link InputStream} is UTF-8,
+ * UTF-16LE, UTF-16BE or ISO-8859-1 encoded.
+ *
+ * <p>The detection reads the first block of the stream into the buffer that
+ * is then used for decoding, there is no {@link PushbackInputStream} and the
+ * bytes are not copied. The encoding is detected as follows:
+ * <ol>
+ *  <li>a UTF-8 or UTF-16 byte order mark, the byte order mark is skipped</li>
+ *  <li>UTF-16 if the first block has zero bytes at almost all even or almost
+ *  all odd positions but not at the others, as is the case for mostly ASCII
+ *  text</li>
+ *  <li>UTF-8 if the first block is valid UTF-8, this includes empty input</li>
+ *  <li>ISO-8859-1 otherwise</li>
+ * </ol>
+ *
+ * <p>UTF-8 is decoded by a {@link BufferedUtf8InputStreamReader}.
+ *
+ * <p>Not thread-safe.
+ */
+public final class AutoDetectingReader extends Reader {
+
+  /**
+   * Number of bytes at the start of the first block used for the UTF-16 heuristic.
+   */
+  private static final int UTF_16_SAMPLE_SIZE = 512;
+
+  private final Reader delegate;
+
+  private final Charset charset;
+
+  /**
+   * Constructs a new {@link AutoDetectingReader} with a buffer size of 8192.
+   *
+   * @param in the input stream from which to read the bytes, not {@code null}
+   * @throws NullPointerException if in is {@code null}
+   * @throws IOException if reading the first block fails
+   */
+  public AutoDetectingReader(InputStream in) throws IOException {
+    this(in, 8192);
+  }
+
+  /**
+   * Constructs a new {@link AutoDetectingReader}.
+   *
+   * <p>Blocks until the first block has been read.
+   *
+   * @param in the input stream from which to read the bytes, not {@code null}
+   * @param bufferSize the size of the buffer in bytes, at least 4, also the
+   *                   size of the first block
+   * @throws NullPointerException if in is {@code null}
+   * @throws IllegalArgumentException if bufferSize is too small
+   * @throws IOException if reading the first block fails
+   */
+  public AutoDetectingReader(InputStream in, int bufferSize) throws IOException {
+    Objects.requireNonNull(in);
+    if (bufferSize < 4) {
+      throw new IllegalArgumentException("buffer size too small");
+    }
+    byte[] buffer = new byte[bufferSize];
+    int capacity = readFirstBlock(in, buffer);
+    if (hasBom(buffer, capacity, 0xEF, 0xBB, 0xBF)) {
+      this.charset = UTF_8;
+      this.delegate = new BufferedUtf8InputStreamReader(in, buffer, 3, capacity - 3);
+    } else if (hasBom(buffer, capacity, 0xFF, 0xFE)) {
+      this.charset = UTF_16LE;
+      this.delegate = new BufferedUtf16InputStreamReader(in, buffer, 2, capacity - 2, false);
+    } else if (hasBom(buffer, capacity, 0xFE, 0xFF)) {
+      this.charset = UTF_16BE;
+      this.delegate = new BufferedUtf16InputStreamReader(in, buffer, 2, capacity - 2, true);
+    } else {
+      Charset utf16 = guessUtf16(buffer, capacity);
+      if (utf16 != null) {
+        this.charset = utf16;
+        this.delegate = new BufferedUtf16InputStreamReader(in, buffer, 0, capacity, utf16 == UTF_16BE);
+      } else if (Utf8Utils.isValid(buffer, 0, capacity)) {
+        this.charset = UTF_8;
+        this.delegate = new BufferedUtf8InputStreamReader(in, buffer, 0, capacity);
+      } else {
+        this.charset = ISO_8859_1;
+        this.delegate = new BufferedLatin1InputStreamReader(in, buffer, 0, capacity);
+      }
+    }
+  }
+
+  /**
+   * Reads until the buffer is full or the end of the stream has been reached.
+   */
+  private static int readFirstBlock(InputStream in, byte[] buffer) throws IOException {
+    int capacity = 0;
+    while (capacity < buffer.length) {
+      int read = in.read(buffer, capacity, buffer.length - capacity);
+      if (read == -1) {
+        break;
+      }
+      capacity += read;
+    }
+    return capacity;
+  }
+
+  private static boolean hasBom(byte[] buffer, int capacity, int... bom) {
+    if (capacity < bom.length) {
+      return false;
+    }
+    for (int i = 0; i < bom.length; i++) {
+      if (Byte.toUnsignedInt(buffer[i]) != bom[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the UTF-16 variant if the zero bytes are concentrated on either
+   * the even or the odd positions.
+   *
+   * @return the guessed UTF-16 variant, {@code null} if the input does not
+   *         look like UTF-16
+   */
+  private static Charset guessUtf16(byte[] buffer, int capacity) {
+    int sampleSize = Math.min(capacity, UTF_16_SAMPLE_SIZE) & ~1;
+    if (sampleSize == 0) {
+      return null;
+    }
+    int evenZeros = 0;
+    int oddZeros = 0;
+    for (int i = 0; i < sampleSize; i += 2) {
+      if (buffer[i] == 0) {
+        evenZeros += 1;
+      }
+      if (buffer[i + 1] == 0) {
+        oddZeros += 1;
+      }
+    }
+    int pairs = sampleSize >>> 1;
+    // at least half of the chars are Latin-1 but at most a few are U+0000 or a multiple of U+0100
+    if ((oddZeros >= (pairs >>> 1)) && (evenZeros <= (pairs >>> 4))) {
+      return UTF_16LE;
+    }
+    if ((evenZeros >= (pairs >>> 1)) && (oddZeros <= (pairs >>> 4))) {
+      return UTF_16BE;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the detected encoding.
+   *
+   * @return the detected encoding, one of {@code UTF-8}, {@code UTF-16LE},
+   *         {@code UTF-16BE} or {@code ISO-8859-1}
+   */
+  public Charset getCharset() {
+    return this.charset;
+  }
+
+  @Override
+  public int read() throws IOException {
+    return this.delegate.read();
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    return this.delegate.read(cbuf, off, len);
+  }
+
+  @Override
+  public int read(CharBuffer target) throws IOException {
+    return this.delegate.read(target);
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    return this.delegate.skip(n);
+  }
+
+  @Override
+  public long transferTo(Writer out) throws IOException {
+    return this.delegate.transferTo(out);
+  }
+
+  @Override
+  public boolean ready() throws IOException {
+    return this.delegate.ready();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.delegate.close();
+  }
+
+}
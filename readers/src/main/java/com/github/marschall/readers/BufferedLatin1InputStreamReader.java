@@ -0,0 +1,123 @@
+package com.github.marschall.readers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Objects;
+
+/**
+ * A {@link Reader} that decodes ISO-8859-1 from an {@link InputStream} with buffering.
+ *
+ * <p>Every byte is a char, no validation is necessary.
+ *
+ * <p>Not thread-safe.
+ *
+ * @see AutoDetectingReader
+ */
+final class BufferedLatin1InputStreamReader extends Reader {
+
+  private boolean closed;
+
+  private final InputStream in;
+
+  private final byte[] buffer;
+
+  // position in #buffer where the next read can occur
+  private int position;
+
+  // number of bytes in #buffer
+  private int capacity;
+
+  /**
+   * Constructs a new {@link BufferedLatin1InputStreamReader} on a buffer
+   * that already contains bytes read from the stream.
+   *
+   * @param in the input stream from which to read the remaining bytes
+   * @param buffer the buffer, owned by the reader from now on
+   * @param position the position in the buffer of the first byte to decode
+   * @param capacity the number of bytes in the buffer starting at {@code position}
+   */
+  BufferedLatin1InputStreamReader(InputStream in, byte[] buffer, int position, int capacity) {
+    this.in = in;
+    this.buffer = buffer;
+    this.position = position;
+    this.capacity = capacity;
+    this.closed = false;
+  }
+
+  private int ensureNotEmpty() throws IOException {
+    if (this.capacity > 0) {
+      return 1;
+    }
+    int read = this.in.read(this.buffer, 0, this.buffer.length);
+    if (read == -1) {
+      return -1;
+    }
+    this.position = 0;
+    this.capacity = read;
+    return 1;
+  }
+
+  @Override
+  public int read() throws IOException {
+    this.closedCheck();
+    if (this.ensureNotEmpty() == -1) {
+      return -1;
+    }
+    this.capacity -= 1;
+    return Byte.toUnsignedInt(this.buffer[this.position++]);
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    this.closedCheck();
+    Objects.checkFromIndexSize(off, len, cbuf.length);
+    if (len == 0) {
+      return 0;
+    }
+    if (this.ensureNotEmpty() == -1) {
+      return -1;
+    }
+    int read = Math.min(len, this.capacity);
+    for (int i = 0; i < read; i++) {
+      cbuf[off + i] = (char) Byte.toUnsignedInt(this.buffer[this.position + i]);
+    }
+    this.position += read;
+    this.capacity -= read;
+    return read;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    this.closedCheck();
+    if (n < 0L) {
+      throw new IllegalArgumentException("skip value is negative");
+    }
+    if ((n == 0L) || (this.ensureNotEmpty() == -1)) {
+      return 0L;
+    }
+    int skipped = (int) Math.min(n, this.capacity);
+    this.position += skipped;
+    this.capacity -= skipped;
+    return skipped;
+  }
+
+  @Override
+  public boolean ready() throws IOException {
+    this.closedCheck();
+    return this.capacity > 0;
+  }
+
+  private void closedCheck() throws IOException {
+    if (this.closed) {
+      throw new IOException("closed reader");
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.in.close();
+    this.closed = true;
+  }
+
+}
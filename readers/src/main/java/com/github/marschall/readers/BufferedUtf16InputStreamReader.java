@@ -0,0 +1,152 @@
+package com.github.marschall.readers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Objects;
+
+/**
+ * A {@link Reader} that decodes UTF-16 without a byte order mark from an
+ * {@link InputStream} with buffering.
+ *
+ * <p>Surrogates are passed through without checking that they are paired, a
+ * trailing odd byte is replaced with U+FFFD.
+ *
+ * <p>Not thread-safe.
+ *
+ * @see AutoDetectingReader
+ */
+final class BufferedUtf16InputStreamReader extends Reader {
+
+  /**
+   * Unicode replacement character.
+   */
+  private static final char REPLACEMENT = 0xFFFD;
+
+  private boolean closed;
+
+  private final InputStream in;
+
+  private final byte[] buffer;
+
+  private final boolean bigEndian;
+
+  // position in #buffer where the next read can occur
+  private int position;
+
+  // number of bytes in #buffer
+  private int capacity;
+
+  /**
+   * Constructs a new {@link BufferedUtf16InputStreamReader} on a buffer
+   * that already contains bytes read from the stream.
+   *
+   * @param in the input stream from which to read the remaining bytes
+   * @param buffer the buffer, at least 2 bytes, owned by the reader from now on
+   * @param position the position in the buffer of the first byte to decode
+   * @param capacity the number of bytes in the buffer starting at {@code position}
+   * @param bigEndian whether the input is big endian, little endian otherwise
+   */
+  BufferedUtf16InputStreamReader(InputStream in, byte[] buffer, int position, int capacity, boolean bigEndian) {
+    this.in = in;
+    this.buffer = buffer;
+    this.position = position;
+    this.capacity = capacity;
+    this.bigEndian = bigEndian;
+    this.closed = false;
+  }
+
+  /**
+   * Makes sure at least two bytes are in the buffer unless the end of the
+   * stream has been reached.
+   *
+   * @return 1 if at least one byte is in the buffer, -1 otherwise
+   */
+  private int ensureNotEmpty() throws IOException {
+    while (this.capacity < 2) {
+      if (this.position > 0) {
+        // move the odd byte to the start
+        if (this.capacity == 1) {
+          this.buffer[0] = this.buffer[this.position];
+        }
+        this.position = 0;
+      }
+      int read = this.in.read(this.buffer, this.capacity, this.buffer.length - this.capacity);
+      if (read == -1) {
+        return this.capacity == 0 ? -1 : 1;
+      }
+      this.capacity += read;
+    }
+    return 1;
+  }
+
+  private char decode(int index) {
+    int b1 = Byte.toUnsignedInt(this.buffer[index]);
+    int b2 = Byte.toUnsignedInt(this.buffer[index + 1]);
+    if (this.bigEndian) {
+      return (char) ((b1 << 8) | b2);
+    } else {
+      return (char) ((b2 << 8) | b1);
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    this.closedCheck();
+    if (this.ensureNotEmpty() == -1) {
+      return -1;
+    }
+    if (this.capacity == 1) {
+      // trailing odd byte
+      this.position += 1;
+      this.capacity = 0;
+      return REPLACEMENT;
+    }
+    char c = this.decode(this.position);
+    this.position += 2;
+    this.capacity -= 2;
+    return c;
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    this.closedCheck();
+    Objects.checkFromIndexSize(off, len, cbuf.length);
+    if (len == 0) {
+      return 0;
+    }
+    if (this.ensureNotEmpty() == -1) {
+      return -1;
+    }
+    if (this.capacity == 1) {
+      cbuf[off] = (char) this.read();
+      return 1;
+    }
+    int read = Math.min(len, this.capacity >>> 1);
+    for (int i = 0; i < read; i++) {
+      cbuf[off + i] = this.decode(this.position + (i << 1));
+    }
+    this.position += read << 1;
+    this.capacity -= read << 1;
+    return read;
+  }
+
+  @Override
+  public boolean ready() throws IOException {
+    this.closedCheck();
+    return this.capacity >= 2;
+  }
+
+  private void closedCheck() throws IOException {
+    if (this.closed) {
+      throw new IOException("closed reader");
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.in.close();
+    this.closed = true;
+  }
+
+}
@@ -1,44 +1,125 @@
 package com.github.marschall.readers;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.lang.invoke.MethodHandles;
-import java.lang.invoke.VarHandle;
-import java.nio.ByteOrder;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
 import java.util.Objects;
 
 
 /**
  * A {@link Reader} that decodes UTF-8 from an {@link InputStream} with buffering.
  *
- * <p>Only {@link #transferTo(java.io.Writer)} currently performs intermediate allocation.
+ * <p>{@link #transferTo(Writer)} and {@link #read(CharBuffer)} into a direct
+ * buffer allocate an intermediate char buffer once per reader.
+ * In adaptive mode resizing the buffer allocates a new buffer.
+ *
+ * <p>In adaptive mode the buffer starts with an initial size and doubles up
+ * to a maximum size whenever a refill completely filled the buffer or
+ * {@link InputStream#available()} reports more bytes than fit into the buffer.
+ * The buffer shrinks back towards the initial size when several consecutive
+ * refills used less than a quarter of the buffer.
  *
  * <p>The implementation is optimized for bulk copying ASCII characters.
  *
+ * <p>{@link #mark(int)} and {@link #reset()} are supported directly on the
+ * byte buffer, resetting does not re-decode any input.
+ *
+ * <p>Malformed input is replaced with U+FFFD by default, it can also be
+ * reported or skipped, see {@link Builder#malformedInputPolicy(MalformedInputPolicy)}.
+ *
+ * <p>Optionally collects {@link DecoderStats}. Emits JDK Flight Recorder
+ * events named {@code com.github.marschall.readers.Refill} for slow refills
+ * and {@code com.github.marschall.readers.MalformedInput} for every replaced
+ * or skipped malformed sequence.
+ *
+ * <p>The byte offset of the next byte to decode is available through
+ * {@link #getByteOffset()}, line and column numbers can be tracked optionally,
+ * see {@link Builder#trackPosition()}.
+ *
+ * <p>Optional limits on the bytes read, the chars produced and the line
+ * length are checked once per bulk step without allocating, exceeding one
+ * throws a {@link ReadLimitExceededException}, see {@link Builder#maxBytes(long)}.
+ *
  * <p>Not thread-safe.
  *
  * @see InputStreamReader
  * @see BufferedInputStream
  */
-public final class BufferedUtf8InputStreamReader extends Reader {
+public final class BufferedUtf8InputStreamReader extends Reader implements CodePointReader {
 
   private static final int MAX_BYTE_LENGTH = 4;
 
+  /**
+   * The maximum number of UTF-8 bytes per Java char.
+   */
+  private static final int MAX_BYTES_PER_CHAR = 3;
+
+  private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+
+  /**
+   * Size of the intermediate char buffer for {@link #transferTo(Writer)}
+   * and {@link #read(CharBuffer)}.
+   */
+  private static final int CHAR_BUFFER_SIZE = 8192;
+
+  private static final int UNMARKED = -1;
+
+  private static final int INVALIDATED = -2;
+
   /**
    * Unicode replacement character.
    */
   private static final int REPLACEMENT = 0xFFFD;
 
-  static final VarHandle LONG_ACCESS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+  // results of #decodeSequence(boolean) that are not code points
+
+  // a malformed sequence was skipped
+  private static final int SKIPPED = -2;
+
+  // the sequence is cut off at the end of the buffer, more input is needed
+  private static final int INCOMPLETE = -3;
+
+  // a malformed sequence has to be reported
+  private static final int MALFORMED = -4;
+
+  /**
+   * Number of consecutive small refills after which an adaptive buffer shrinks.
+   */
+  private static final int SHRINK_THRESHOLD = 4;
+
+  private static final byte LF = '\n';
+
+  private static final byte CR = '\r';
+
+  private static final long NO_LIMIT = Long.MAX_VALUE;
 
   private boolean closed;
 
   private final InputStream in;
 
-  private final byte[] buffer;
+  private byte[] buffer;
+
+  private final int initialBufferSize;
+
+  private final int maxBufferSize;
+
+  // null if statistics are disabled
+  private final DecoderStats stats;
+
+  private final MalformedInputPolicy malformedInputPolicy;
+
+  // number of bytes read by the last refill of an empty buffer
+  private int lastRead;
+
+  // number of consecutive refills that used less than a quarter of the buffer
+  private int smallRefills;
 
   // position in #buffer where the next read can occur
   private int position;
@@ -46,10 +127,64 @@ public final class BufferedUtf8InputStreamReader extends Reader {
   // number of bytes in #buffer
   private int capacity;
 
+  // offset in the stream of the first byte in #buffer
+  private long bufferOffset;
+
   private boolean hasPendingLowSurrogate;
 
   private char lowSurrogate;
 
+  // position in #buffer of the mark, UNMARKED or INVALIDATED if there is no valid mark
+  private int markPosition;
+
+  // maximum number of bytes that can be read after the mark while still preserving the mark
+  private int markLimit;
+
+  private boolean markHasPendingLowSurrogate;
+
+  // lazily allocated intermediate buffer, see #getCharBuffer()
+  private char[] charBuffer;
+
+  private char markLowSurrogate;
+
+  private final boolean trackPosition;
+
+  // position tracking is done lazily, lines and columns are only counted
+  // before bytes are discarded from the buffer or when they are queried
+
+  // position in #buffer up to which lines and columns have been counted
+  private int countedPosition;
+
+  // 1-based line number at #countedPosition
+  private long lineNumber;
+
+  // number of chars of the current line before #countedPosition
+  private long column;
+
+  private long markLineNumber;
+
+  private long markColumn;
+
+  // limits, NO_LIMIT if not set
+  private final long maxBytes;
+
+  private final long maxChars;
+
+  private final long maxLineLength;
+
+  // bytes read from the stream, only counted with a byte limit
+  private long bytesRead;
+
+  // chars produced, only counted with a char limit
+  private long charCount;
+
+  // bytes consumed since the last line feed, only counted with a line length limit
+  private long lineLength;
+
+  private long markCharCount;
+
+  private long markLineLength;
+
   /**
    * Constructs a new {@link BufferedUtf8InputStreamReader} with a default buffer size of 8192.
    *
@@ -60,21 +195,118 @@ public final class BufferedUtf8InputStreamReader extends Reader {
     this(in, 8192);
   }
 
+  /**
+   * Constructs a new {@link BufferedUtf8InputStreamReader} with a fixed buffer size.
+   *
+   * @param in the input stream from which to read the bytes, not {@code null}
+   * @param bufferSize the size of the buffer in bytes, at least 4
+   * @throws NullPointerException if in is {@code null}
+   * @throws IllegalArgumentException if bufferSize is too small
+   */
   public BufferedUtf8InputStreamReader(InputStream in, int bufferSize) {
-    Objects.requireNonNull(in);
-    if (bufferSize <= 0) {
+    this(in, bufferSize, bufferSize);
+  }
+
+  /**
+   * Constructs a new {@link BufferedUtf8InputStreamReader} with an adaptive buffer size.
+   *
+   * <p>If {@code maxBufferSize} is equal to {@code initialBufferSize} the
+   * buffer size is fixed.
+   *
+   * @param in the input stream from which to read the bytes, not {@code null}
+   * @param initialBufferSize the initial and minimum size of the buffer in bytes, at least 4
+   * @param maxBufferSize the maximum size of the buffer in bytes,
+   *                      at least {@code initialBufferSize}
+   * @throws NullPointerException if in is {@code null}
+   * @throws IllegalArgumentException if initialBufferSize is too small or
+   *                                  maxBufferSize is smaller than initialBufferSize
+   */
+  public BufferedUtf8InputStreamReader(InputStream in, int initialBufferSize, int maxBufferSize) {
+    this(in, initialBufferSize, maxBufferSize, null);
+  }
+
+  /**
+   * Constructs a new {@link BufferedUtf8InputStreamReader} that collects statistics.
+   *
+   * @param in the input stream from which to read the bytes, not {@code null}
+   * @param initialBufferSize the initial and minimum size of the buffer in bytes, at least 4
+   * @param maxBufferSize the maximum size of the buffer in bytes,
+   *                      at least {@code initialBufferSize}
+   * @param stats where to collect the statistics, {@code null} to disable statistics
+   * @throws NullPointerException if in is {@code null}
+   * @throws IllegalArgumentException if initialBufferSize is too small or
+   *                                  maxBufferSize is smaller than initialBufferSize
+   */
+  public BufferedUtf8InputStreamReader(InputStream in, int initialBufferSize, int maxBufferSize, DecoderStats stats) {
+    this(Objects.requireNonNull(in), newBuffer(initialBufferSize, maxBufferSize), 0, 0, maxBufferSize, stats,
+            MalformedInputPolicy.REPLACE, false, 0L, 1L, 1L, NO_LIMIT, NO_LIMIT, NO_LIMIT);
+  }
+
+  /**
+   * Creates a new {@link Builder} for a {@link BufferedUtf8InputStreamReader}.
+   *
+   * @param in the input stream from which to read the bytes, not {@code null}
+   * @return the builder, with a default buffer size of 8192
+   * @throws NullPointerException if in is {@code null}
+   */
+  public static Builder builder(InputStream in) {
+    return new Builder(in);
+  }
+
+  /**
+   * Constructs a new {@link BufferedUtf8InputStreamReader} with a fixed size
+   * buffer that already contains bytes read from the stream.
+   *
+   * @param in the input stream from which to read the remaining bytes
+   * @param buffer the buffer, at least 4 bytes, owned by the reader from now on
+   * @param position the position in the buffer of the first byte to decode
+   * @param capacity the number of bytes in the buffer starting at {@code position}
+   */
+  BufferedUtf8InputStreamReader(InputStream in, byte[] buffer, int position, int capacity) {
+    this(in, buffer, position, capacity, buffer.length, null, MalformedInputPolicy.REPLACE, false, position, 1L, 1L,
+            NO_LIMIT, NO_LIMIT, NO_LIMIT);
+  }
+
+  private BufferedUtf8InputStreamReader(InputStream in, byte[] buffer, int position, int capacity, int maxBufferSize, DecoderStats stats,
+          MalformedInputPolicy malformedInputPolicy, boolean trackPosition, long byteOffset, long lineNumber, long columnNumber,
+          long maxBytes, long maxChars, long maxLineLength) {
+    this.in = in;
+    this.buffer = buffer;
+    this.initialBufferSize = buffer.length;
+    this.maxBufferSize = maxBufferSize;
+    this.stats = stats;
+    this.malformedInputPolicy = malformedInputPolicy;
+    this.lastRead = 0;
+    this.smallRefills = 0;
+    this.closed = false;
+    this.position = position;
+    this.capacity = capacity;
+    this.bufferOffset = byteOffset - position;
+    this.hasPendingLowSurrogate = false;
+    this.markPosition = UNMARKED;
+    this.trackPosition = trackPosition;
+    this.countedPosition = position;
+    this.lineNumber = lineNumber;
+    this.column = columnNumber - 1L;
+    this.maxBytes = maxBytes;
+    this.maxChars = maxChars;
+    this.maxLineLength = maxLineLength;
+    this.bytesRead = 0L;
+    this.charCount = 0L;
+    this.lineLength = 0L;
+  }
+
+  private static byte[] newBuffer(int initialBufferSize, int maxBufferSize) {
+    if (initialBufferSize <= 0) {
       throw new IllegalArgumentException("buffer size must be positive");
     }
-    if (bufferSize < 4) {
+    if (initialBufferSize < 4) {
       throw new IllegalArgumentException("buffer size too small");
     }
-    this.in = in;
-    this.buffer = new byte[bufferSize];
-    this.closed = false;
-    this.position = 0;
-    this.capacity = 0;
-    this.closed = false;
-    this.hasPendingLowSurrogate = false;
+    if (maxBufferSize < initialBufferSize) {
+      throw new IllegalArgumentException("maximum buffer size must not be smaller than initial buffer size");
+    }
+    return new byte[initialBufferSize];
   }
 
   /**
@@ -94,12 +326,9 @@ public final class BufferedUtf8InputStreamReader extends Reader {
     // buffer is empty
     if (this.capacity == 0) {
       // contract guarantees at least one byte is read
-      int read = this.in.read(this.buffer, 0, this.buffer.length);
-      if (read == -1) {
+      if (this.fill() == -1) {
         return -1;
       }
-      this.capacity = read;
-      this.position = 0;
       // we can't abort because on theory not enough bytes are read
     }
 
@@ -107,23 +336,241 @@ public final class BufferedUtf8InputStreamReader extends Reader {
     while (byteLength > this.capacity && byteLength <= MAX_BYTE_LENGTH) {
       // input is valid
       // not a full character is available
-      
-      // move the buffer to the start if not already done so
-      if (this.position > 0) {
-        System.arraycopy(this.buffer, this.position, this.buffer, 0, this.capacity);
-        this.position = 0;
-      }
-      int read = this.in.read(this.buffer, this.capacity, this.buffer.length - this.capacity);
-      if (read == -1) {
+      if (this.fill() == -1) {
         // if there isn't a buffer char in the buffer
         // but the stream is at the end return 1 anyways
         return this.capacity == 0 ? -1 : 1;
       }
-      this.capacity += read;
     }
     return 1;
   }
 
+  /**
+   * Reads more bytes from the underlying stream into the buffer. The bytes
+   * that have not yet been read are moved to the start of the buffer first.
+   * If there is a valid mark the bytes since the mark are retained as well,
+   * growing the buffer if necessary.
+   *
+   * @return the number of bytes read, -1 if the end of the stream has been reached
+   * @throws IOException if reading fails
+   */
+  private int fill() throws IOException {
+    if (this.trackPosition) {
+      // count before the bytes are discarded
+      this.countPosition();
+    }
+    int start = this.position;
+    if (this.markPosition >= 0) {
+      if ((this.position - this.markPosition) > this.markLimit) {
+        // read-ahead limit exceeded
+        this.markPosition = INVALIDATED;
+      } else {
+        start = this.markPosition;
+      }
+    }
+    // move the buffer to the start if not already done so
+    if (start > 0) {
+      int retained = this.position + this.capacity - start;
+      System.arraycopy(this.buffer, start, this.buffer, 0, retained);
+      this.bufferOffset += start;
+      this.position -= start;
+      this.countedPosition -= start;
+      if (this.markPosition >= 0) {
+        this.markPosition -= start;
+      }
+      if ((retained > 0) && (this.stats != null)) {
+        this.stats.recordCompaction();
+      }
+    }
+    if ((this.capacity == 0) && (this.markPosition < 0) && this.isAdaptive()) {
+      // after the compaction so no position points into the old buffer
+      this.adaptBufferSize();
+    }
+    int end = this.position + this.capacity;
+    if (end == this.buffer.length) {
+      this.growBuffer();
+    }
+    int requested = this.buffer.length - end;
+    if (this.maxBytes != NO_LIMIT) {
+      long allowed = this.maxBytes - this.bytesRead;
+      if (allowed < 0L) {
+        throw new ReadLimitExceededException(ReadLimitExceededException.Limit.BYTES, this.maxBytes);
+      }
+      // one byte more to find out whether the input exceeds the limit
+      requested = (int) Math.min(requested, allowed + 1L);
+    }
+    int read;
+    if (RefillEvent.enabled()) {
+      read = this.readWithEvent(end, requested);
+    } else {
+      read = this.in.read(this.buffer, end, requested);
+    }
+    if (read == -1) {
+      return -1;
+    }
+    if (this.maxBytes != NO_LIMIT) {
+      this.bytesRead += read;
+      if (this.bytesRead > this.maxBytes) {
+        throw new ReadLimitExceededException(ReadLimitExceededException.Limit.BYTES, this.maxBytes);
+      }
+    }
+    if (this.stats != null) {
+      this.stats.recordRefill();
+    }
+    if (this.capacity == 0) {
+      this.lastRead = read;
+    }
+    this.capacity += read;
+    return read;
+  }
+
+  private int readWithEvent(int end, int requested) throws IOException {
+    RefillEvent event = new RefillEvent();
+    event.begin();
+    int read = this.in.read(this.buffer, end, requested);
+    event.end();
+    if (event.shouldCommit()) {
+      event.bytesRequested = requested;
+      event.bytesRead = read;
+      event.shortRead = read < requested;
+      event.commit();
+    }
+    return read;
+  }
+
+  /**
+   * Grows a buffer that is full with bytes that have to be retained.
+   */
+  private void growBuffer() {
+    int bufferSize = this.buffer.length;
+    if (bufferSize == MAX_BUFFER_SIZE) {
+      throw new OutOfMemoryError("required buffer size too large");
+    }
+    long newSize = (long) bufferSize << 1;
+    if (this.markPosition >= 0) {
+      // don't grow more than required by the read-ahead limit
+      newSize = Math.min(newSize, Math.max((long) this.markLimit + MAX_BYTE_LENGTH, bufferSize + 1L));
+    }
+    this.buffer = Arrays.copyOf(this.buffer, (int) Math.min(newSize, MAX_BUFFER_SIZE));
+  }
+
+  private boolean isAdaptive() {
+    return this.maxBufferSize > this.initialBufferSize;
+  }
+
+  /**
+   * Grows or shrinks the buffer based on the last refill and the number of
+   * bytes available from the underlying stream.
+   *
+   * <p>Must only be called when the buffer is empty and compacted.
+   */
+  private void adaptBufferSize() throws IOException {
+    int bufferSize = this.buffer.length;
+    if ((bufferSize < this.maxBufferSize)
+        && ((this.lastRead == bufferSize) || (this.in.available() > bufferSize))) {
+      this.smallRefills = 0;
+      this.buffer = new byte[(int) Math.min((long) bufferSize << 1, this.maxBufferSize)];
+    } else if ((bufferSize > this.initialBufferSize) && (this.lastRead < (bufferSize >>> 2))) {
+      this.smallRefills += 1;
+      if (this.smallRefills >= SHRINK_THRESHOLD) {
+        this.smallRefills = 0;
+        this.buffer = new byte[Math.max(bufferSize >>> 1, this.initialBufferSize)];
+      }
+    } else {
+      this.smallRefills = 0;
+    }
+  }
+
+  /**
+   * Counts the lines and columns of the bytes consumed since the last count.
+   */
+  private void countPosition() {
+    int from = this.countedPosition;
+    int to = this.position;
+    if (to > from) {
+      int lastLineFeed = Utf8Utils.lastIndexOf(this.buffer, from, to, LF);
+      if (lastLineFeed == -1) {
+        this.column += Utf8Utils.countChars(this.buffer, from, to);
+      } else {
+        this.lineNumber += Utf8Utils.count(this.buffer, from, lastLineFeed + 1, LF);
+        this.column = Utf8Utils.countChars(this.buffer, lastLineFeed + 1, to);
+      }
+      this.countedPosition = to;
+    }
+  }
+
+  /**
+   * Returns the offset in the stream of the next byte to decode.
+   *
+   * <p>The offset is relative to the start of the stream or to the byte offset
+   * given to {@link Builder#position(long, long, long)}. A fresh reader on the
+   * same input positioned at this offset continues decoding where this reader
+   * stopped, unless the low surrogate of a supplementary character is still
+   * pending. In this case the offset is already after the supplementary
+   * character.
+   *
+   * <p>Always available, even without {@link Builder#trackPosition()}.
+   *
+   * @return the byte offset of the next byte to decode
+   */
+  public long getByteOffset() {
+    return this.bufferOffset + this.position;
+  }
+
+  /**
+   * Returns the line number of the next char to read.
+   *
+   * <p>Lines are terminated by {@code \n}, the first line is 1.
+   *
+   * @return the 1-based line number of the next char to read
+   * @throws IllegalStateException if position tracking is not enabled
+   * @see Builder#trackPosition()
+   */
+  public long getLineNumber() {
+    this.trackPositionCheck();
+    this.countPosition();
+    return this.lineNumber;
+  }
+
+  /**
+   * Returns the column number of the next char to read.
+   *
+   * <p>Columns are counted in chars, a supplementary character counts as two
+   * columns. The first column of a line is 1. The result is exact for valid
+   * input, also while the low surrogate of a supplementary character is
+   * still pending.
+   *
+   * @return the 1-based column number of the next char to read
+   * @throws IllegalStateException if position tracking is not enabled
+   * @see Builder#trackPosition()
+   */
+  public long getColumnNumber() {
+    this.trackPositionCheck();
+    this.countPosition();
+    if (this.hasPendingLowSurrogate) {
+      // the whole supplementary character has been counted
+      return this.column;
+    }
+    return this.column + 1L;
+  }
+
+  private void trackPositionCheck() {
+    if (!this.trackPosition) {
+      throw new IllegalStateException("position tracking not enabled");
+    }
+  }
+
+  /**
+   * Returns the current size of the buffer in bytes.
+   *
+   * <p>In adaptive mode this changes over time, otherwise it is fixed.
+   *
+   * @return the current size of the buffer in bytes
+   */
+  public int getBufferSize() {
+    return this.buffer.length;
+  }
+
   @Override
   public boolean ready() throws IOException {
     this.closedCheck();
@@ -143,55 +590,250 @@ public final class BufferedUtf8InputStreamReader extends Reader {
     this.closedCheck();
     if (this.hasPendingLowSurrogate) {
       this.hasPendingLowSurrogate = false;
+      this.countChars(1L);
       return this.lowSurrogate;
     }
-    if (this.ensureNotEmpty() == -1) {
-      return -1;
+    int codePoint = this.readCodePointImpl();
+    if (codePoint != -1) {
+      this.countChars(1L);
     }
-    byte b = this.buffer[this.position++];
-    this.capacity -= 1;
-    int byteLength = Utf8Utils.getByteLength(b);
-    if (byteLength == 1) {
-      return (char) Byte.toUnsignedInt(b);
-    } else if (byteLength > MAX_BYTE_LENGTH) {
-      // invalid input
-      return REPLACEMENT;
+    if (codePoint == -1 || Character.isBmpCodePoint(codePoint)) {
+      // end of stream or BMP character, single Java char
+      return codePoint;
     } else {
-      // non-ASCII multi-byte character
-      // ensureNotEmpty did the buffer size checks
-      int codePoint = this.readMultiByteCharacter(b, byteLength);
-      if (Character.isBmpCodePoint(codePoint)) {
-        // BMP character, single Java char
-        return (char) codePoint;
+      this.hasPendingLowSurrogate = true;
+      this.lowSurrogate = Character.lowSurrogate(codePoint);
+      // non-BMP character, two Java char
+      return Character.highSurrogate(codePoint);
+    }
+  }
+
+  @Override
+  public int readCodePoint() throws IOException {
+    this.closedCheck();
+    if (this.hasPendingLowSurrogate) {
+      this.hasPendingLowSurrogate = false;
+      this.countChars(1L);
+      return this.lowSurrogate;
+    }
+    int codePoint = this.readCodePointImpl();
+    if (codePoint != -1) {
+      this.countChars(Character.charCount(codePoint));
+    }
+    return codePoint;
+  }
+
+  private int readCodePointImpl() throws IOException {
+    while (true) {
+      if (this.ensureNotEmpty() == -1) {
+        return -1;
+      }
+      int start = this.position;
+      byte b = this.buffer[start];
+      int codePoint;
+      if (b >= 0) {
+        // ASCII character, single byte
+        codePoint = b;
+        this.position += 1;
+        this.capacity -= 1;
+      } else {
+        // ensureNotEmpty did the buffer size checks
+        codePoint = this.decodeSequence(true);
+        if (codePoint == MALFORMED) {
+          throw this.malformedInput();
+        }
+      }
+      this.checkLineLength(start);
+      if (codePoint != SKIPPED) {
+        if (this.stats != null) {
+          this.stats.recordDecoded(this.position - start, Character.charCount(codePoint), 0);
+        }
+        return codePoint;
+      }
+      if (this.stats != null) {
+        this.stats.recordDecoded(this.position - start, 0, 0);
+      }
+    }
+  }
+
+  /**
+   * Decodes the non-ASCII sequence at {@link #position}, the slow path.
+   *
+   * @param endOfInput whether the buffer contains all remaining input, only
+   *                   {@code true} directly after {@link #ensureNotEmpty()}
+   * @return the code point, {@link #SKIPPED} if a malformed sequence was
+   *         skipped, {@link #INCOMPLETE} if more input is needed or
+   *         {@link #MALFORMED} if a malformed sequence has to be reported,
+   *         nothing is consumed for the last two
+   */
+  private int decodeSequence(boolean endOfInput) {
+    int start = this.position;
+    int c1 = Byte.toUnsignedInt(this.buffer[start]);
+    // 1 for a continuation byte
+    int byteLength = Utf8Utils.getByteLength(c1);
+    if ((byteLength >= 2) && (byteLength <= MAX_BYTE_LENGTH) && (byteLength <= this.capacity)) {
+      // https://unicode.org/versions/corrigendum1.html
+      int codePoint = Utf8Utils.decodeMultiByteCharacter(c1, byteLength, this.buffer, start + 1);
+      if (codePoint != Utf8Utils.MALFORMED) {
+        this.position += byteLength;
+        this.capacity -= byteLength;
+        return codePoint;
+      }
+    } else if (!endOfInput && Utf8Utils.isIncomplete(this.buffer, start, start + this.capacity)) {
+      return INCOMPLETE;
+    }
+    return this.malformed();
+  }
+
+  /**
+   * Called for every malformed sequence, consumes the maximal subpart unless
+   * it has to be reported.
+   *
+   * @return the replacement character, {@link #SKIPPED} or {@link #MALFORMED}
+   */
+  private int malformed() {
+    if (this.malformedInputPolicy == MalformedInputPolicy.REPORT) {
+      return MALFORMED;
+    }
+    int start = this.position;
+    int length = Utf8Utils.maximalSubpart(this.buffer, start, start + this.capacity);
+    this.position += length;
+    this.capacity -= length;
+    if (this.stats != null) {
+      this.stats.recordReplacement();
+    }
+    if (MalformedInputEvent.enabled()) {
+      MalformedInputEvent event = new MalformedInputEvent();
+      event.byteOffset = this.bufferOffset + start;
+      event.byteCount = length;
+      event.commit();
+    }
+    return this.malformedInputPolicy == MalformedInputPolicy.REPLACE ? REPLACEMENT : SKIPPED;
+  }
+
+  /**
+   * Creates the exception for the malformed sequence at {@link #position},
+   * which is not consumed.
+   */
+  private Utf8MalformedInputException malformedInput() {
+    int length = Utf8Utils.maximalSubpart(this.buffer, this.position, this.position + this.capacity);
+    return new Utf8MalformedInputException(length, this.getByteOffset());
+  }
+
+  @Override
+  public int read(int[] codePoints, int off, int len) throws IOException {
+    this.closedCheck();
+    Objects.checkFromIndexSize(off, len, codePoints.length);
+    if (len == 0) {
+      return 0;
+    }
+    int limit = (int) this.charLimit(len);
+    int read = 0;
+    if (this.hasPendingLowSurrogate) {
+      codePoints[off] = this.lowSurrogate;
+      this.hasPendingLowSurrogate = false;
+      read += 1;
+    }
+    do {
+      if (this.ensureNotEmpty() == -1) {
+        break;
+      }
+      read = this.decode(codePoints, off, limit, read);
+      // zero only if all input so far was skipped
+    } while (read == 0);
+    if (this.maxChars != NO_LIMIT) {
+      this.countCodePoints(codePoints, off, read);
+    }
+    return read == 0 ? -1 : read;
+  }
+
+  private int decode(int[] codePoints, int off, int len, int alreadyRead) throws IOException {
+    int read = alreadyRead;
+    int start = this.position;
+    int bulk = 0;
+    while ((read < len) && (this.capacity > 0)) {
+      // unlike for char[] there is no alignment requirement on the destination
+      if (isPowerOf8(this.position) && ((len - read) >= 8) && (this.capacity >= 8) && Utf8Utils.isAsciiRange(this.buffer, this.position)) {
+        // bulk copy 8 ASCII characters
+        Utf8Utils.copy8(this.buffer, this.position, codePoints, off + read);
+        this.position += 8;
+        this.capacity -= 8;
+        read += 8;
+        bulk += 8;
       } else {
-        this.hasPendingLowSurrogate = true;
-        this.lowSurrogate = Character.lowSurrogate(codePoint);
-        // non-BMP character, two Java char
-        return Character.highSurrogate(codePoint);
+        // slow path
+        // go byte by byte, either because
+        // - #position is not aligned
+        // - less than 8 code points left to read
+        // - buffer contains less than 8 bytes
+        // - one of the next 8 bytes is not ASCII
+        byte b = this.buffer[this.position];
+        if (b >= 0) {
+          // ASCII character, single byte
+          codePoints[off + read] = b;
+          this.position += 1;
+          this.capacity -= 1;
+          read += 1;
+        } else {
+          // non-ASCII, no need to split into surrogates
+          int codePoint = this.decodeSequence(this.position == start);
+          if (codePoint >= 0) {
+            codePoints[off + read] = codePoint;
+            read += 1;
+          } else if (codePoint != SKIPPED) {
+            // not enough bytes in the buffer left to decode the next character
+            // or malformed input to report, either after a refill or with the next read
+            if ((codePoint == INCOMPLETE) || (read > 0)) {
+              break;
+            }
+            throw this.malformedInput();
+          }
+        }
       }
     }
+    this.recordDecoded(start, read, bulk);
+    this.checkLineLength(start);
+    return read;
   }
 
   @Override
   public int read(char[] cbuf, int off, int len) throws IOException {
     this.closedCheck();
     Objects.checkFromIndexSize(off, len, cbuf.length);
+    // at most one char more than allowed by the limit
+    int limit = (int) this.charLimit(len);
     int read = 0;
-    if (this.hasPendingLowSurrogate) {
+    if (this.hasPendingLowSurrogate && (limit > 0)) {
       cbuf[off] = this.lowSurrogate;
       this.hasPendingLowSurrogate = false;
       read += 1;
     }
-    if (this.ensureNotEmpty() == -1) {
-      return -1;
-    }
+    do {
+      if (this.ensureNotEmpty() == -1) {
+        if (read == 0) {
+          return -1;
+        }
+        break;
+      }
+      read = this.decode(cbuf, off, limit, read);
+      // zero only if all input so far was skipped
+    } while ((read == 0) && (limit > 0));
+    this.countChars(read);
+    return read;
+  }
+
+  private int decode(char[] cbuf, int off, int len, int alreadyRead) throws IOException {
+    int read = alreadyRead;
+    int start = this.position;
+    int bulk = 0;
     while ((read < len) && (this.capacity > 0)) {
-      if (isPowerOf8(this.position) && isPowerOf8(off + read) && ((len - read) >= 8) && (this.capacity >= 8) && isAsciiRange(this.buffer, this.position)) {
+      if (isPowerOf8(this.position) && isPowerOf8(off + read) && ((len - read) >= 8) && (this.capacity >= 8) && Utf8Utils.isAsciiRange(this.buffer, this.position)) {
         // bulk copy 8 ASCII characters
-        copy8(this.buffer, this.position, cbuf, off + read);
+        Utf8Utils.copy8(this.buffer, this.position, cbuf, off + read);
         this.position += 8;
         this.capacity -= 8;
         read += 8;
+        bulk += 8;
       } else {
         // slow path
         // go byte by byte, either because
@@ -200,23 +842,20 @@ public final class BufferedUtf8InputStreamReader extends Reader {
         // - less than 8 character left to read
         // - buffer contains less than 8 bytes
         // - one of the next 8 bytes is not ASCII
-        byte b = this.buffer[this.position++];
-        this.capacity -= 1;
-        int byteLength = Utf8Utils.getByteLength(b);
-        if (byteLength == 1 || byteLength > MAX_BYTE_LENGTH) {
-          // ASCII character, single type
-          // or invalid input
-          cbuf[off + read] = (char) Byte.toUnsignedInt(b);
+        byte b = this.buffer[this.position];
+        if (b >= 0) {
+          // ASCII character, single byte
+          cbuf[off + read] = (char) b;
+          this.position += 1;
+          this.capacity -= 1;
           read += 1;
-        } else if (byteLength <= this.capacity + 1) {
-          // non-ASCII multi-byte character
-          // enough bytes in the buffer left to decode the whole character
-          int codePoint = this.readMultiByteCharacter(b, byteLength);
+        } else {
+          int codePoint = this.decodeSequence(this.position == start);
           if (Character.isBmpCodePoint(codePoint)) {
             // BMP character, single Java char
             cbuf[off + read] = (char) codePoint;
             read += 1;
-          } else {
+          } else if (codePoint >= 0) {
             // non-BMP character, two Java char
             cbuf[off + read] = Character.highSurrogate(codePoint);
             read += 1;
@@ -229,44 +868,167 @@ public final class BufferedUtf8InputStreamReader extends Reader {
               this.hasPendingLowSurrogate = true;
               this.lowSurrogate = Character.lowSurrogate(codePoint);
               // we can abort
-              return read;
+              break;
+            }
+          } else if (codePoint != SKIPPED) {
+            // not enough bytes in the buffer left to decode the next character
+            // or malformed input to report, either after a refill or with the next read
+            if ((codePoint == INCOMPLETE) || (read > 0)) {
+              break;
             }
+            throw this.malformedInput();
           }
-        } else {
-          // not enough bytes in the buffer left to decode the next character
-          // we decoded at least 1 character, abort, let the caller deal with it
-          return read;
         }
       }
     }
+    this.recordDecoded(start, read, bulk);
+    this.checkLineLength(start);
     return read;
   }
 
-  private static boolean isAsciiRange(byte[] src, int srcPos) {
-    long l = (long) LONG_ACCESS.get(src, srcPos);
-    return (l & 0b10000000_10000000_10000000_10000000_10000000_10000000_10000000_10000000L) == 0L;
+  private void recordDecoded(int start, int chars, int bulk) {
+    if (this.stats != null) {
+      this.stats.recordDecoded(this.position - start, chars, bulk);
+    }
   }
 
   private static boolean isPowerOf8(int i) {
     return (i & 0b111) == 0;
   }
 
-  private static void copy8(byte[] src, int srcPos, char[] dst, int destPos) {
-    dst[destPos] = (char) src[srcPos];
-    dst[destPos + 1] = (char) src[srcPos + 1];
-    dst[destPos + 2] = (char) src[srcPos + 2];
-    dst[destPos + 3] = (char) src[srcPos + 3];
-    dst[destPos + 4] = (char) src[srcPos + 4];
-    dst[destPos + 5] = (char) src[srcPos + 5];
-    dst[destPos + 6] = (char) src[srcPos + 6];
-    dst[destPos + 7] = (char) src[srcPos + 7];
+  /**
+   * Limits the number of chars of a bulk step to what the char limit still
+   * allows. Once the limit is reached one more char is allowed to find out
+   * whether the input exceeds it.
+   *
+   * @param len the number of chars requested
+   * @return the number of chars to produce at most
+   */
+  private long charLimit(long len) throws ReadLimitExceededException {
+    if (this.maxChars == NO_LIMIT) {
+      return len;
+    }
+    long allowed = this.maxChars - this.charCount;
+    if (allowed < 0L) {
+      throw new ReadLimitExceededException(ReadLimitExceededException.Limit.CHARS, this.maxChars);
+    }
+    return Math.min(len, Math.max(allowed, 1L));
   }
 
-//  @Override
-//  public long transferTo(Writer out) throws IOException {
-//    // TODO implement
-//    throw new IOException();
-//  }
+  private void countChars(long chars) throws ReadLimitExceededException {
+    if (this.maxChars != NO_LIMIT) {
+      this.charCount += chars;
+      if (this.charCount > this.maxChars) {
+        throw new ReadLimitExceededException(ReadLimitExceededException.Limit.CHARS, this.maxChars);
+      }
+    }
+  }
+
+  private void countCodePoints(int[] codePoints, int off, int len) throws ReadLimitExceededException {
+    long chars = len;
+    for (int i = off; i < off + len; i++) {
+      if (!Character.isBmpCodePoint(codePoints[i])) {
+        chars += 1L;
+      }
+    }
+    this.countChars(chars);
+  }
+
+  /**
+   * Checks the lengths of the lines in the bytes consumed since
+   * {@code start}, eight bytes at a time.
+   *
+   * @param start the position in the buffer of the first consumed byte
+   */
+  private void checkLineLength(int start) throws ReadLimitExceededException {
+    if (this.maxLineLength == NO_LIMIT) {
+      return;
+    }
+    this.lineLength = this.checkLineLength(this.lineLength, start, this.position);
+  }
+
+  /**
+   * Checks the lengths of the lines in the bytes that are buffered but not
+   * yet consumed. Methods that search a whole line or token in the buffer
+   * call this before every refill so that a line without an end fails
+   * before it grows the buffer past the limit.
+   */
+  private void checkBufferedLineLength() throws ReadLimitExceededException {
+    if (this.maxLineLength == NO_LIMIT) {
+      return;
+    }
+    this.checkLineLength(this.lineLength, this.position, this.position + this.capacity);
+  }
+
+  /**
+   * Checks the lengths of the lines in the bytes from {@code from} to
+   * {@code to}.
+   *
+   * @param length the length of the line before {@code from}
+   * @return the length of the last line, not yet terminated
+   */
+  private long checkLineLength(long length, int from, int to) throws ReadLimitExceededException {
+    long lineLength = length;
+    int lineStart = from;
+    int lineFeed = Utf8Utils.indexOf(this.buffer, lineStart, to, LF, LF);
+    while (lineFeed != -1) {
+      if ((lineLength + (lineFeed - lineStart)) > this.maxLineLength) {
+        throw new ReadLimitExceededException(ReadLimitExceededException.Limit.LINE_LENGTH, this.maxLineLength);
+      }
+      lineLength = 0L;
+      lineStart = lineFeed + 1;
+      lineFeed = Utf8Utils.indexOf(this.buffer, lineStart, to, LF, LF);
+    }
+    lineLength += to - lineStart;
+    if (lineLength > this.maxLineLength) {
+      throw new ReadLimitExceededException(ReadLimitExceededException.Limit.LINE_LENGTH, this.maxLineLength);
+    }
+    return lineLength;
+  }
+
+  @Override
+  public int read(CharBuffer target) throws IOException {
+    this.closedCheck();
+    int len = target.remaining();
+    if (target.hasArray()) {
+      int read = this.read(target.array(), target.arrayOffset() + target.position(), len);
+      if (read > 0) {
+        target.position(target.position() + read);
+      }
+      return read;
+    } else {
+      char[] chars = this.getCharBuffer();
+      int read = this.read(chars, 0, Math.min(len, chars.length));
+      if (read > 0) {
+        target.put(chars, 0, read);
+      }
+      return read;
+    }
+  }
+
+  @Override
+  public long transferTo(Writer out) throws IOException {
+    Objects.requireNonNull(out);
+    this.closedCheck();
+    char[] chars = this.getCharBuffer();
+    long transferred = 0L;
+    int read = this.read(chars, 0, chars.length);
+    while (read != -1) {
+      out.write(chars, 0, read);
+      transferred += read;
+      read = this.read(chars, 0, chars.length);
+    }
+    return transferred;
+  }
+
+  private char[] getCharBuffer() {
+    char[] chars = this.charBuffer;
+    if (chars == null) {
+      chars = new char[CHAR_BUFFER_SIZE];
+      this.charBuffer = chars;
+    }
+    return chars;
+  }
 
   @Override
   public long skip(long n) throws IOException {
@@ -277,21 +1039,35 @@ public final class BufferedUtf8InputStreamReader extends Reader {
     if (n == 0L) {
       return 0L;
     }
-    if (this.ensureNotEmpty() == -1) {
-      return 0L;
-    }
+    long limit = this.charLimit(n);
     long skipped = 0L;
     if (this.hasPendingLowSurrogate) {
       this.hasPendingLowSurrogate = false;
       skipped += 1L;
     }
+    do {
+      if (this.ensureNotEmpty() == -1) {
+        break;
+      }
+      skipped = this.skipDecoded(limit, skipped);
+      // zero only if all input so far was malformed and skipped
+    } while (skipped == 0L);
+    this.countChars(skipped);
+    return skipped;
+  }
+
+  private long skipDecoded(long n, long alreadySkipped) throws IOException {
+    long skipped = alreadySkipped;
+    int start = this.position;
+    int bulk = 0;
 
     while ((skipped < n) && (this.capacity > 0)) {
-      if (isPowerOf8(this.position) && (this.capacity >= 8) && ((n - skipped) >= 8L) && isAsciiRange(this.buffer, this.position)) {
+      if (isPowerOf8(this.position) && (this.capacity >= 8) && ((n - skipped) >= 8L) && Utf8Utils.isAsciiRange(this.buffer, this.position)) {
         // bulk skip 8 ASCII characters
         this.position += 8;
         this.capacity -= 8;
         skipped += 8;
+        bulk += 8;
       } else {
         // slow path
         // go byte by byte, either because
@@ -299,21 +1075,17 @@ public final class BufferedUtf8InputStreamReader extends Reader {
         // - less than 8 character left to skip
         // - buffer contains less than 8 bytes
         // - one of the next 8 bytes is not ASCII
-        byte b = this.buffer[this.position++];
-        this.capacity -= 1;
-        int byteLength = Utf8Utils.getByteLength(b);
-        if (byteLength == 1 || byteLength > MAX_BYTE_LENGTH) {
+        if (this.buffer[this.position] >= 0) {
           // ASCII character, single byte
-          // or invalid input
+          this.position += 1;
+          this.capacity -= 1;
           skipped += 1;
-        } else if (byteLength <= this.capacity + 1) {
-          // non-ASCII multi-byte character
-          // enough bytes in the buffer left to decode the whole character
-          int codePoint = this.readMultiByteCharacter(b, byteLength);
+        } else {
+          int codePoint = this.decodeSequence(this.position == start);
           if (Character.isBmpCodePoint(codePoint)) {
             // BMP character, single Java char
             skipped += 1;
-          } else {
+          } else if (codePoint >= 0) {
             // non-BMP character, two Java char
             if ((n - skipped) >= 2) {
               // we can skip both characters
@@ -324,92 +1096,280 @@ public final class BufferedUtf8InputStreamReader extends Reader {
               this.hasPendingLowSurrogate = true;
               this.lowSurrogate = Character.lowSurrogate(codePoint);
               // we can abort
-              return skipped;
+              break;
+            }
+          } else if (codePoint != SKIPPED) {
+            // not enough bytes in the buffer left to decode the next character
+            // or malformed input to report, either after a refill or with the next skip
+            if ((codePoint == INCOMPLETE) || (skipped > 0L)) {
+              break;
             }
+            throw this.malformedInput();
           }
-        } else {
-          // not enough bytes in the buffer left to decode the next character
-          // we decoded at least 1 character, abort, let the caller deal with it
-          return skipped;
         }
       }
     }
+    this.recordDecoded(start, (int) skipped, bulk);
+    this.checkLineLength(start);
     return skipped;
   }
 
-  private int readMultiByteCharacter(byte b1, int byteLength) throws IOException {
-    // https://unicode.org/versions/corrigendum1.html
-    if (byteLength - 1 > this.capacity) {
-      this.position += this.capacity;
-      this.capacity = 0;
-      return REPLACEMENT;
-    }
-    int c1 = Byte.toUnsignedInt(b1);
-    switch (byteLength) {
-    case 2: {
-      int c2 = Byte.toUnsignedInt(this.buffer[this.position]);
-      this.position += 1;
-      this.capacity -= 1;
-      
-      if (Utf8Utils.isValidTwoByteSequence(c1, c2)) {
-        return ((c1 & 0b00011111) << 6) | (c2 & 0b00111111);
-      } else {
-        return REPLACEMENT;
+  /**
+   * Reads characters up to the next delimiter or the end of the stream.
+   *
+   * <p>The delimiter is searched for in the undecoded bytes, only the bytes
+   * of the token are decoded. If a {@link Utf8SymbolTable} is given the
+   * token is looked up in the table before decoding.
+   *
+   * @param delimiter the delimiter, has to be an ASCII character, is consumed
+   *                  but not included in the result
+   * @param symbolTable the table used for canonicalizing the token,
+   *                    {@code null} if tokens should not be canonicalized
+   * @return the characters up to the delimiter, {@code null} if the end of
+   *         the stream has been reached
+   * @throws IllegalArgumentException if the delimiter is not an ASCII character
+   * @throws Utf8MalformedInputException if the token is malformed and the
+   *                                     policy is {@link MalformedInputPolicy#REPORT},
+   *                                     the token is not consumed
+   * @throws IOException if the reader is closed or reading fails
+   */
+  public String readToken(char delimiter, Utf8SymbolTable symbolTable) throws IOException {
+    if (delimiter >= 0x80) {
+      throw new IllegalArgumentException("delimiter must be an ASCII character");
+    }
+    this.closedCheck();
+    String prefix = null;
+    if (this.hasPendingLowSurrogate) {
+      this.hasPendingLowSurrogate = false;
+      prefix = String.valueOf(this.lowSurrogate);
+    }
+    byte delimiterByte = (byte) delimiter;
+    // number of bytes after #position that have already been searched
+    int scanned = 0;
+    while (true) {
+      int end = this.position + this.capacity;
+      for (int i = this.position + scanned; i < end; i++) {
+        if (this.buffer[i] == delimiterByte) {
+          int start = this.position;
+          int length = i - start;
+          String token = this.decodeToken(length, symbolTable);
+          // consume the delimiter
+          this.position += 1;
+          this.capacity -= 1;
+          this.checkLineLength(start);
+          return this.concat(prefix, token);
+        }
+      }
+      scanned = this.capacity;
+      this.checkBufferedLineLength();
+      if (this.fill() == -1) {
+        if (this.capacity == 0) {
+          if (prefix != null) {
+            this.countChars(1L);
+          }
+          return prefix;
+        }
+        int start = this.position;
+        String token = this.decodeToken(this.capacity, symbolTable);
+        this.checkLineLength(start);
+        return this.concat(prefix, token);
       }
     }
+  }
 
-    case 3: {
-      int c2 = Byte.toUnsignedInt(this.buffer[this.position]);
-      int c3 = Byte.toUnsignedInt(this.buffer[this.position + 1]);
-      this.position += 2;
-      this.capacity -= 2;
-      
-      if (Utf8Utils.isValidThreeByteSequence(c1, c2, c3)) {
-        return ((c1 & 0b00001111) << 12) | ((c2 & 0b00111111) << 6) | (c3 & 0b00111111);
-      } else {
-        return REPLACEMENT;
+  private String decodeToken(int length, Utf8SymbolTable symbolTable) throws IOException {
+    if (this.malformedInputPolicy != MalformedInputPolicy.REPLACE) {
+      int end = this.position + length;
+      int malformed = Utf8Utils.indexOfMalformed(this.buffer, this.position, end);
+      if (malformed != -1) {
+        return this.decodeMalformedToken(malformed, end);
       }
-
     }
+    String token;
+    if (symbolTable != null) {
+      token = symbolTable.lookup(this.buffer, this.position, length);
+    } else {
+      token = new String(this.buffer, this.position, length, UTF_8);
+    }
+    this.position += length;
+    this.capacity -= length;
+    return token;
+  }
 
-    case 4: {
-      int c2 = Byte.toUnsignedInt(this.buffer[this.position]);
-      int c3 = Byte.toUnsignedInt(this.buffer[this.position + 1]);
-      int c4 = Byte.toUnsignedInt(this.buffer[this.position + 2]);
-      this.position += 3;
-      this.capacity -= 3;
-      
-      if (Utf8Utils.isValidFourByteSequence(c1, c2, c3, c4)) {
-        return ((c1 & 0b00000111) << 18) | ((c2 & 0b00111111) << 12) | ((c3 & 0b00111111) << 6) | (c4 & 0b00111111);
-      } else {
-        return REPLACEMENT;
+  /**
+   * Skips lines until a line contains a sequence of bytes and returns that line.
+   *
+   * <p>The needle is searched for in the undecoded bytes, lines that do not
+   * contain it are skipped without being decoded. As UTF-8 is self-synchronizing
+   * a needle that is valid UTF-8 only matches on character boundaries.
+   *
+   * <p>Lines are terminated by {@code \n}, a {@code \r} before it is removed
+   * as well. The last line does not need to be terminated.
+   *
+   * @param needle the UTF-8 bytes to search for, not empty, must not contain
+   *               {@code \n}, for example {@code "ERROR".getBytes(UTF_8)}
+   * @return the first line from the current position that contains the
+   *         needle, {@code null} if the end of the stream has been reached
+   *         without a match
+   * @throws IllegalArgumentException if the needle is empty or contains {@code \n}
+   * @throws IOException if the reader is closed or reading fails
+   */
+  public String readLineContaining(byte[] needle) throws IOException {
+    if (needle.length == 0) {
+      throw new IllegalArgumentException("needle must not be empty");
+    }
+    for (byte b : needle) {
+      if (b == LF) {
+        throw new IllegalArgumentException("needle must not contain a line feed");
       }
+    }
+    this.closedCheck();
+    String prefix = null;
+    if (this.hasPendingLowSurrogate) {
+      this.hasPendingLowSurrogate = false;
+      prefix = String.valueOf(this.lowSurrogate);
+    }
+    // number of bytes after #position that have already been searched
+    int scanned = 0;
+    // whether the line starting at #position contains the needle
+    boolean found = false;
+    while (true) {
+      int end = this.position + this.capacity;
+      if (!found) {
+        int match = Utf8Utils.indexOf(this.buffer, this.position + scanned, end, needle);
+        // lines that end before the match or the end of the buffer are skipped
+        int lineFeed = Utf8Utils.lastIndexOf(this.buffer, this.position, match != -1 ? match : end, LF);
+        if (lineFeed != -1) {
+          int start = this.position;
+          this.consume(lineFeed + 1);
+          this.checkLineLength(start);
+          prefix = null;
+        }
+        if (match != -1) {
+          found = true;
+          scanned = match + needle.length - this.position;
+        } else {
+          // a match may start in the last bytes
+          scanned = Math.max(this.capacity - (needle.length - 1), 0);
+        }
+      }
+      if (found) {
+        int lineFeed = Utf8Utils.indexOf(this.buffer, this.position + scanned, end, LF, LF);
+        if (lineFeed != -1) {
+          int start = this.position;
+          String line = this.decodeLine(lineFeed);
+          // consume the line feed
+          this.consume(lineFeed + 1);
+          this.checkLineLength(start);
+          return this.concat(prefix, line);
+        }
+        scanned = this.capacity;
+      }
+      this.checkBufferedLineLength();
+      if (this.fill() == -1) {
+        int start = this.position;
+        if (!found) {
+          this.consume(this.position + this.capacity);
+          this.checkLineLength(start);
+          return null;
+        }
+        String line = this.decodeLine(this.position + this.capacity);
+        this.checkLineLength(start);
+        return this.concat(prefix, line);
+      }
+    }
+  }
 
+  /**
+   * Decodes the bytes from {@link #position} to {@code end} without a
+   * trailing {@code \r} and consumes them.
+   */
+  private String decodeLine(int end) throws IOException {
+    int length = end - this.position;
+    boolean carriageReturn = (length > 0) && (this.buffer[end - 1] == CR);
+    String line = this.decodeToken(carriageReturn ? length - 1 : length, null);
+    this.consume(end);
+    return line;
+  }
+
+  /**
+   * Prepends the pending low surrogate, if any, and counts the chars.
+   */
+  private String concat(String prefix, String s) throws ReadLimitExceededException {
+    String result = prefix == null ? s : prefix.concat(s);
+    this.countChars(result.length());
+    return result;
+  }
+
+  private void consume(int newPosition) {
+    this.capacity -= newPosition - this.position;
+    this.position = newPosition;
+  }
+
+  private String decodeMalformedToken(int malformed, int end) throws IOException {
+    if (this.malformedInputPolicy == MalformedInputPolicy.REPORT) {
+      int length = Utf8Utils.maximalSubpart(this.buffer, malformed, end);
+      throw new Utf8MalformedInputException(length, this.bufferOffset + malformed);
     }
+    int length = end - this.position;
+    char[] chars = new char[length];
+    long result = Utf8Codec.decode(this.buffer, this.position, length, chars, 0, length, true, MalformedInputPolicy.SKIP);
+    this.position += length;
+    this.capacity -= length;
+    return new String(chars, 0, Utf8Codec.produced(result));
+  }
 
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  /**
+   * Marks the present position in the stream.
+   *
+   * <p>As a UTF-8 encoded char can take up to three bytes the buffer may
+   * grow to up to three times {@code readAheadLimit} bytes.
+   *
+   * @param readAheadLimit limit on the number of characters that may be read
+   *                       while still preserving the mark
+   * @throws IllegalArgumentException if readAheadLimit is negative
+   * @throws IOException if the reader is closed
+   */
+  @Override
+  public void mark(int readAheadLimit) throws IOException {
+    if (readAheadLimit < 0) {
+      throw new IllegalArgumentException("read-ahead limit must not be negative");
     }
-    
-    
-    int codePoint = b1 & ((1 << (7 - byteLength)) - 1);
-    boolean valid = true;
-    for (int i = 0; i < (byteLength - 1); i++) {
-      int next = Byte.toUnsignedInt(this.buffer[this.position + i]);
-      if (next == -1) {
-        this.position += i + 1;
-        this.capacity -= i + 1;
-        return REPLACEMENT;
-      }
-      // all bytes except the first must start with 10xxxxxx
-      valid &= (next & 0b11000000) == 0b10000000;
-      int value = next & 0b111111;
-      codePoint = (codePoint << 6) | value;
+    this.closedCheck();
+    this.markLimit = (int) Math.min((long) readAheadLimit * MAX_BYTES_PER_CHAR, MAX_BUFFER_SIZE - MAX_BYTE_LENGTH);
+    this.markPosition = this.position;
+    this.markHasPendingLowSurrogate = this.hasPendingLowSurrogate;
+    this.markLowSurrogate = this.lowSurrogate;
+    this.markCharCount = this.charCount;
+    this.markLineLength = this.lineLength;
+    if (this.trackPosition) {
+      this.countPosition();
+      this.markLineNumber = this.lineNumber;
+      this.markColumn = this.column;
     }
-    if (valid) {
-      this.position += byteLength - 1;
-      this.capacity -= byteLength - 1;
-      return codePoint;
-    } else {
-      return REPLACEMENT;
+  }
+
+  @Override
+  public void reset() throws IOException {
+    this.closedCheck();
+    if (this.markPosition < 0) {
+      throw new IOException(this.markPosition == INVALIDATED ? "mark invalid" : "stream not marked");
+    }
+    this.capacity += this.position - this.markPosition;
+    this.position = this.markPosition;
+    this.hasPendingLowSurrogate = this.markHasPendingLowSurrogate;
+    this.lowSurrogate = this.markLowSurrogate;
+    this.charCount = this.markCharCount;
+    this.lineLength = this.markLineLength;
+    if (this.trackPosition) {
+      this.countedPosition = this.markPosition;
+      this.lineNumber = this.markLineNumber;
+      this.column = this.markColumn;
     }
   }
 
@@ -425,4 +1385,220 @@ public final class BufferedUtf8InputStreamReader extends Reader {
     this.closed = true;
   }
 
+  /**
+   * Builder for a {@link BufferedUtf8InputStreamReader} with options that
+   * are not available through the constructors.
+   *
+   * @see BufferedUtf8InputStreamReader#builder(InputStream)
+   */
+  public static final class Builder {
+
+    private final InputStream in;
+
+    private int initialBufferSize;
+
+    private int maxBufferSize;
+
+    private DecoderStats stats;
+
+    private MalformedInputPolicy malformedInputPolicy;
+
+    private boolean trackPosition;
+
+    private long byteOffset;
+
+    private long lineNumber;
+
+    private long columnNumber;
+
+    private long maxBytes;
+
+    private long maxChars;
+
+    private long maxLineLength;
+
+    Builder(InputStream in) {
+      this.in = Objects.requireNonNull(in);
+      this.initialBufferSize = 8192;
+      this.maxBufferSize = 8192;
+      this.stats = null;
+      this.malformedInputPolicy = MalformedInputPolicy.REPLACE;
+      this.trackPosition = false;
+      this.byteOffset = 0L;
+      this.lineNumber = 1L;
+      this.columnNumber = 1L;
+      this.maxBytes = NO_LIMIT;
+      this.maxChars = NO_LIMIT;
+      this.maxLineLength = NO_LIMIT;
+    }
+
+    /**
+     * Sets a fixed buffer size.
+     *
+     * @param bufferSize the size of the buffer in bytes, at least 4
+     * @return this builder
+     */
+    public Builder bufferSize(int bufferSize) {
+      return this.bufferSize(bufferSize, bufferSize);
+    }
+
+    /**
+     * Sets an adaptive buffer size.
+     *
+     * @param initialBufferSize the initial and minimum size of the buffer in bytes, at least 4
+     * @param maxBufferSize the maximum size of the buffer in bytes,
+     *                      at least {@code initialBufferSize}
+     * @return this builder
+     * @see BufferedUtf8InputStreamReader#BufferedUtf8InputStreamReader(InputStream, int, int)
+     */
+    public Builder bufferSize(int initialBufferSize, int maxBufferSize) {
+      this.initialBufferSize = initialBufferSize;
+      this.maxBufferSize = maxBufferSize;
+      return this;
+    }
+
+    /**
+     * Sets where to collect statistics.
+     *
+     * @param stats where to collect the statistics, {@code null} to disable statistics
+     * @return this builder
+     */
+    public Builder stats(DecoderStats stats) {
+      this.stats = stats;
+      return this;
+    }
+
+    /**
+     * Sets what to do with malformed input.
+     *
+     * <p>With {@link MalformedInputPolicy#REPORT} the malformed input is not
+     * consumed, {@link BufferedUtf8InputStreamReader#getByteOffset()} is the
+     * offset of the exception. Chars decoded before the malformed input are
+     * returned first, the exception is thrown by the next read.
+     *
+     * @param malformedInputPolicy the policy, not {@code null}, the default
+     *                             is {@link MalformedInputPolicy#REPLACE}
+     * @return this builder
+     */
+    public Builder malformedInputPolicy(MalformedInputPolicy malformedInputPolicy) {
+      this.malformedInputPolicy = Objects.requireNonNull(malformedInputPolicy);
+      return this;
+    }
+
+    /**
+     * Enables tracking of line and column numbers.
+     *
+     * <p>Lines and columns are only counted with SWAR before consumed bytes
+     * are discarded from the buffer and when they are queried, the decoding
+     * paths are not affected.
+     *
+     * @return this builder
+     * @see BufferedUtf8InputStreamReader#getLineNumber()
+     * @see BufferedUtf8InputStreamReader#getColumnNumber()
+     */
+    public Builder trackPosition() {
+      this.trackPosition = true;
+      return this;
+    }
+
+    /**
+     * Sets the position of the first byte of the stream, for continuing
+     * from a checkpoint of an earlier reader.
+     *
+     * @param byteOffset the byte offset of the first byte of the stream, not negative
+     * @param lineNumber the 1-based line number of the first byte of the stream
+     * @param columnNumber the 1-based column number of the first byte of the stream
+     * @return this builder
+     * @throws IllegalArgumentException if any of the arguments is out of range
+     * @see BufferedUtf8InputStreamReader#getByteOffset()
+     */
+    public Builder position(long byteOffset, long lineNumber, long columnNumber) {
+      if (byteOffset < 0L) {
+        throw new IllegalArgumentException("byte offset must not be negative");
+      }
+      if (lineNumber < 1L) {
+        throw new IllegalArgumentException("line number must be positive");
+      }
+      if (columnNumber < 1L) {
+        throw new IllegalArgumentException("column number must be positive");
+      }
+      this.byteOffset = byteOffset;
+      this.lineNumber = lineNumber;
+      this.columnNumber = columnNumber;
+      return this;
+    }
+
+    /**
+     * Limits the number of bytes read from the stream.
+     *
+     * <p>At most one byte more than the limit is read from the stream, a
+     * refill that exceeds the limit throws a {@link ReadLimitExceededException}
+     * even if decoded chars are still buffered.
+     *
+     * @param maxBytes the maximum number of bytes, not negative
+     * @return this builder
+     * @throws IllegalArgumentException if maxBytes is negative
+     */
+    public Builder maxBytes(long maxBytes) {
+      this.maxBytes = checkLimit(maxBytes);
+      return this;
+    }
+
+    /**
+     * Limits the number of chars produced by reading or skipping.
+     *
+     * <p>Bulk reads are shortened so that the limit can be read completely,
+     * the first read beyond the limit throws a {@link ReadLimitExceededException}.
+     * A supplementary code point counts as two chars.
+     *
+     * @param maxChars the maximum number of chars, not negative
+     * @return this builder
+     * @throws IllegalArgumentException if maxChars is negative
+     */
+    public Builder maxChars(long maxChars) {
+      this.maxChars = checkLimit(maxChars);
+      return this;
+    }
+
+    /**
+     * Limits the length of lines in bytes, not counting the {@code \n}.
+     *
+     * <p>The lines are checked in the undecoded bytes after every bulk read
+     * or skip, a read that consumes a too long line throws a
+     * {@link ReadLimitExceededException}.
+     * {@link BufferedUtf8InputStreamReader#readToken(char, Utf8SymbolTable)}
+     * and {@link BufferedUtf8InputStreamReader#readLineContaining(byte[])} check
+     * the buffered line before every refill so a line without an end does not
+     * grow the buffer much past the limit.
+     *
+     * @param maxLineLength the maximum number of bytes in a line, not negative
+     * @return this builder
+     * @throws IllegalArgumentException if maxLineLength is negative
+     */
+    public Builder maxLineLength(long maxLineLength) {
+      this.maxLineLength = checkLimit(maxLineLength);
+      return this;
+    }
+
+    private static long checkLimit(long limit) {
+      if (limit < 0L) {
+        throw new IllegalArgumentException("limit must not be negative");
+      }
+      return limit;
+    }
+
+    /**
+     * Creates a new {@link BufferedUtf8InputStreamReader}.
+     *
+     * @return the new reader
+     * @throws IllegalArgumentException if the buffer sizes are not valid
+     */
+    public BufferedUtf8InputStreamReader build() {
+      return new BufferedUtf8InputStreamReader(this.in, newBuffer(this.initialBufferSize, this.maxBufferSize), 0, 0, this.maxBufferSize,
+              this.stats, this.malformedInputPolicy, this.trackPosition, this.byteOffset, this.lineNumber, this.columnNumber,
+              this.maxBytes, this.maxChars, this.maxLineLength);
+    }
+
+  }
+
 }
@@ -0,0 +1,54 @@
+package com.github.marschall.readers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A source of Unicode code points.
+ *
+ * <p>Unlike {@link java.io.Reader#read()} non-BMP code points are returned as
+ * a single value instead of being split into a high and a low surrogate.
+ *
+ * <p>If a high surrogate has been read through a {@code char} based method
+ * the pending low surrogate is returned as a code point on its own.
+ */
+public interface CodePointReader {
+
+  /**
+   * Reads a single code point.
+   *
+   * @return the code point read, or -1 if the end of the stream has been reached
+   * @throws IOException if an I/O error occurs
+   */
+  int readCodePoint() throws IOException;
+
+  /**
+   * Reads code points into a portion of an array.
+   *
+   * @param codePoints destination buffer
+   * @param off offset at which to start storing code points
+   * @param len maximum number of code points to read
+   * @return the number of code points read, or -1 if the end of the stream
+   *         has been reached
+   * @throws IOException if an I/O error occurs
+   * @throws IndexOutOfBoundsException if off or len are out of bounds
+   */
+  int read(int[] codePoints, int off, int len) throws IOException;
+
+  /**
+   * Returns a stream of the remaining code points.
+   *
+   * <p>The stream reads code points in bulk through
+   * {@link #read(int[], int, int)} and does not allocate per code point.
+   * {@link IOException}s are wrapped in {@link UncheckedIOException}s.
+   * Closing the stream does not close the reader.
+   *
+   * @return a stream of the remaining code points
+   */
+  default IntStream codePoints() {
+    return StreamSupport.intStream(new CodePointSpliterator(this), false);
+  }
+
+}
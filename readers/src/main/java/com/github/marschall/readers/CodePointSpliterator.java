@@ -0,0 +1,76 @@
+package com.github.marschall.readers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+
+/**
+ * A {@link Spliterator} of code points that reads from a {@link CodePointReader}
+ * in bulk.
+ */
+final class CodePointSpliterator extends Spliterators.AbstractIntSpliterator {
+
+  private static final int BUFFER_SIZE = 1024;
+
+  private final CodePointReader reader;
+
+  private final int[] buffer;
+
+  // position in #buffer of the next code point
+  private int index;
+
+  // number of code points in #buffer
+  private int count;
+
+  CodePointSpliterator(CodePointReader reader) {
+    super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+    Objects.requireNonNull(reader);
+    this.reader = reader;
+    this.buffer = new int[BUFFER_SIZE];
+    this.index = 0;
+    this.count = 0;
+  }
+
+  private boolean fill() {
+    int read;
+    try {
+      read = this.reader.read(this.buffer, 0, this.buffer.length);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    this.index = 0;
+    if (read == -1) {
+      this.count = 0;
+      return false;
+    }
+    this.count = read;
+    return true;
+  }
+
+  @Override
+  public boolean tryAdvance(IntConsumer action) {
+    Objects.requireNonNull(action);
+    if ((this.index == this.count) && !this.fill()) {
+      return false;
+    }
+    action.accept(this.buffer[this.index++]);
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(IntConsumer action) {
+    Objects.requireNonNull(action);
+    do {
+      int[] codePoints = this.buffer;
+      int end = this.count;
+      for (int i = this.index; i < end; i++) {
+        action.accept(codePoints[i]);
+      }
+      this.index = end;
+    } while (this.fill());
+  }
+
+}
@@ -0,0 +1,126 @@
+package com.github.marschall.readers;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects decoding statistics of one or more readers.
+ *
+ * <p>Statistics are optional, a reader constructed without a
+ * {@link DecoderStats} instance only pays for a never taken {@code null}
+ * check, which the JIT compiles to an uncommon trap. Readers update the
+ * statistics once per bulk read call, not per character, except for the
+ * single character methods.
+ *
+ * <p>The counters can be exported through JMX by registering the instance
+ * with an {@link javax.management.MBeanServer}, see {@link DecoderStatsMXBean}.
+ *
+ * <p>Thread-safe, one instance can be shared by many readers.
+ *
+ * @see BufferedUtf8InputStreamReader#BufferedUtf8InputStreamReader(java.io.InputStream, int, int, DecoderStats)
+ * @see Utf8InputStreamReader#Utf8InputStreamReader(java.io.InputStream, DecoderStats)
+ */
+public final class DecoderStats implements DecoderStatsMXBean {
+
+  private final LongAdder bytesDecoded;
+
+  private final LongAdder charsDecoded;
+
+  private final LongAdder bulkBytes;
+
+  private final LongAdder refills;
+
+  private final LongAdder compactions;
+
+  private final LongAdder replacements;
+
+  /**
+   * Constructs a new {@link DecoderStats} with all counters at zero.
+   */
+  public DecoderStats() {
+    this.bytesDecoded = new LongAdder();
+    this.charsDecoded = new LongAdder();
+    this.bulkBytes = new LongAdder();
+    this.refills = new LongAdder();
+    this.compactions = new LongAdder();
+    this.replacements = new LongAdder();
+  }
+
+  void recordDecoded(int bytes, int chars, int bulk) {
+    if (bytes > 0) {
+      this.bytesDecoded.add(bytes);
+    }
+    if (chars > 0) {
+      this.charsDecoded.add(chars);
+    }
+    if (bulk > 0) {
+      this.bulkBytes.add(bulk);
+    }
+  }
+
+  void recordRefill() {
+    this.refills.increment();
+  }
+
+  void recordCompaction() {
+    this.compactions.increment();
+  }
+
+  void recordReplacement() {
+    this.replacements.increment();
+  }
+
+  @Override
+  public long getBytesDecoded() {
+    return this.bytesDecoded.sum();
+  }
+
+  @Override
+  public long getCharsDecoded() {
+    return this.charsDecoded.sum();
+  }
+
+  @Override
+  public long getBulkBytes() {
+    return this.bulkBytes.sum();
+  }
+
+  @Override
+  public long getSlowPathBytes() {
+    return this.getBytesDecoded() - this.getBulkBytes();
+  }
+
+  @Override
+  public double getBulkRatio() {
+    long bytes = this.getBytesDecoded();
+    if (bytes == 0L) {
+      return 0.0d;
+    }
+    return (double) this.getBulkBytes() / (double) bytes;
+  }
+
+  @Override
+  public long getRefills() {
+    return this.refills.sum();
+  }
+
+  @Override
+  public long getCompactions() {
+    return this.compactions.sum();
+  }
+
+  @Override
+  public long getReplacements() {
+    return this.replacements.sum();
+  }
+
+  @Override
+  public void reset() {
+    this.bytesDecoded.reset();
+    this.charsDecoded.reset();
+    this.bulkBytes.reset();
+    this.refills.reset();
+    this.compactions.reset();
+    this.replacements.reset();
+  }
+
+}
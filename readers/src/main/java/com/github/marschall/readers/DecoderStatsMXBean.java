@@ -0,0 +1,74 @@
+package com.github.marschall.readers;
+
+/**
+ * Management interface of {@link DecoderStats}.
+ *
+ * <p>Register a {@link DecoderStats} instance with an
+ * {@link javax.management.MBeanServer} to export the counters through JMX.
+ */
+public interface DecoderStatsMXBean {
+
+  /**
+   * Returns the number of bytes decoded.
+   *
+   * @return the number of bytes decoded
+   */
+  long getBytesDecoded();
+
+  /**
+   * Returns the number of chars produced.
+   *
+   * @return the number of chars produced
+   */
+  long getCharsDecoded();
+
+  /**
+   * Returns the number of bytes decoded by the bulk ASCII lane.
+   *
+   * @return the number of bytes decoded eight at a time
+   */
+  long getBulkBytes();
+
+  /**
+   * Returns the number of bytes decoded one at a time.
+   *
+   * @return the number of bytes decoded outside of the bulk ASCII lane
+   */
+  long getSlowPathBytes();
+
+  /**
+   * Returns the fraction of bytes decoded by the bulk ASCII lane.
+   *
+   * @return the fraction of bytes decoded eight at a time,
+   *         between 0.0 and 1.0, 0.0 if nothing was decoded
+   */
+  double getBulkRatio();
+
+  /**
+   * Returns the number of reads from the underlying stream into the buffer.
+   *
+   * @return the number of buffer refills
+   */
+  long getRefills();
+
+  /**
+   * Returns the number of times unread bytes were moved to the start of the
+   * buffer before a refill.
+   *
+   * @return the number of buffer compactions
+   */
+  long getCompactions();
+
+  /**
+   * Returns the number of malformed sequences that were replaced or skipped.
+   *
+   * @return the number of replacements
+   */
+  long getReplacements();
+
+  /**
+   * Resets all counters to zero.
+   */
+  void reset();
+
+}
@@ -0,0 +1,270 @@
+package com.github.marschall.readers;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * An {@link InputStream} that inflates GZIP, ZLIB or raw Deflate input from a
+ * channel directly into the array passed to {@link #read(byte[], int, int)}.
+ *
+ * <p>Unlike {@link java.util.zip.GZIPInputStream} the compressed input is
+ * read into a direct {@link ByteBuffer} that is passed to the
+ * {@link Inflater} without copying and there is no intermediate output
+ * buffer, the caller's array is the output buffer.
+ *
+ * <p>GZIP input may consist of several members. Trailing bytes that are not
+ * the start of a valid GZIP member header are ignored, like
+ * {@link java.util.zip.GZIPInputStream} does.
+ */
+final class InflatingInputStream extends InputStream {
+
+  static final int GZIP = 0;
+
+  static final int ZLIB = 1;
+
+  static final int DEFLATE = 2;
+
+  private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+
+  private static final int GZIP_MAGIC = 0x8B1F;
+
+  private static final int DEFLATED = 8;
+
+  private static final int FHCRC = 2;
+
+  private static final int FEXTRA = 4;
+
+  private static final int FNAME = 8;
+
+  private static final int FCOMMENT = 16;
+
+  private final ReadableByteChannel channel;
+
+  private final int format;
+
+  private final Inflater inflater;
+
+  private final CRC32 crc;
+
+  private final ByteBuffer input;
+
+  private final byte[] single;
+
+  // true before the header of the first GZIP member has been read
+  private boolean headerPending;
+
+  private boolean endOfInput;
+
+  private boolean closed;
+
+  InflatingInputStream(ReadableByteChannel channel, int format) {
+    this.channel = Objects.requireNonNull(channel);
+    this.format = format;
+    this.inflater = new Inflater(format != ZLIB);
+    this.crc = new CRC32();
+    this.input = ByteBuffer.allocateDirect(INPUT_BUFFER_SIZE);
+    // empty, in read mode
+    this.input.flip();
+    this.single = new byte[1];
+    this.headerPending = format == GZIP;
+    this.endOfInput = false;
+    this.closed = false;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int read = this.read(this.single, 0, 1);
+    if (read == -1) {
+      return -1;
+    }
+    return this.single[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    this.closedCheck();
+    Objects.checkFromIndexSize(off, len, b.length);
+    if (len == 0) {
+      return 0;
+    }
+    if (this.headerPending) {
+      this.headerPending = false;
+      if (!this.readHeader()) {
+        throw new ZipException("not in GZIP format");
+      }
+    }
+    while (!this.endOfInput) {
+      // the last inflate may have returned data and finished the stream
+      if (this.inflater.finished()) {
+        this.endOfStream();
+        continue;
+      }
+      if (this.inflater.needsInput()) {
+        // the input may still contain bytes after a GZIP header
+        if (!this.input.hasRemaining() && !this.fillInput()) {
+          throw new EOFException("unexpected end of compressed input");
+        }
+        this.inflater.setInput(this.input);
+      }
+      int inflated;
+      try {
+        inflated = this.inflater.inflate(b, off, len);
+      } catch (DataFormatException e) {
+        String message = e.getMessage();
+        throw new ZipException(message != null ? message : "invalid compressed data format");
+      }
+      if (inflated > 0) {
+        if (this.format == GZIP) {
+          this.crc.update(b, off, inflated);
+        }
+        return inflated;
+      }
+      if (this.inflater.needsDictionary()) {
+        throw new ZipException("preset dictionary not supported");
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Called after the end of a compressed stream, checks the GZIP trailer and
+   * starts the next member if there is one.
+   */
+  private void endOfStream() throws IOException {
+    if (this.format != GZIP) {
+      this.endOfInput = true;
+      return;
+    }
+    long expectedCrc = this.readUnsignedInt();
+    long expectedSize = this.readUnsignedInt();
+    if (expectedCrc != this.crc.getValue()) {
+      throw new ZipException("corrupt GZIP trailer");
+    }
+    if (expectedSize != (this.inflater.getBytesWritten() & 0xFFFF_FFFFL)) {
+      throw new ZipException("corrupt GZIP trailer");
+    }
+    boolean nextMember;
+    try {
+      nextMember = this.readHeader();
+    } catch (IOException e) {
+      // trailing bytes that are not a valid header are ignored like in GZIPInputStream
+      nextMember = false;
+    }
+    if (nextMember) {
+      this.inflater.reset();
+      this.crc.reset();
+      this.inflater.setInput(this.input);
+    } else {
+      this.endOfInput = true;
+    }
+  }
+
+  /**
+   * Reads a GZIP member header.
+   *
+   * @return {@code true} if a header was read, {@code false} if the input
+   *         ended or does not start with a GZIP header
+   */
+  private boolean readHeader() throws IOException {
+    if (!this.input.hasRemaining() && !this.fillInput()) {
+      return false;
+    }
+    if (this.readUnsignedByte() != (GZIP_MAGIC & 0xFF)) {
+      return false;
+    }
+    if (!this.input.hasRemaining() && !this.fillInput()) {
+      return false;
+    }
+    if (this.readUnsignedByte() != (GZIP_MAGIC >>> 8)) {
+      return false;
+    }
+    if (this.readUnsignedByte() != DEFLATED) {
+      throw new ZipException("unsupported compression method");
+    }
+    int flags = this.readUnsignedByte();
+    // modification time, extra flags, operating system
+    this.skipBytes(6);
+    if ((flags & FEXTRA) != 0) {
+      int length = this.readUnsignedByte() | (this.readUnsignedByte() << 8);
+      this.skipBytes(length);
+    }
+    if ((flags & FNAME) != 0) {
+      this.skipZeroTerminated();
+    }
+    if ((flags & FCOMMENT) != 0) {
+      this.skipZeroTerminated();
+    }
+    if ((flags & FHCRC) != 0) {
+      this.skipBytes(2);
+    }
+    return true;
+  }
+
+  private int readUnsignedByte() throws IOException {
+    if (!this.input.hasRemaining() && !this.fillInput()) {
+      throw new EOFException("unexpected end of compressed input");
+    }
+    return this.input.get() & 0xFF;
+  }
+
+  private long readUnsignedInt() throws IOException {
+    long value = 0L;
+    for (int i = 0; i < 4; i++) {
+      value |= (long) this.readUnsignedByte() << (i * 8);
+    }
+    return value;
+  }
+
+  private void skipBytes(int n) throws IOException {
+    for (int i = 0; i < n; i++) {
+      this.readUnsignedByte();
+    }
+  }
+
+  private void skipZeroTerminated() throws IOException {
+    while (this.readUnsignedByte() != 0) {
+      // skip
+    }
+  }
+
+  /**
+   * Reads more compressed input, must only be called when the input buffer
+   * is empty.
+   *
+   * @return {@code false} if the end of the channel has been reached
+   */
+  private boolean fillInput() throws IOException {
+    ByteBuffer buffer = this.input;
+    buffer.clear();
+    int read;
+    do {
+      read = this.channel.read(buffer);
+    } while (read == 0);
+    buffer.flip();
+    return read != -1;
+  }
+
+  private void closedCheck() throws IOException {
+    if (this.closed) {
+      throw new IOException("closed stream");
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!this.closed) {
+      this.closed = true;
+      this.inflater.end();
+      this.channel.close();
+    }
+  }
+
+}
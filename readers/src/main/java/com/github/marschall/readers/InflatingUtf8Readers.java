@@ -0,0 +1,68 @@
+package com.github.marschall.readers;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Factory methods for readers that decompress and decode UTF-8 in one step.
+ *
+ * <p>Instead of stacking a {@link java.util.zip.GZIPInputStream} with its own
+ * buffers under a {@link BufferedUtf8InputStreamReader} the returned readers
+ * drive an {@link java.util.zip.Inflater} with compressed input from a direct
+ * buffer straight into the byte buffer of the decoder.
+ *
+ * <p>Closing the reader closes the channel and releases the native
+ * resources of the inflater.
+ */
+public final class InflatingUtf8Readers {
+
+  private InflatingUtf8Readers() {
+    throw new AssertionError("not instantiable");
+  }
+
+  /**
+   * Opens a reader on a GZIP compressed UTF-8 file.
+   *
+   * @param file the file, not {@code null}
+   * @return the reader
+   * @throws IOException if the file can not be opened
+   * @see #newGzipReader(ReadableByteChannel)
+   */
+  public static BufferedUtf8InputStreamReader newGzipReader(Path file) throws IOException {
+    return newGzipReader(FileChannel.open(file, StandardOpenOption.READ));
+  }
+
+  /**
+   * Creates a reader on GZIP compressed UTF-8 input.
+   *
+   * <p>The input may consist of several GZIP members, they are decoded as
+   * one stream. The CRC and size of every member are checked. Reading throws
+   * a {@link java.util.zip.ZipException} if the input is not in GZIP format
+   * or corrupt.
+   *
+   * @param channel the channel from which to read the compressed input, not {@code null}
+   * @return the reader
+   * @throws NullPointerException if channel is {@code null}
+   */
+  public static BufferedUtf8InputStreamReader newGzipReader(ReadableByteChannel channel) {
+    return new BufferedUtf8InputStreamReader(new InflatingInputStream(channel, InflatingInputStream.GZIP));
+  }
+
+  /**
+   * Creates a reader on Deflate compressed UTF-8 input.
+   *
+   * @param channel the channel from which to read the compressed input, not {@code null}
+   * @param nowrap {@code true} for raw Deflate input, {@code false} for input
+   *               in ZLIB format, see {@link java.util.zip.Inflater#Inflater(boolean)}
+   * @return the reader
+   * @throws NullPointerException if channel is {@code null}
+   */
+  public static BufferedUtf8InputStreamReader newInflatingReader(ReadableByteChannel channel, boolean nowrap) {
+    int format = nowrap ? InflatingInputStream.DEFLATE : InflatingInputStream.ZLIB;
+    return new BufferedUtf8InputStreamReader(new InflatingInputStream(channel, format));
+  }
+
+}
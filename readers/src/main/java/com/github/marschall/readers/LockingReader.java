@@ -0,0 +1,176 @@
+package com.github.marschall.readers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.CharBuffer;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe {@link Reader} that guards a reader that is not thread-safe
+ * with a {@link ReentrantLock}.
+ *
+ * <p>Unlike the {@link Reader#lock} convention no {@code synchronized} is
+ * used so a virtual thread blocked in a read does not pin its carrier
+ * thread. Uncontended the cost is a lock and an unlock per call, bulk reads
+ * are therefore preferable over {@link #read()}.
+ *
+ * <p>{@link #close()} does not acquire the lock, it can be called
+ * concurrently from any thread, for example a watchdog, while another thread
+ * is blocked in a read. The delegate is closed at most once, after closing
+ * all methods except {@link #close()} throw an {@link IOException}. Closing
+ * the underlying stream is what unblocks a blocked read.
+ */
+public final class LockingReader extends Reader {
+
+  private static final VarHandle CLOSED;
+
+  static {
+    try {
+      CLOSED = MethodHandles.lookup().findVarHandle(LockingReader.class, "closed", boolean.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private final Reader delegate;
+
+  // not called lock to avoid confusion with Reader#lock
+  private final ReentrantLock readLock;
+
+  // accessed through CLOSED
+  private volatile boolean closed;
+
+  /**
+   * Constructs a new {@link LockingReader}.
+   *
+   * @param delegate the reader to guard, not {@code null}, must not be used
+   *                 directly anymore
+   * @throws NullPointerException if delegate is {@code null}
+   */
+  public LockingReader(Reader delegate) {
+    this.delegate = Objects.requireNonNull(delegate);
+    this.readLock = new ReentrantLock();
+    this.closed = false;
+  }
+
+  @Override
+  public int read() throws IOException {
+    this.readLock.lock();
+    try {
+      this.closedCheck();
+      return this.delegate.read();
+    } finally {
+      this.readLock.unlock();
+    }
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    this.readLock.lock();
+    try {
+      this.closedCheck();
+      return this.delegate.read(cbuf, off, len);
+    } finally {
+      this.readLock.unlock();
+    }
+  }
+
+  @Override
+  public int read(CharBuffer target) throws IOException {
+    this.readLock.lock();
+    try {
+      this.closedCheck();
+      return this.delegate.read(target);
+    } finally {
+      this.readLock.unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The lock is held for the whole transfer.
+   */
+  @Override
+  public long transferTo(Writer out) throws IOException {
+    this.readLock.lock();
+    try {
+      this.closedCheck();
+      return this.delegate.transferTo(out);
+    } finally {
+      this.readLock.unlock();
+    }
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    this.readLock.lock();
+    try {
+      this.closedCheck();
+      return this.delegate.skip(n);
+    } finally {
+      this.readLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean ready() throws IOException {
+    this.readLock.lock();
+    try {
+      this.closedCheck();
+      return this.delegate.ready();
+    } finally {
+      this.readLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean markSupported() {
+    return this.delegate.markSupported();
+  }
+
+  @Override
+  public void mark(int readAheadLimit) throws IOException {
+    this.readLock.lock();
+    try {
+      this.closedCheck();
+      this.delegate.mark(readAheadLimit);
+    } finally {
+      this.readLock.unlock();
+    }
+  }
+
+  @Override
+  public void reset() throws IOException {
+    this.readLock.lock();
+    try {
+      this.closedCheck();
+      this.delegate.reset();
+    } finally {
+      this.readLock.unlock();
+    }
+  }
+
+  private void closedCheck() throws IOException {
+    if (this.closed) {
+      throw new IOException("closed reader");
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Does not wait for a concurrent read to finish.
+   */
+  @Override
+  public void close() throws IOException {
+    if (CLOSED.compareAndSet(this, false, true)) {
+      this.delegate.close();
+    }
+  }
+
+}
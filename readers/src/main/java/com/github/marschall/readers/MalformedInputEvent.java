@@ -0,0 +1,42 @@
+package com.github.marschall.readers;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a malformed UTF-8 sequence that was replaced or skipped.
+ */
+@Name(MalformedInputEvent.NAME)
+@Label("Malformed UTF-8 Input")
+@Description("A malformed UTF-8 sequence was replaced with U+FFFD or skipped")
+@Category({"Java Application", "Readers"})
+@StackTrace(false)
+final class MalformedInputEvent extends Event {
+
+  static final String NAME = "com.github.marschall.readers.MalformedInput";
+
+  /**
+   * Used only to check whether the event is enabled, so that no event is
+   * allocated when JFR is off.
+   */
+  private static final MalformedInputEvent PROTOTYPE = new MalformedInputEvent();
+
+  @Label("Byte Offset")
+  @Description("Offset in the stream of the first byte of the malformed sequence")
+  long byteOffset;
+
+  @Label("Byte Count")
+  @Description("Number of malformed bytes")
+  @DataAmount
+  int byteCount;
+
+  static boolean enabled() {
+    return PROTOTYPE.isEnabled();
+  }
+
+}
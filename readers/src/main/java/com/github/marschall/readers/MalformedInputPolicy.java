@@ -0,0 +1,36 @@
+package com.github.marschall.readers;
+
+/**
+ * What a reader does with malformed UTF-8 input.
+ *
+ * <p>Malformed input is split into maximal subparts, the longest prefixes
+ * that are the start of a valid sequence, like
+ * {@link String#String(byte[], java.nio.charset.Charset)} does. A stray
+ * continuation byte or an invalid lead byte is its own maximal subpart, the
+ * byte that ends a cut off sequence is not part of it.
+ *
+ * <p>The policy is only consulted for malformed input, decoding valid input
+ * costs the same for every policy.
+ *
+ * @see BufferedUtf8InputStreamReader.Builder#malformedInputPolicy(MalformedInputPolicy)
+ * @see Utf8InputStreamReader#Utf8InputStreamReader(java.io.InputStream, DecoderStats, MalformedInputPolicy)
+ */
+public enum MalformedInputPolicy {
+
+  /**
+   * Replaces every maximal subpart with U+FFFD, the default.
+   */
+  REPLACE,
+
+  /**
+   * Throws a {@link Utf8MalformedInputException} with the byte offset of the
+   * malformed input.
+   */
+  REPORT,
+
+  /**
+   * Drops every maximal subpart.
+   */
+  SKIP
+
+}
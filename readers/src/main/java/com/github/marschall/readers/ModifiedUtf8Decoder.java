@@ -0,0 +1,145 @@
+package com.github.marschall.readers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+
+/**
+ * Reads strings written by {@link DataOutput#writeUTF(String)} into reusable
+ * buffers.
+ *
+ * <p>Unlike {@link DataInput#readUTF()} this does not allocate a
+ * {@code byte[]}, a {@code char[]} and a {@link String} for every string. The
+ * chars are decoded into a buffer that is reused by the next call, the
+ * buffers only grow when a longer string is read.
+ *
+ * <pre><code>
+ * ModifiedUtf8Decoder decoder = new ModifiedUtf8Decoder();
+ * int length = decoder.readUTF(dataInput);
+ * writer.write(decoder.getChars(), 0, length);
+ * </code></pre>
+ *
+ * <p>Not thread-safe.
+ *
+ * @see ModifiedUtf8InputStreamReader
+ */
+public final class ModifiedUtf8Decoder {
+
+  private static final int INITIAL_CAPACITY = 128;
+
+  /**
+   * The maximum length in bytes of a string written by {@link DataOutput#writeUTF(String)}.
+   */
+  private static final int MAX_UTF_LENGTH = 0xFFFF;
+
+  private byte[] bytes;
+
+  private char[] chars;
+
+  private int length;
+
+  /**
+   * Constructs a new {@link ModifiedUtf8Decoder}.
+   */
+  public ModifiedUtf8Decoder() {
+    this.bytes = new byte[INITIAL_CAPACITY];
+    this.chars = new char[INITIAL_CAPACITY];
+    this.length = 0;
+  }
+
+  /**
+   * Reads a string in the format of {@link DataInput#readUTF()}.
+   *
+   * <p>The chars can be accessed through {@link #getChars()} until the next
+   * call.
+   *
+   * @param in where to read from, not {@code null}
+   * @return the number of chars of the string
+   * @throws java.io.EOFException if the input ends before the end of the string
+   * @throws UTFDataFormatException if the bytes are not valid Modified UTF-8
+   * @throws IOException if reading fails
+   */
+  public int readUTF(DataInput in) throws IOException {
+    int utfLength = in.readUnsignedShort();
+    if (utfLength > this.bytes.length) {
+      // every char is at least one byte
+      int newCapacity = Math.min(Math.max(utfLength, this.bytes.length << 1), MAX_UTF_LENGTH);
+      this.bytes = new byte[newCapacity];
+      this.chars = new char[newCapacity];
+    }
+    // invalidate the previous string in case reading fails
+    this.length = 0;
+    in.readFully(this.bytes, 0, utfLength);
+    this.length = decode(this.bytes, utfLength, this.chars);
+    return this.length;
+  }
+
+  /**
+   * Returns the buffer containing the chars of the last string read.
+   *
+   * @return the buffer, valid from index 0 to {@link #getLength()}, the
+   *         buffer is reused by the next call to {@link #readUTF(DataInput)}
+   */
+  public char[] getChars() {
+    return this.chars;
+  }
+
+  /**
+   * Returns the number of chars of the last string read.
+   *
+   * @return the number of chars of the last string read
+   */
+  public int getLength() {
+    return this.length;
+  }
+
+  /**
+   * Decodes complete Modified UTF-8 input.
+   *
+   * @return the number of chars written to {@code dst}
+   */
+  static int decode(byte[] src, int len, char[] dst) throws UTFDataFormatException {
+    int i = 0;
+    int written = 0;
+    while (i < len) {
+      if (((len - i) >= 8) && Utf8Utils.isAsciiRange(src, i)) {
+        // bulk copy 8 ASCII characters
+        Utf8Utils.copy8(src, i, dst, written);
+        i += 8;
+        written += 8;
+        continue;
+      }
+      int c1 = Byte.toUnsignedInt(src[i]);
+      if (c1 < 0x80) {
+        dst[written++] = (char) c1;
+        i += 1;
+      } else if (((c1 & 0b1110_0000) == 0b1100_0000) && ((len - i) >= 2)) {
+        int c2 = Byte.toUnsignedInt(src[i + 1]);
+        if (!Utf8Utils.isValidTwoByteSequence(c1, c2) && !Utf8Utils.isModifiedNul(c1, c2)) {
+          throw malformedInput(i);
+        }
+        dst[written++] = (char) (((c1 & 0b00011111) << 6) | (c2 & 0b00111111));
+        i += 2;
+      } else if (((c1 & 0b1111_0000) == 0b1110_0000) && ((len - i) >= 3)) {
+        int c2 = Byte.toUnsignedInt(src[i + 1]);
+        int c3 = Byte.toUnsignedInt(src[i + 2]);
+        // surrogates are valid three byte sequences
+        if (!Utf8Utils.isValidThreeByteSequence(c1, c2, c3)) {
+          throw malformedInput(i);
+        }
+        dst[written++] = (char) (((c1 & 0b00001111) << 12) | ((c2 & 0b00111111) << 6) | (c3 & 0b00111111));
+        i += 3;
+      } else {
+        // continuation byte, four byte sequence or truncated
+        throw malformedInput(i);
+      }
+    }
+    return written;
+  }
+
+  private static UTFDataFormatException malformedInput(int index) {
+    return new UTFDataFormatException("malformed input around byte " + index);
+  }
+
+}
@@ -0,0 +1,269 @@
+package com.github.marschall.readers;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Objects;
+
+/**
+ * A {@link Reader} that decodes Modified UTF-8 or CESU-8 from an
+ * {@link InputStream} with buffering.
+ *
+ * <p>Modified UTF-8 is the encoding used by {@link DataInput#readUTF()}, JNI
+ * and class files. It differs from UTF-8 in that U+0000 is encoded as
+ * {@code C0 80} and supplementary characters are encoded as two three byte
+ * sequences, one for each surrogate, like in CESU-8. As a result every
+ * sequence decodes to exactly one char. Four byte sequences are not valid.
+ *
+ * <p>A malformed sequence is replaced by a single U+FFFD, only its first byte
+ * is consumed. A sequence that is cut off by the end of the stream is
+ * replaced by a single U+FFFD together with its continuation bytes.
+ *
+ * <p>The implementation is optimized for bulk copying ASCII characters.
+ *
+ * <p>Not thread-safe.
+ *
+ * @see ModifiedUtf8Decoder
+ */
+public final class ModifiedUtf8InputStreamReader extends Reader {
+
+  /**
+   * Unicode replacement character.
+   */
+  private static final char REPLACEMENT = 0xFFFD;
+
+  /**
+   * The maximum number of bytes of a Modified UTF-8 sequence.
+   */
+  private static final int MAX_BYTE_LENGTH = 3;
+
+  private boolean closed;
+
+  private final InputStream in;
+
+  private final byte[] buffer;
+
+  // position in #buffer where the next read can occur
+  private int position;
+
+  // number of bytes in #buffer
+  private int capacity;
+
+  /**
+   * Constructs a new {@link ModifiedUtf8InputStreamReader} with a buffer size of 8192.
+   *
+   * @param in the input stream from which to read the bytes, not {@code null}
+   * @throws NullPointerException if in is {@code null}
+   */
+  public ModifiedUtf8InputStreamReader(InputStream in) {
+    this(in, 8192);
+  }
+
+  /**
+   * Constructs a new {@link ModifiedUtf8InputStreamReader}.
+   *
+   * @param in the input stream from which to read the bytes, not {@code null}
+   * @param bufferSize the size of the buffer in bytes, at least 4
+   * @throws NullPointerException if in is {@code null}
+   * @throws IllegalArgumentException if bufferSize is too small
+   */
+  public ModifiedUtf8InputStreamReader(InputStream in, int bufferSize) {
+    Objects.requireNonNull(in);
+    if (bufferSize < 4) {
+      throw new IllegalArgumentException("buffer size too small");
+    }
+    this.in = in;
+    this.buffer = new byte[bufferSize];
+    this.position = 0;
+    this.capacity = 0;
+    this.closed = false;
+  }
+
+  /**
+   * Makes sure the buffer contains at least one complete sequence unless the
+   * end of the stream has been reached.
+   *
+   * @return 1 if at least one byte is in the buffer, -1 otherwise
+   */
+  private int ensureNotEmpty() throws IOException {
+    if (this.capacity >= MAX_BYTE_LENGTH) {
+      return 1;
+    }
+    if ((this.capacity == 0) && (this.fill() == -1)) {
+      return -1;
+    }
+    int byteLength = getByteLength(this.buffer[this.position]);
+    while (byteLength > this.capacity) {
+      if (this.fill() == -1) {
+        // truncated sequence at the end of the stream
+        return 1;
+      }
+    }
+    return 1;
+  }
+
+  /**
+   * Moves the unread bytes to the start of the buffer and reads more bytes.
+   */
+  private int fill() throws IOException {
+    if (this.position > 0) {
+      System.arraycopy(this.buffer, this.position, this.buffer, 0, this.capacity);
+      this.position = 0;
+    }
+    int read = this.in.read(this.buffer, this.capacity, this.buffer.length - this.capacity);
+    if (read == -1) {
+      return -1;
+    }
+    this.capacity += read;
+    return read;
+  }
+
+  /**
+   * Returns the length of a sequence based on its first byte, 1 for a byte
+   * that can not start a sequence.
+   */
+  private static int getByteLength(byte b) {
+    int c1 = Byte.toUnsignedInt(b);
+    if ((c1 & 0b1110_0000) == 0b1100_0000) {
+      return 2;
+    } else if ((c1 & 0b1111_0000) == 0b1110_0000) {
+      return 3;
+    } else {
+      return 1;
+    }
+  }
+
+  /**
+   * Decodes the sequence at the current position.
+   *
+   * @param byteLength the length of the sequence, if larger than
+   *                   {@link #capacity} the input is truncated
+   */
+  private char decodeSequence(int byteLength) {
+    int c1 = Byte.toUnsignedInt(this.buffer[this.position]);
+    if (byteLength > this.capacity) {
+      // truncated at the end of the stream, consume the lead byte and its
+      // continuation bytes but not the bytes that follow them
+      int length = 1;
+      while ((length < this.capacity) && Utf8Utils.isContinuation(Byte.toUnsignedInt(this.buffer[this.position + length]))) {
+        length += 1;
+      }
+      this.position += length;
+      this.capacity -= length;
+      return REPLACEMENT;
+    }
+    switch (byteLength) {
+      case 2: {
+        int c2 = Byte.toUnsignedInt(this.buffer[this.position + 1]);
+        if (Utf8Utils.isValidTwoByteSequence(c1, c2) || Utf8Utils.isModifiedNul(c1, c2)) {
+          this.position += 2;
+          this.capacity -= 2;
+          return (char) (((c1 & 0b00011111) << 6) | (c2 & 0b00111111));
+        }
+        break;
+      }
+      case 3: {
+        int c2 = Byte.toUnsignedInt(this.buffer[this.position + 1]);
+        int c3 = Byte.toUnsignedInt(this.buffer[this.position + 2]);
+        // surrogates are valid three byte sequences
+        if (Utf8Utils.isValidThreeByteSequence(c1, c2, c3)) {
+          this.position += 3;
+          this.capacity -= 3;
+          return (char) (((c1 & 0b00001111) << 12) | ((c2 & 0b00111111) << 6) | (c3 & 0b00111111));
+        }
+        break;
+      }
+      default:
+        this.position += 1;
+        this.capacity -= 1;
+        // continuation and four byte lead bytes are malformed
+        return c1 < 0x80 ? (char) c1 : REPLACEMENT;
+    }
+    // malformed, only consume the lead byte
+    this.position += 1;
+    this.capacity -= 1;
+    return REPLACEMENT;
+  }
+
+  @Override
+  public int read() throws IOException {
+    this.closedCheck();
+    if (this.ensureNotEmpty() == -1) {
+      return -1;
+    }
+    return this.decodeSequence(getByteLength(this.buffer[this.position]));
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    this.closedCheck();
+    Objects.checkFromIndexSize(off, len, cbuf.length);
+    if (len == 0) {
+      return 0;
+    }
+    if (this.ensureNotEmpty() == -1) {
+      return -1;
+    }
+    int read = 0;
+    while ((read < len) && (this.capacity > 0)) {
+      if (((len - read) >= 8) && (this.capacity >= 8) && Utf8Utils.isAsciiRange(this.buffer, this.position)) {
+        // bulk copy 8 ASCII characters
+        Utf8Utils.copy8(this.buffer, this.position, cbuf, off + read);
+        this.position += 8;
+        this.capacity -= 8;
+        read += 8;
+      } else {
+        int byteLength = getByteLength(this.buffer[this.position]);
+        if ((byteLength > this.capacity) && (read > 0)) {
+          // not enough bytes in the buffer left to decode the next character
+          // we decoded at least 1 character, let the next call refill
+          break;
+        }
+        cbuf[off + read] = this.decodeSequence(byteLength);
+        read += 1;
+      }
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    this.closedCheck();
+    if (n < 0L) {
+      throw new IllegalArgumentException("skip value is negative");
+    }
+    long skipped = 0L;
+    while ((skipped < n) && (this.ensureNotEmpty() != -1)) {
+      if (((n - skipped) >= 8L) && (this.capacity >= 8) && Utf8Utils.isAsciiRange(this.buffer, this.position)) {
+        // bulk skip 8 ASCII characters
+        this.position += 8;
+        this.capacity -= 8;
+        skipped += 8L;
+      } else {
+        this.decodeSequence(getByteLength(this.buffer[this.position]));
+        skipped += 1L;
+      }
+    }
+    return skipped;
+  }
+
+  @Override
+  public boolean ready() throws IOException {
+    this.closedCheck();
+    return (this.capacity > 0) && (getByteLength(this.buffer[this.position]) <= this.capacity);
+  }
+
+  private void closedCheck() throws IOException {
+    if (this.closed) {
+      throw new IOException("closed reader");
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.in.close();
+    this.closed = true;
+  }
+
+}
@@ -0,0 +1,88 @@
+package com.github.marschall.readers;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Thrown by a {@link BufferedUtf8InputStreamReader} whose input exceeds one
+ * of the limits set with {@link BufferedUtf8InputStreamReader.Builder}.
+ *
+ * <p>The reader should not be used after this exception.
+ */
+public final class ReadLimitExceededException extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The kinds of limits.
+   */
+  public enum Limit {
+
+    /**
+     * The number of bytes read from the stream.
+     *
+     * @see BufferedUtf8InputStreamReader.Builder#maxBytes(long)
+     */
+    BYTES,
+
+    /**
+     * The number of chars produced.
+     *
+     * @see BufferedUtf8InputStreamReader.Builder#maxChars(long)
+     */
+    CHARS,
+
+    /**
+     * The number of bytes in a line.
+     *
+     * @see BufferedUtf8InputStreamReader.Builder#maxLineLength(long)
+     */
+    LINE_LENGTH;
+
+  }
+
+  /**
+   * The limit that was exceeded.
+   */
+  private final Limit limit;
+
+  /**
+   * The configured maximum of the limit.
+   */
+  private final long maxValue;
+
+  /**
+   * Constructs a new {@link ReadLimitExceededException}.
+   *
+   * @param limit the limit that was exceeded
+   * @param maxValue the configured maximum of the limit
+   */
+  public ReadLimitExceededException(Limit limit, long maxValue) {
+    this.limit = limit;
+    this.maxValue = maxValue;
+  }
+
+  /**
+   * Returns the limit that was exceeded.
+   *
+   * @return the limit that was exceeded
+   */
+  public Limit getLimit() {
+    return this.limit;
+  }
+
+  /**
+   * Returns the configured maximum of the limit.
+   *
+   * @return the maximum that was exceeded
+   */
+  public long getMaxValue() {
+    return this.maxValue;
+  }
+
+  @Override
+  public String getMessage() {
+    return this.limit.name().toLowerCase(Locale.ROOT).replace('_', ' ') + " limit of " + this.maxValue + " exceeded";
+  }
+
+}
@@ -0,0 +1,52 @@
+package com.github.marschall.readers;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event for a read from the underlying stream into the buffer of a
+ * {@link BufferedUtf8InputStreamReader}.
+ *
+ * <p>Only refills that take longer than the threshold are recorded, the
+ * threshold can be changed with the {@code threshold} setting of the event.
+ */
+@Name(RefillEvent.NAME)
+@Label("UTF-8 Reader Refill")
+@Description("Read from the underlying InputStream into the reader buffer")
+@Category({"Java Application", "Readers"})
+@Threshold("20 ms")
+@StackTrace(false)
+final class RefillEvent extends Event {
+
+  static final String NAME = "com.github.marschall.readers.Refill";
+
+  /**
+   * Used only to check whether the event is enabled, so that no event is
+   * allocated when JFR is off.
+   */
+  private static final RefillEvent PROTOTYPE = new RefillEvent();
+
+  @Label("Bytes Requested")
+  @DataAmount
+  int bytesRequested;
+
+  @Label("Bytes Read")
+  @Description("Number of bytes read, -1 at the end of the stream")
+  @DataAmount
+  int bytesRead;
+
+  @Label("Short Read")
+  @Description("Fewer bytes were read than requested")
+  boolean shortRead;
+
+  static boolean enabled() {
+    return PROTOTYPE.isEnabled();
+  }
+
+}
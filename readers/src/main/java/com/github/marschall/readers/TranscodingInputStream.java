@@ -0,0 +1,435 @@
+package com.github.marschall.readers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * An {@link InputStream} that converts bytes from one encoding into another
+ * without decoding into an intermediate {@code char[]}.
+ *
+ * <p>One side is always UTF-8, the other side is ISO-8859-1, US-ASCII,
+ * UTF-16LE or UTF-16BE. Runs of ASCII are found eight bytes at a time and
+ * copied with {@link System#arraycopy(Object, int, Object, int, int)} between
+ * single byte encodings.
+ *
+ * <p>The output is the same as decoding into a {@link String} and encoding
+ * the result with {@link String#getBytes(Charset)}. Malformed input is
+ * replaced with U+FFFD, characters that can not be encoded are replaced
+ * with {@code '?'}.
+ *
+ * <pre><code>
+ * InputStream latin1 = TranscodingInputStream.fromUtf8(in, StandardCharsets.ISO_8859_1);
+ * </code></pre>
+ *
+ * <p>Not thread-safe.
+ */
+public final class TranscodingInputStream extends InputStream {
+
+  private static final int UTF_8 = 0;
+
+  private static final int LATIN_1 = 1;
+
+  private static final int ASCII = 2;
+
+  private static final int UTF_16LE = 3;
+
+  private static final int UTF_16BE = 4;
+
+  private static final int MAX_ENCODED_LENGTH = 4;
+
+  private boolean closed;
+
+  private final InputStream in;
+
+  private final int source;
+
+  private final int target;
+
+  // number of bytes an ASCII character is encoded to in the target encoding
+  private final int asciiWidth;
+
+  private final byte[] buffer;
+
+  // position in #buffer where the next read can occur
+  private int position;
+
+  // number of bytes in #buffer
+  private int capacity;
+
+  private boolean endOfInput;
+
+  // the encoded character that did not fit into the caller's array
+  private final byte[] pending;
+
+  private int pendingPosition;
+
+  private int pendingLength;
+
+  private final byte[] single;
+
+  private TranscodingInputStream(InputStream in, int source, int target, int bufferSize) {
+    Objects.requireNonNull(in);
+    if (bufferSize < MAX_ENCODED_LENGTH) {
+      throw new IllegalArgumentException("buffer size too small");
+    }
+    this.in = in;
+    this.source = source;
+    this.target = target;
+    this.asciiWidth = ((target == UTF_16LE) || (target == UTF_16BE)) ? 2 : 1;
+    this.buffer = new byte[bufferSize];
+    this.position = 0;
+    this.capacity = 0;
+    this.endOfInput = false;
+    this.pending = new byte[MAX_ENCODED_LENGTH];
+    this.pendingPosition = 0;
+    this.pendingLength = 0;
+    this.single = new byte[1];
+    this.closed = false;
+  }
+
+  /**
+   * Creates a stream that converts UTF-8 into another encoding with a
+   * default buffer size of 8192.
+   *
+   * @param in the UTF-8 input, not {@code null}
+   * @param target the encoding of the returned bytes, one of ISO-8859-1,
+   *               US-ASCII, UTF-16LE or UTF-16BE
+   * @return the converting stream
+   * @throws NullPointerException if any argument is {@code null}
+   * @throws IllegalArgumentException if the target encoding is not supported
+   */
+  public static TranscodingInputStream fromUtf8(InputStream in, Charset target) {
+    return new TranscodingInputStream(in, UTF_8, encoding(target), 8192);
+  }
+
+  /**
+   * Creates a stream that converts another encoding into UTF-8 with a
+   * default buffer size of 8192.
+   *
+   * @param in the input, not {@code null}
+   * @param source the encoding of the input, one of ISO-8859-1, US-ASCII,
+   *               UTF-16LE or UTF-16BE
+   * @return the converting stream
+   * @throws NullPointerException if any argument is {@code null}
+   * @throws IllegalArgumentException if the source encoding is not supported
+   */
+  public static TranscodingInputStream toUtf8(InputStream in, Charset source) {
+    return new TranscodingInputStream(in, encoding(source), UTF_8, 8192);
+  }
+
+  static TranscodingInputStream fromUtf8(InputStream in, Charset target, int bufferSize) {
+    return new TranscodingInputStream(in, UTF_8, encoding(target), bufferSize);
+  }
+
+  static TranscodingInputStream toUtf8(InputStream in, Charset source, int bufferSize) {
+    return new TranscodingInputStream(in, encoding(source), UTF_8, bufferSize);
+  }
+
+  private static int encoding(Charset charset) {
+    if (charset.equals(StandardCharsets.ISO_8859_1)) {
+      return LATIN_1;
+    } else if (charset.equals(StandardCharsets.US_ASCII)) {
+      return ASCII;
+    } else if (charset.equals(StandardCharsets.UTF_16LE)) {
+      return UTF_16LE;
+    } else if (charset.equals(StandardCharsets.UTF_16BE)) {
+      return UTF_16BE;
+    }
+    throw new IllegalArgumentException("unsupported charset: " + charset.name());
+  }
+
+  @Override
+  public int read() throws IOException {
+    int read = this.read(this.single, 0, 1);
+    if (read == -1) {
+      return -1;
+    }
+    return Byte.toUnsignedInt(this.single[0]);
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    this.closedCheck();
+    Objects.checkFromIndexSize(off, len, b.length);
+    if (len == 0) {
+      return 0;
+    }
+    int end = off + len;
+    int dstPos = this.drainPending(b, off, end);
+    while (dstPos == off) {
+      if (this.endOfInput && (this.capacity == 0)) {
+        return -1;
+      }
+      dstPos = this.transcode(b, dstPos, end);
+      // the remaining input is empty or a cut off sequence
+      if ((dstPos == off) && !this.endOfInput && (this.fill() == -1)) {
+        this.endOfInput = true;
+      }
+    }
+    return dstPos - off;
+  }
+
+  private int fill() throws IOException {
+    if (this.position > 0) {
+      System.arraycopy(this.buffer, this.position, this.buffer, 0, this.capacity);
+      this.position = 0;
+    }
+    int read = this.in.read(this.buffer, this.capacity, this.buffer.length - this.capacity);
+    if (read == -1) {
+      return -1;
+    }
+    this.capacity += read;
+    return read;
+  }
+
+  private int transcode(byte[] dst, int dstPos, int dstEnd) {
+    switch (this.source) {
+      case UTF_8:
+        return this.transcodeUtf8(dst, dstPos, dstEnd);
+      case UTF_16LE:
+      case UTF_16BE:
+        return this.transcodeUtf16(dst, dstPos, dstEnd);
+      default:
+        return this.transcodeSingleByte(dst, dstPos, dstEnd);
+    }
+  }
+
+  private int transcodeUtf8(byte[] dst, int dstPos, int dstEnd) {
+    byte[] src = this.buffer;
+    int srcPos = this.position;
+    int srcEnd = srcPos + this.capacity;
+    while ((srcPos < srcEnd) && (dstPos < dstEnd)) {
+      int c1 = Byte.toUnsignedInt(src[srcPos]);
+      if (c1 < 0x80) {
+        int copied = this.copyAscii(src, srcPos, srcEnd, dst, dstPos, dstEnd);
+        if (copied > 0) {
+          srcPos += copied;
+          dstPos += copied * this.asciiWidth;
+        } else {
+          dstPos = this.put(c1, dst, dstPos, dstEnd);
+          srcPos += 1;
+        }
+        continue;
+      }
+      int byteLength = Utf8Utils.getByteLength(c1);
+      if ((byteLength >= 2) && (byteLength <= Utf8Utils.MAX_BYTE_LENGTH) && (byteLength <= (srcEnd - srcPos))) {
+        int codePoint = Utf8Utils.decodeMultiByteCharacter(c1, byteLength, src, srcPos + 1);
+        if (codePoint != Utf8Utils.MALFORMED) {
+          dstPos = this.put(codePoint, dst, dstPos, dstEnd);
+          srcPos += byteLength;
+          continue;
+        }
+      } else if (!this.endOfInput && Utf8Utils.isIncomplete(src, srcPos, srcEnd)) {
+        break;
+      }
+      // malformed input
+      dstPos = this.put(Utf8Utils.REPLACEMENT, dst, dstPos, dstEnd);
+      srcPos += Utf8Utils.maximalSubpart(src, srcPos, srcEnd);
+    }
+    this.consume(srcPos);
+    return dstPos;
+  }
+
+  private int transcodeSingleByte(byte[] dst, int dstPos, int dstEnd) {
+    byte[] src = this.buffer;
+    int srcPos = this.position;
+    int srcEnd = srcPos + this.capacity;
+    while ((srcPos < srcEnd) && (dstPos < dstEnd)) {
+      int c = Byte.toUnsignedInt(src[srcPos]);
+      int copied = 0;
+      if (c < 0x80) {
+        copied = this.copyAscii(src, srcPos, srcEnd, dst, dstPos, dstEnd);
+      }
+      if (copied > 0) {
+        srcPos += copied;
+        dstPos += copied * this.asciiWidth;
+      } else {
+        int codePoint = ((c < 0x80) || (this.source == LATIN_1)) ? c : Utf8Utils.REPLACEMENT;
+        dstPos = this.put(codePoint, dst, dstPos, dstEnd);
+        srcPos += 1;
+      }
+    }
+    this.consume(srcPos);
+    return dstPos;
+  }
+
+  private int transcodeUtf16(byte[] dst, int dstPos, int dstEnd) {
+    byte[] src = this.buffer;
+    int srcPos = this.position;
+    int srcEnd = srcPos + this.capacity;
+    while (dstPos < dstEnd) {
+      int remaining = srcEnd - srcPos;
+      if (remaining < 2) {
+        if ((remaining > 0) && this.endOfInput) {
+          // cut off char
+          dstPos = this.put(Utf8Utils.REPLACEMENT, dst, dstPos, dstEnd);
+          srcPos = srcEnd;
+        }
+        break;
+      }
+      char c = this.getChar(src, srcPos);
+      if (!Character.isSurrogate(c)) {
+        dstPos = this.put(c, dst, dstPos, dstEnd);
+        srcPos += 2;
+      } else if (Character.isHighSurrogate(c)) {
+        if (remaining < 4) {
+          if (this.endOfInput) {
+            // cut off surrogate pair
+            dstPos = this.put(Utf8Utils.REPLACEMENT, dst, dstPos, dstEnd);
+            srcPos = srcEnd;
+          }
+          break;
+        }
+        char low = this.getChar(src, srcPos + 2);
+        if (Character.isLowSurrogate(low)) {
+          dstPos = this.put(Character.toCodePoint(c, low), dst, dstPos, dstEnd);
+        } else {
+          // like the JDK the following char is replaced as well
+          dstPos = this.put(Utf8Utils.REPLACEMENT, dst, dstPos, dstEnd);
+        }
+        srcPos += 4;
+      } else {
+        // unpaired low surrogate
+        dstPos = this.put(Utf8Utils.REPLACEMENT, dst, dstPos, dstEnd);
+        srcPos += 2;
+      }
+    }
+    this.consume(srcPos);
+    return dstPos;
+  }
+
+  private char getChar(byte[] src, int srcPos) {
+    int b1 = Byte.toUnsignedInt(src[srcPos]);
+    int b2 = Byte.toUnsignedInt(src[srcPos + 1]);
+    if (this.source == UTF_16LE) {
+      return (char) ((b2 << 8) | b1);
+    } else {
+      return (char) ((b1 << 8) | b2);
+    }
+  }
+
+  /**
+   * Copies a run of ASCII characters from single byte input.
+   *
+   * @return the number of characters copied, 0 if there is not enough room
+   *         in {@code dst}
+   */
+  private int copyAscii(byte[] src, int srcPos, int srcEnd, byte[] dst, int dstPos, int dstEnd) {
+    int length = Math.min(srcEnd - srcPos, (dstEnd - dstPos) / this.asciiWidth);
+    int ascii = Utf8Utils.indexOfNonAscii(src, srcPos, srcPos + length) - srcPos;
+    if (this.asciiWidth == 1) {
+      System.arraycopy(src, srcPos, dst, dstPos, ascii);
+    } else {
+      int high = this.target == UTF_16LE ? 1 : 0;
+      for (int i = 0; i < ascii; i++) {
+        dst[dstPos + (i * 2) + high] = 0;
+        dst[dstPos + (i * 2) + (1 - high)] = src[srcPos + i];
+      }
+    }
+    return ascii;
+  }
+
+  /**
+   * Writes an encoded code point to {@code dst}, the bytes that do not fit
+   * are kept for the next read.
+   *
+   * @return the new position in {@code dst}
+   */
+  private int put(int codePoint, byte[] dst, int dstPos, int dstEnd) {
+    if ((dstEnd - dstPos) >= MAX_ENCODED_LENGTH) {
+      return dstPos + this.encode(codePoint, dst, dstPos);
+    }
+    this.pendingPosition = 0;
+    this.pendingLength = this.encode(codePoint, this.pending, 0);
+    return this.drainPending(dst, dstPos, dstEnd);
+  }
+
+  private int drainPending(byte[] dst, int dstPos, int dstEnd) {
+    int length = Math.min(this.pendingLength - this.pendingPosition, dstEnd - dstPos);
+    System.arraycopy(this.pending, this.pendingPosition, dst, dstPos, length);
+    this.pendingPosition += length;
+    return dstPos + length;
+  }
+
+  /**
+   * Encodes a code point into the target encoding.
+   *
+   * @return the number of bytes written
+   */
+  private int encode(int codePoint, byte[] dst, int dstPos) {
+    switch (this.target) {
+      case LATIN_1:
+        dst[dstPos] = (byte) ((codePoint <= 0xFF) ? codePoint : '?');
+        return 1;
+      case ASCII:
+        dst[dstPos] = (byte) ((codePoint < 0x80) ? codePoint : '?');
+        return 1;
+      case UTF_16LE:
+      case UTF_16BE:
+        if (Character.isBmpCodePoint(codePoint)) {
+          this.putChar((char) codePoint, dst, dstPos);
+          return 2;
+        }
+        this.putChar(Character.highSurrogate(codePoint), dst, dstPos);
+        this.putChar(Character.lowSurrogate(codePoint), dst, dstPos + 2);
+        return 4;
+      default:
+        return encodeUtf8(codePoint, dst, dstPos);
+    }
+  }
+
+  private void putChar(char c, byte[] dst, int dstPos) {
+    if (this.target == UTF_16LE) {
+      dst[dstPos] = (byte) c;
+      dst[dstPos + 1] = (byte) (c >>> 8);
+    } else {
+      dst[dstPos] = (byte) (c >>> 8);
+      dst[dstPos + 1] = (byte) c;
+    }
+  }
+
+  private static int encodeUtf8(int codePoint, byte[] dst, int dstPos) {
+    if (codePoint < 0x80) {
+      dst[dstPos] = (byte) codePoint;
+      return 1;
+    } else if (codePoint < 0x800) {
+      dst[dstPos] = (byte) (0b1100_0000 | (codePoint >>> 6));
+      dst[dstPos + 1] = (byte) (0b1000_0000 | (codePoint & 0b0011_1111));
+      return 2;
+    } else if (codePoint < 0x10000) {
+      dst[dstPos] = (byte) (0b1110_0000 | (codePoint >>> 12));
+      dst[dstPos + 1] = (byte) (0b1000_0000 | ((codePoint >>> 6) & 0b0011_1111));
+      dst[dstPos + 2] = (byte) (0b1000_0000 | (codePoint & 0b0011_1111));
+      return 3;
+    } else {
+      dst[dstPos] = (byte) (0b1111_0000 | (codePoint >>> 18));
+      dst[dstPos + 1] = (byte) (0b1000_0000 | ((codePoint >>> 12) & 0b0011_1111));
+      dst[dstPos + 2] = (byte) (0b1000_0000 | ((codePoint >>> 6) & 0b0011_1111));
+      dst[dstPos + 3] = (byte) (0b1000_0000 | (codePoint & 0b0011_1111));
+      return 4;
+    }
+  }
+
+  private void consume(int newPosition) {
+    this.capacity -= newPosition - this.position;
+    this.position = newPosition;
+  }
+
+  private void closedCheck() throws IOException {
+    if (this.closed) {
+      throw new IOException("closed stream");
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!this.closed) {
+      this.closed = true;
+      this.in.close();
+    }
+  }
+
+}
@@ -0,0 +1,277 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A {@link CharSequence} view of UTF-8 bytes that decodes lazily, for
+ * example for {@link java.util.regex.Pattern#matcher(CharSequence)}.
+ *
+ * <p>When the bytes are all ASCII, which is checked eight bytes at a time on
+ * construction, {@link #charAt(int)} indexes the bytes directly. Otherwise a
+ * sparse index of the char offset of every block of about 512 bytes is built
+ * on the first access and {@link #charAt(int)} decodes one block at a time
+ * into a cached window. Sequential access and access close to the last access
+ * therefore decode every block only once.
+ *
+ * <p>{@link #subSequence(int, int)} returns a view that shares the bytes,
+ * index and window. The bytes must not be modified while the sequence is in
+ * use. Malformed input is replaced with U+FFFD.
+ *
+ * <p>Not thread-safe, this includes views created by
+ * {@link #subSequence(int, int)}.
+ */
+public final class Utf8CharSequence implements CharSequence {
+
+  private final Text text;
+
+  // char offset of this view in #text
+  private final int start;
+
+  // -1 until known for a view over the whole text
+  private int length;
+
+  /**
+   * Constructs a new {@link Utf8CharSequence} over a whole array.
+   *
+   * @param bytes the UTF-8 bytes, not {@code null}
+   */
+  public Utf8CharSequence(byte[] bytes) {
+    this(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Constructs a new {@link Utf8CharSequence} over a range of an array.
+   *
+   * @param bytes the UTF-8 bytes, not {@code null}
+   * @param off the offset of the first byte
+   * @param len the number of bytes
+   * @throws IndexOutOfBoundsException if off and len are out of bounds
+   */
+  public Utf8CharSequence(byte[] bytes, int off, int len) {
+    Objects.checkFromIndexSize(off, len, bytes.length);
+    this.text = new Text(bytes, off, len);
+    this.start = 0;
+    this.length = this.text.ascii ? len : -1;
+  }
+
+  /**
+   * Constructs a new {@link Utf8CharSequence} over the remaining bytes of a
+   * buffer.
+   *
+   * <p>The position of the buffer is not changed. A buffer that is not
+   * backed by an accessible array is copied.
+   *
+   * @param buffer the UTF-8 bytes, not {@code null}
+   */
+  public Utf8CharSequence(ByteBuffer buffer) {
+    this(arrayOf(buffer), offsetOf(buffer), buffer.remaining());
+  }
+
+  private Utf8CharSequence(Text text, int start, int length) {
+    this.text = text;
+    this.start = start;
+    this.length = length;
+  }
+
+  private static byte[] arrayOf(ByteBuffer buffer) {
+    if (buffer.hasArray()) {
+      return buffer.array();
+    }
+    byte[] copy = new byte[buffer.remaining()];
+    buffer.duplicate().get(copy);
+    return copy;
+  }
+
+  private static int offsetOf(ByteBuffer buffer) {
+    if (buffer.hasArray()) {
+      return buffer.arrayOffset() + buffer.position();
+    }
+    return 0;
+  }
+
+  /**
+   * Returns whether the bytes are all ASCII and chars are accessed without
+   * decoding.
+   *
+   * @return whether the bytes are all ASCII
+   */
+  public boolean isAscii() {
+    return this.text.ascii;
+  }
+
+  @Override
+  public int length() {
+    if (this.length == -1) {
+      this.length = this.text.charLength();
+    }
+    return this.length;
+  }
+
+  @Override
+  public char charAt(int index) {
+    Objects.checkIndex(index, this.length());
+    return this.text.charAt(this.start + index);
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    Objects.checkFromToIndex(start, end, this.length());
+    return new Utf8CharSequence(this.text, this.start + start, end - start);
+  }
+
+  @Override
+  public String toString() {
+    int length = this.length();
+    if (this.text.ascii) {
+      return new String(this.text.bytes, this.text.offset + this.start, length, ISO_8859_1);
+    }
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = this.text.charAt(this.start + i);
+    }
+    return new String(chars);
+  }
+
+  /**
+   * The bytes shared by a sequence and its views together with the index and
+   * the window.
+   */
+  static final class Text {
+
+    static final int BLOCK_SIZE = 512;
+
+    final byte[] bytes;
+
+    final int offset;
+
+    final int byteLength;
+
+    final boolean ascii;
+
+    // sparse index, built lazily for non-ASCII text
+
+    // offset in #bytes of the first byte of every block
+    private int[] blockBytes;
+
+    // char offset of the first char of every block, strictly increasing
+    private int[] blockChars;
+
+    private int blockCount;
+
+    private int charLength;
+
+    // decoded chars of the last accessed block
+    private final char[] window;
+
+    // char offset of the first char in #window
+    private int windowStart;
+
+    // char offset after the last char in #window, 0 if the window is empty
+    private int windowEnd;
+
+    Text(byte[] bytes, int offset, int byteLength) {
+      this.bytes = bytes;
+      this.offset = offset;
+      this.byteLength = byteLength;
+      this.ascii = Utf8Utils.isAscii(bytes, offset, offset + byteLength);
+      this.charLength = this.ascii ? byteLength : -1;
+      // a block can be extended by the continuation bytes of its last sequence
+      this.window = this.ascii ? null : new char[BLOCK_SIZE + Utf8Utils.MAX_BYTE_LENGTH - 1];
+      this.windowStart = 0;
+      this.windowEnd = 0;
+    }
+
+    int charLength() {
+      if (this.charLength == -1) {
+        this.buildIndex();
+      }
+      return this.charLength;
+    }
+
+    char charAt(int index) {
+      if (this.ascii) {
+        return (char) this.bytes[this.offset + index];
+      }
+      if ((index < this.windowStart) || (index >= this.windowEnd)) {
+        this.moveWindow(index);
+      }
+      return this.window[index - this.windowStart];
+    }
+
+    private void moveWindow(int index) {
+      if (this.charLength == -1) {
+        this.buildIndex();
+      }
+      int block = this.findBlock(index);
+      this.decode(this.blockBytes[block], this.blockBytes[block + 1]);
+      this.windowStart = this.blockChars[block];
+      this.windowEnd = this.blockChars[block + 1];
+    }
+
+    private int findBlock(int index) {
+      int block = Arrays.binarySearch(this.blockChars, 0, this.blockCount, index);
+      if (block < 0) {
+        // insertion point - 1 is the block containing the index
+        block = -block - 2;
+      }
+      return block;
+    }
+
+    /**
+     * Decodes a block into the window.
+     *
+     * @return the number of chars decoded
+     */
+    private int decode(int from, int to) {
+      long result = Utf8Codec.decode(this.bytes, from, to - from, this.window, 0, this.window.length, true);
+      return Utf8Codec.produced(result);
+    }
+
+    /**
+     * Splits the bytes into blocks that start at sequence boundaries and
+     * records the char offset of every block.
+     */
+    private void buildIndex() {
+      int end = this.offset + this.byteLength;
+      int capacity = (this.byteLength / BLOCK_SIZE) + 2;
+      int[] bytes = new int[capacity];
+      int[] chars = new int[capacity];
+      boolean valid = Utf8Utils.isValid(this.bytes, this.offset, end);
+      int count = 0;
+      int blockStart = this.offset;
+      int charOffset = 0;
+      while (blockStart < end) {
+        int blockEnd = (int) Math.min((long) blockStart + BLOCK_SIZE, end);
+        int limit = Math.min(blockEnd + Utf8Utils.MAX_BYTE_LENGTH - 1, end);
+        // blocks of malformed input may end at a continuation byte
+        while ((blockEnd < limit) && ((this.bytes[blockEnd] & 0xC0) == 0x80)) {
+          blockEnd += 1;
+        }
+        bytes[count] = blockStart;
+        chars[count] = charOffset;
+        count += 1;
+        if (valid && (blockEnd < end)) {
+          // exact for complete valid sequences
+          charOffset += Utf8Utils.countChars(this.bytes, blockStart, blockEnd);
+        } else {
+          // malformed input or a sequence cut off at the end
+          charOffset += this.decode(blockStart, blockEnd);
+        }
+        blockStart = blockEnd;
+      }
+      // sentinel
+      bytes[count] = end;
+      chars[count] = charOffset;
+      this.blockBytes = bytes;
+      this.blockChars = chars;
+      this.blockCount = count;
+      this.charLength = charOffset;
+    }
+
+  }
+
+}
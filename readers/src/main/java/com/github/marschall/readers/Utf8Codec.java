@@ -0,0 +1,243 @@
+package com.github.marschall.readers;
+
+import java.util.Objects;
+
+/**
+ * Decodes and encodes UTF-8 between arrays without streams, state objects or
+ * allocation.
+ *
+ * <p>Both methods return the number of units consumed from the source and
+ * produced into the destination packed into a single {@code long}, use
+ * {@link #consumed(long)} and {@link #produced(long)} to extract them.
+ * Conversion stops early if the destination is full, a sequence or
+ * surrogate pair is never split.
+ *
+ * <pre><code>
+ * long result = Utf8Codec.decode(bytes, 0, bytes.length, chars, 0);
+ * int charCount = Utf8Codec.produced(result);
+ * </code></pre>
+ *
+ * <p>Decoding performs the same validation as
+ * {@link BufferedUtf8InputStreamReader}, malformed input is always replaced
+ * with one U+FFFD per maximal subpart like
+ * {@link String#String(byte[], java.nio.charset.Charset)} does. ASCII is
+ * decoded and encoded eight units at a time.
+ */
+public final class Utf8Codec {
+
+  private Utf8Codec() {
+    throw new AssertionError("not instantiable");
+  }
+
+  /**
+   * Decodes complete UTF-8 input into chars.
+   *
+   * <p>A sequence that is cut off at the end of the input is replaced.
+   *
+   * @param src the UTF-8 bytes
+   * @param off the offset of the first byte to decode
+   * @param len the number of bytes to decode
+   * @param dst the destination
+   * @param dstOff the offset in {@code dst} of the first char to write,
+   *               decoding stops at the end of {@code dst}
+   * @return the number of bytes consumed and chars produced
+   * @throws IndexOutOfBoundsException if {@code off} and {@code len} are out of
+   *                                   bounds of {@code src} or {@code dstOff}
+   *                                   is out of bounds of {@code dst}
+   * @see #consumed(long)
+   * @see #produced(long)
+   */
+  public static long decode(byte[] src, int off, int len, char[] dst, int dstOff) {
+    Objects.checkFromIndexSize(off, len, src.length);
+    Objects.checkFromToIndex(dstOff, dst.length, dst.length);
+    return decode(src, off, len, dst, dstOff, dst.length - dstOff, true);
+  }
+
+  /**
+   * Decodes UTF-8 into chars.
+   *
+   * @param endOfInput whether the input is complete, if {@code false} a
+   *                   sequence that is cut off at the end of the input is not
+   *                   consumed, otherwise it is replaced
+   */
+  static long decode(byte[] src, int off, int len, char[] dst, int dstOff, int dstLen, boolean endOfInput) {
+    return decode(src, off, len, dst, dstOff, dstLen, endOfInput, MalformedInputPolicy.REPLACE);
+  }
+
+  /**
+   * Decodes UTF-8 into chars.
+   *
+   * @param policy what to do with malformed input, with
+   *               {@link MalformedInputPolicy#REPORT} decoding stops before
+   *               the malformed input
+   */
+  static long decode(byte[] src, int off, int len, char[] dst, int dstOff, int dstLen, boolean endOfInput, MalformedInputPolicy policy) {
+    int srcPos = off;
+    int end = off + len;
+    int dstPos = dstOff;
+    int dstEnd = dstOff + dstLen;
+    while ((srcPos < end) && (dstPos < dstEnd)) {
+      if (((end - srcPos) >= 8) && ((dstEnd - dstPos) >= 8) && Utf8Utils.isAsciiRange(src, srcPos)) {
+        // bulk copy 8 ASCII characters
+        Utf8Utils.copy8(src, srcPos, dst, dstPos);
+        srcPos += 8;
+        dstPos += 8;
+        continue;
+      }
+      int c1 = Byte.toUnsignedInt(src[srcPos]);
+      if (c1 < 0x80) {
+        dst[dstPos++] = (char) c1;
+        srcPos += 1;
+        continue;
+      }
+      int byteLength = Utf8Utils.getByteLength(c1);
+      if ((byteLength >= 2) && (byteLength <= Utf8Utils.MAX_BYTE_LENGTH) && (byteLength <= (end - srcPos))) {
+        int codePoint = Utf8Utils.decodeMultiByteCharacter(c1, byteLength, src, srcPos + 1);
+        if (codePoint != Utf8Utils.MALFORMED) {
+          if (Character.isBmpCodePoint(codePoint)) {
+            dst[dstPos++] = (char) codePoint;
+          } else {
+            if ((dstEnd - dstPos) < 2) {
+              // don't split the surrogate pair
+              break;
+            }
+            dst[dstPos++] = Character.highSurrogate(codePoint);
+            dst[dstPos++] = Character.lowSurrogate(codePoint);
+          }
+          srcPos += byteLength;
+          continue;
+        }
+      } else if (!endOfInput && Utf8Utils.isIncomplete(src, srcPos, end)) {
+        // incomplete input
+        break;
+      }
+      // malformed input
+      if (policy == MalformedInputPolicy.REPORT) {
+        break;
+      }
+      if (policy == MalformedInputPolicy.REPLACE) {
+        dst[dstPos++] = (char) Utf8Utils.REPLACEMENT;
+      }
+      srcPos += Utf8Utils.maximalSubpart(src, srcPos, end);
+    }
+    return result(srcPos - off, dstPos - dstOff);
+  }
+
+  /**
+   * Encodes chars into UTF-8.
+   *
+   * <p>Unpaired surrogates are encoded as {@code '?'} like
+   * {@link String#getBytes(java.nio.charset.Charset)} does, a high surrogate
+   * at the end of the input is considered unpaired.
+   *
+   * @param src the chars to encode
+   * @param off the offset of the first char to encode
+   * @param len the number of chars to encode
+   * @param dst the destination, needs room for up to three bytes per char
+   *            to encode everything
+   * @param dstOff the offset in {@code dst} of the first byte to write,
+   *               encoding stops at the end of {@code dst}
+   * @return the number of chars consumed and bytes produced
+   * @throws IndexOutOfBoundsException if {@code off} and {@code len} are out of
+   *                                   bounds of {@code src} or {@code dstOff}
+   *                                   is out of bounds of {@code dst}
+   * @see #consumed(long)
+   * @see #produced(long)
+   */
+  public static long encode(char[] src, int off, int len, byte[] dst, int dstOff) {
+    Objects.checkFromIndexSize(off, len, src.length);
+    Objects.checkFromToIndex(dstOff, dst.length, dst.length);
+    int srcPos = off;
+    int end = off + len;
+    int dstPos = dstOff;
+    int dstEnd = dst.length;
+    while (srcPos < end) {
+      if (((end - srcPos) >= 8) && ((dstEnd - dstPos) >= 8) && isAsciiRange(src, srcPos)) {
+        // bulk copy 8 ASCII characters
+        for (int i = 0; i < 8; i++) {
+          dst[dstPos + i] = (byte) src[srcPos + i];
+        }
+        srcPos += 8;
+        dstPos += 8;
+        continue;
+      }
+      char c = src[srcPos];
+      int remaining = dstEnd - dstPos;
+      if (c < 0x80) {
+        if (remaining < 1) {
+          break;
+        }
+        dst[dstPos++] = (byte) c;
+        srcPos += 1;
+      } else if (c < 0x800) {
+        if (remaining < 2) {
+          break;
+        }
+        dst[dstPos++] = (byte) (0b1100_0000 | (c >>> 6));
+        dst[dstPos++] = (byte) (0b1000_0000 | (c & 0b0011_1111));
+        srcPos += 1;
+      } else if (Character.isHighSurrogate(c) && ((srcPos + 1) < end) && Character.isLowSurrogate(src[srcPos + 1])) {
+        if (remaining < 4) {
+          break;
+        }
+        int codePoint = Character.toCodePoint(c, src[srcPos + 1]);
+        dst[dstPos++] = (byte) (0b1111_0000 | (codePoint >>> 18));
+        dst[dstPos++] = (byte) (0b1000_0000 | ((codePoint >>> 12) & 0b0011_1111));
+        dst[dstPos++] = (byte) (0b1000_0000 | ((codePoint >>> 6) & 0b0011_1111));
+        dst[dstPos++] = (byte) (0b1000_0000 | (codePoint & 0b0011_1111));
+        srcPos += 2;
+      } else if (Character.isSurrogate(c)) {
+        // unpaired surrogate
+        if (remaining < 1) {
+          break;
+        }
+        dst[dstPos++] = '?';
+        srcPos += 1;
+      } else {
+        if (remaining < 3) {
+          break;
+        }
+        dst[dstPos++] = (byte) (0b1110_0000 | (c >>> 12));
+        dst[dstPos++] = (byte) (0b1000_0000 | ((c >>> 6) & 0b0011_1111));
+        dst[dstPos++] = (byte) (0b1000_0000 | (c & 0b0011_1111));
+        srcPos += 1;
+      }
+    }
+    return result(srcPos - off, dstPos - dstOff);
+  }
+
+  private static boolean isAsciiRange(char[] src, int srcPos) {
+    int merged = src[srcPos] | src[srcPos + 1] | src[srcPos + 2] | src[srcPos + 3]
+        | src[srcPos + 4] | src[srcPos + 5] | src[srcPos + 6] | src[srcPos + 7];
+    return merged < 0x80;
+  }
+
+  private static long result(int consumed, int produced) {
+    return ((long) consumed << 32) | Integer.toUnsignedLong(produced);
+  }
+
+  /**
+   * Returns the number of source units consumed.
+   *
+   * @param result the result of {@link #decode(byte[], int, int, char[], int)}
+   *               or {@link #encode(char[], int, int, byte[], int)}
+   * @return the number of bytes consumed by decoding or the number of chars
+   *         consumed by encoding
+   */
+  public static int consumed(long result) {
+    return (int) (result >>> 32);
+  }
+
+  /**
+   * Returns the number of destination units produced.
+   *
+   * @param result the result of {@link #decode(byte[], int, int, char[], int)}
+   *               or {@link #encode(char[], int, int, byte[], int)}
+   * @return the number of chars produced by decoding or the number of bytes
+   *         produced by encoding
+   */
+  public static int produced(long result) {
+    return (int) result;
+  }
+
+}
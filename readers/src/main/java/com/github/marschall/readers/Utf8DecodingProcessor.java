@@ -0,0 +1,357 @@
+package com.github.marschall.readers;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A {@link Flow.Processor} that decodes UTF-8 {@link ByteBuffer}s into
+ * {@link CharBuffer}s.
+ *
+ * <p>The processor supports a single subscriber. It requests one
+ * {@link ByteBuffer} from upstream at a time and only when the subscriber has
+ * outstanding demand, a {@link ByteBuffer} is read to its end before the next
+ * one is requested. Every {@link CharBuffer} passed to
+ * {@link Flow.Subscriber#onNext(Object)} counts as one unit of demand and
+ * contains at most the chunk size chars. Decoding happens on the thread that
+ * signals demand or delivers input, no threads are started.
+ *
+ * <p>Sequences split across {@link ByteBuffer}s are carried over to the next
+ * one, surrogate pairs are never split across {@link CharBuffer}s. Malformed
+ * input, including a sequence cut off at the end of the input, is replaced
+ * with U+FFFD. An error from upstream is passed on immediately, chars that
+ * have not yet been emitted are dropped.
+ *
+ * <p>The subscriber owns a {@link CharBuffer} it receives and can hand it
+ * back with {@link #release(CharBuffer)} once it is done with it, the
+ * processor then reuses it instead of allocating a new one.
+ */
+public final class Utf8DecodingProcessor implements Flow.Processor<ByteBuffer, CharBuffer> {
+
+  private static final int DEFAULT_CHUNK_SIZE = 8192;
+
+  private static final int POOL_SIZE = 4;
+
+  private final int chunkSize;
+
+  private final ArrayBlockingQueue<CharBuffer> pool;
+
+  // arrays of the buffers handed out and not yet released, weak so that
+  // buffers that are never released can be collected
+  private final Set<char[]> issued;
+
+  private final ConcurrentLinkedQueue<ByteBuffer> inbox;
+
+  private final AtomicLong demand;
+
+  // work in progress, serializes #drainLoop()
+  private final AtomicInteger wip;
+
+  private final AtomicReference<Flow.Subscriber<? super CharBuffer>> subscriber;
+
+  private volatile Flow.Subscription upstream;
+
+  private volatile boolean upstreamDone;
+
+  private volatile Throwable error;
+
+  private volatile boolean cancelled;
+
+  // drain state, only accessed in #drainLoop()
+
+  // bytes copied from upstream that have not been decoded yet
+  private final byte[] staging;
+
+  private int stagingLength;
+
+  private ByteBuffer current;
+
+  private boolean awaitingUpstream;
+
+  private boolean done;
+
+  /**
+   * Constructs a new {@link Utf8DecodingProcessor} with a chunk size of 8192.
+   */
+  public Utf8DecodingProcessor() {
+    this(DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Constructs a new {@link Utf8DecodingProcessor}.
+   *
+   * @param chunkSize the maximum number of chars per {@link CharBuffer}, at least 4
+   * @throws IllegalArgumentException if chunkSize is too small
+   */
+  public Utf8DecodingProcessor(int chunkSize) {
+    if (chunkSize < 4) {
+      throw new IllegalArgumentException("chunk size too small");
+    }
+    this.chunkSize = chunkSize;
+    this.pool = new ArrayBlockingQueue<>(POOL_SIZE);
+    this.issued = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    this.inbox = new ConcurrentLinkedQueue<>();
+    this.demand = new AtomicLong();
+    this.wip = new AtomicInteger();
+    this.subscriber = new AtomicReference<>();
+    this.staging = new byte[chunkSize];
+    this.stagingLength = 0;
+    this.awaitingUpstream = false;
+    this.done = false;
+  }
+
+  /**
+   * Hands a {@link CharBuffer} received through
+   * {@link Flow.Subscriber#onNext(Object)} back for reuse.
+   *
+   * <p>The buffer must not be used afterwards. Buffers that do not come from
+   * this processor, for example {@link CharBuffer#wrap(char[])} of an array
+   * of the caller, and buffers that have already been released are ignored.
+   *
+   * @param buffer the buffer to reuse, not {@code null}
+   */
+  public void release(CharBuffer buffer) {
+    // arrays have identity semantics
+    if (buffer.hasArray() && (buffer.arrayOffset() == 0) && (buffer.capacity() == this.chunkSize)
+        && this.issued.remove(buffer.array())) {
+      buffer.clear();
+      this.pool.offer(buffer);
+    }
+  }
+
+  private CharBuffer acquire() {
+    CharBuffer buffer = this.pool.poll();
+    if (buffer == null) {
+      buffer = CharBuffer.allocate(this.chunkSize);
+    }
+    this.issued.add(buffer.array());
+    return buffer;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super CharBuffer> subscriber) {
+    Objects.requireNonNull(subscriber);
+    if (!this.subscriber.compareAndSet(null, subscriber)) {
+      subscriber.onSubscribe(new CancelledSubscription());
+      subscriber.onError(new IllegalStateException("only one subscriber supported"));
+      return;
+    }
+    subscriber.onSubscribe(new DownstreamSubscription());
+    this.drain();
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    Objects.requireNonNull(subscription);
+    if (this.upstream != null) {
+      subscription.cancel();
+      return;
+    }
+    this.upstream = subscription;
+    if (this.cancelled) {
+      subscription.cancel();
+      return;
+    }
+    this.drain();
+  }
+
+  @Override
+  public void onNext(ByteBuffer item) {
+    this.inbox.offer(Objects.requireNonNull(item));
+    this.drain();
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    this.error = Objects.requireNonNull(throwable);
+    this.drain();
+  }
+
+  @Override
+  public void onComplete() {
+    this.upstreamDone = true;
+    this.drain();
+  }
+
+  private void drain() {
+    if (this.wip.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      this.drainLoop();
+      missed = this.wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private void drainLoop() {
+    Flow.Subscriber<? super CharBuffer> downstream = this.subscriber.get();
+    if ((downstream == null) || this.done) {
+      return;
+    }
+    if (this.cancelled) {
+      this.done = true;
+      this.inbox.clear();
+      this.current = null;
+      return;
+    }
+    Throwable throwable = this.error;
+    if (throwable != null) {
+      this.done = true;
+      this.inbox.clear();
+      this.current = null;
+      downstream.onError(throwable);
+      return;
+    }
+    while (this.demand.get() > 0L) {
+      if ((this.current == null) || !this.current.hasRemaining()) {
+        this.current = this.inbox.poll();
+        if (this.current != null) {
+          this.awaitingUpstream = false;
+        }
+      }
+      CharBuffer chars = this.decode(false);
+      if (chars != null) {
+        this.emit(downstream, chars);
+        continue;
+      }
+      // the current input has been consumed, at most a cut off sequence is left
+      // read before checking the inbox, onComplete happens after the last onNext
+      boolean upstreamDone = this.upstreamDone;
+      if (!this.inbox.isEmpty()) {
+        continue;
+      }
+      if (upstreamDone) {
+        // replace a sequence cut off at the end of the input
+        this.emit(downstream, this.decode(true));
+        this.done = true;
+        downstream.onComplete();
+        return;
+      }
+      Flow.Subscription subscription = this.upstream;
+      if (!this.awaitingUpstream && (subscription != null)) {
+        this.awaitingUpstream = true;
+        subscription.request(1L);
+      }
+      return;
+    }
+    // completion needs no demand if there is nothing left to emit
+    boolean upstreamDone = this.upstreamDone;
+    if (upstreamDone && (this.stagingLength == 0) && this.inbox.isEmpty()
+            && ((this.current == null) || !this.current.hasRemaining())) {
+      this.done = true;
+      downstream.onComplete();
+    }
+  }
+
+  /**
+   * Decodes from {@link #current} into a single buffer until either the
+   * buffer is full or {@link #current} has been consumed.
+   *
+   * @return the decoded chars, {@code null} if no chars were decoded
+   */
+  private CharBuffer decode(boolean endOfInput) {
+    if ((this.stagingLength == 0) && ((this.current == null) || !this.current.hasRemaining())) {
+      return null;
+    }
+    CharBuffer output = this.acquire();
+    char[] dst = output.array();
+    int dstOff = output.arrayOffset();
+    int capacity = output.capacity();
+    int produced = 0;
+    byte[] src = this.staging;
+    while (produced < capacity) {
+      ByteBuffer input = this.current;
+      if (input != null) {
+        int length = Math.min(input.remaining(), src.length - this.stagingLength);
+        input.get(src, this.stagingLength, length);
+        this.stagingLength += length;
+      }
+      if (this.stagingLength == 0) {
+        break;
+      }
+      long result = Utf8Codec.decode(src, 0, this.stagingLength, dst, dstOff + produced, capacity - produced, endOfInput);
+      int consumed = Utf8Codec.consumed(result);
+      produced += Utf8Codec.produced(result);
+      if (consumed == 0) {
+        // cut off sequence that needs more input or no room for a surrogate pair
+        break;
+      }
+      this.stagingLength -= consumed;
+      System.arraycopy(src, consumed, src, 0, this.stagingLength);
+    }
+    if (produced == 0) {
+      this.release(output);
+      return null;
+    }
+    output.limit(produced);
+    return output;
+  }
+
+  private void emit(Flow.Subscriber<? super CharBuffer> downstream, CharBuffer chars) {
+    if (chars != null) {
+      if (this.demand.get() != Long.MAX_VALUE) {
+        this.demand.decrementAndGet();
+      }
+      downstream.onNext(chars);
+    }
+  }
+
+  private static long addCapped(long a, long b) {
+    long sum = a + b;
+    return sum < 0L ? Long.MAX_VALUE : sum;
+  }
+
+  final class DownstreamSubscription implements Flow.Subscription {
+
+    @Override
+    public void request(long n) {
+      if (n <= 0L) {
+        Utf8DecodingProcessor.this.error = new IllegalArgumentException("non-positive request: " + n);
+        this.cancelUpstream();
+      } else {
+        Utf8DecodingProcessor.this.demand.accumulateAndGet(n, Utf8DecodingProcessor::addCapped);
+      }
+      Utf8DecodingProcessor.this.drain();
+    }
+
+    @Override
+    public void cancel() {
+      Utf8DecodingProcessor.this.cancelled = true;
+      this.cancelUpstream();
+      Utf8DecodingProcessor.this.drain();
+    }
+
+    private void cancelUpstream() {
+      Flow.Subscription subscription = Utf8DecodingProcessor.this.upstream;
+      if (subscription != null) {
+        subscription.cancel();
+      }
+    }
+
+  }
+
+  static final class CancelledSubscription implements Flow.Subscription {
+
+    @Override
+    public void request(long n) {
+      // ignore
+    }
+
+    @Override
+    public void cancel() {
+      // ignore
+    }
+
+  }
+
+}
@@ -0,0 +1,400 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Reads records of delimiter separated fields (CSV, TSV) from UTF-8 encoded
+ * input.
+ *
+ * <p>Records are separated by {@code \n} or {@code \r\n}. Fields are
+ * separated by a single ASCII delimiter and may be enclosed in double quotes,
+ * a double quote inside a quoted field is escaped by another double quote.
+ * Quoted fields may contain delimiters and line breaks. The reader is lenient,
+ * characters after a closing quote are appended to the field and an
+ * unterminated quoted field ends at the end of the input.
+ *
+ * <p>As the delimiter, quote and line break characters are all ASCII the
+ * input is scanned for them eight bytes at a time without decoding. Only the
+ * fields requested through {@link #getString(int)},
+ * {@link #getString(int, Utf8SymbolTable)} or
+ * {@link #getChars(int, char[], int)} are decoded.
+ *
+ * <p>A record has to fit into the buffer, the buffer grows if necessary.
+ *
+ * <p>Not thread-safe.
+ */
+public final class Utf8FieldReader implements Closeable {
+
+  private static final byte QUOTE = '"';
+
+  private static final byte LF = '\n';
+
+  private static final byte CR = '\r';
+
+  private static final int INITIAL_FIELD_CAPACITY = 16;
+
+  // at the start of a field, nothing of the field has been read
+  private static final int FIELD_START = 0;
+
+  // inside an unquoted field
+  private static final int UNQUOTED = 1;
+
+  // inside a quoted field
+  private static final int QUOTED = 2;
+
+  // a quote has been read inside a quoted field, it's either an escape or the closing quote
+  private static final int QUOTE_IN_QUOTED = 3;
+
+  // after the closing quote of a quoted field
+  private static final int AFTER_QUOTED = 4;
+
+  private final InputStream in;
+
+  private final byte delimiter;
+
+  private byte[] buffer;
+
+  // position in #buffer of the start of the current record
+  private int position;
+
+  // number of valid bytes in #buffer
+  private int limit;
+
+  private boolean endOfInput;
+
+  private boolean closed;
+
+  private int[] fieldStarts;
+
+  private int[] fieldEnds;
+
+  private int fieldCount;
+
+  // scanning state, only valid during #nextRecord()
+
+  // position in #buffer of the next byte to scan
+  private int scan;
+
+  // position in #buffer of the start of the current field
+  private int fieldStart;
+
+  // position in #buffer where the next byte of an unescaped quoted field is written
+  private int write;
+
+  // position in #buffer of the end of the unescaped content between the quotes
+  private int quotedEnd;
+
+  private int state;
+
+  /**
+   * Constructs a new {@link Utf8FieldReader} with a buffer size of 8192.
+   *
+   * @param in the input stream from which to read the bytes, not {@code null}
+   * @param delimiter the field delimiter, an ASCII character other than
+   *                  {@code "}, {@code \r} or {@code \n}
+   * @throws NullPointerException if in is {@code null}
+   * @throws IllegalArgumentException if the delimiter is not valid
+   */
+  public Utf8FieldReader(InputStream in, char delimiter) {
+    this(in, delimiter, 8192);
+  }
+
+  /**
+   * Constructs a new {@link Utf8FieldReader}.
+   *
+   * @param in the input stream from which to read the bytes, not {@code null}
+   * @param delimiter the field delimiter, an ASCII character other than
+   *                  {@code "}, {@code \r} or {@code \n}
+   * @param bufferSize the initial size of the buffer in bytes
+   * @throws NullPointerException if in is {@code null}
+   * @throws IllegalArgumentException if the delimiter is not valid or the
+   *                                  buffer size is not positive
+   */
+  public Utf8FieldReader(InputStream in, char delimiter, int bufferSize) {
+    Objects.requireNonNull(in);
+    if (delimiter >= 0x80) {
+      throw new IllegalArgumentException("delimiter must be an ASCII character");
+    }
+    if (delimiter == QUOTE || delimiter == CR || delimiter == LF) {
+      throw new IllegalArgumentException("delimiter must not be a quote or line break");
+    }
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("buffer size must be positive");
+    }
+    this.in = in;
+    this.delimiter = (byte) delimiter;
+    this.buffer = new byte[bufferSize];
+    this.position = 0;
+    this.limit = 0;
+    this.endOfInput = false;
+    this.closed = false;
+    this.fieldStarts = new int[INITIAL_FIELD_CAPACITY];
+    this.fieldEnds = new int[INITIAL_FIELD_CAPACITY];
+    this.fieldCount = 0;
+  }
+
+  /**
+   * Advances to the next record.
+   *
+   * <p>Invalidates the fields of the current record.
+   *
+   * @return {@code true} if there is a next record,
+   *         {@code false} if the end of the input has been reached
+   * @throws IOException if the reader is closed or reading fails
+   */
+  public boolean nextRecord() throws IOException {
+    this.closedCheck();
+    this.fieldCount = 0;
+    this.scan = this.position;
+    this.state = FIELD_START;
+    while (true) {
+      if (this.scan == this.limit) {
+        if (this.endOfInput || (this.fill() == -1)) {
+          return this.endRecordAtEndOfInput();
+        }
+      }
+      switch (this.state) {
+        case FIELD_START:
+          if (this.buffer[this.scan] == QUOTE) {
+            this.scan += 1;
+            this.fieldStart = this.scan;
+            this.write = this.scan;
+            this.state = QUOTED;
+          } else {
+            this.fieldStart = this.scan;
+            this.state = UNQUOTED;
+          }
+          break;
+        case UNQUOTED: {
+          int index = Utf8Utils.indexOf(this.buffer, this.scan, this.limit, this.delimiter, LF);
+          if (index == -1) {
+            this.scan = this.limit;
+          } else if (this.buffer[index] == LF) {
+            this.addField(this.fieldStart, stripCarriageReturn(this.buffer, this.fieldStart, index));
+            this.position = index + 1;
+            return true;
+          } else {
+            this.addField(this.fieldStart, index);
+            this.scan = index + 1;
+            this.state = FIELD_START;
+          }
+          break;
+        }
+        case QUOTED: {
+          int index = Utf8Utils.indexOf(this.buffer, this.scan, this.limit, QUOTE, QUOTE);
+          int end = index == -1 ? this.limit : index;
+          this.unescape(end);
+          if (index == -1) {
+            this.scan = this.limit;
+          } else {
+            // skip the quote
+            this.scan = index + 1;
+            this.state = QUOTE_IN_QUOTED;
+          }
+          break;
+        }
+        case QUOTE_IN_QUOTED:
+          if (this.buffer[this.scan] == QUOTE) {
+            // escaped quote
+            this.buffer[this.write++] = QUOTE;
+            this.scan += 1;
+            this.state = QUOTED;
+          } else {
+            this.quotedEnd = this.write;
+            this.state = AFTER_QUOTED;
+          }
+          break;
+        case AFTER_QUOTED: {
+          int index = Utf8Utils.indexOf(this.buffer, this.scan, this.limit, this.delimiter, LF);
+          int end = index == -1 ? this.limit : index;
+          // lenient, append anything after the closing quote
+          this.unescape(end);
+          if (index == -1) {
+            this.scan = this.limit;
+          } else if (this.buffer[index] == LF) {
+            // a carriage return between the quotes is content
+            this.addField(this.fieldStart, stripCarriageReturn(this.buffer, this.quotedEnd, this.write));
+            this.position = index + 1;
+            return true;
+          } else {
+            this.addField(this.fieldStart, this.write);
+            this.scan = index + 1;
+            this.state = FIELD_START;
+          }
+          break;
+        }
+        default:
+          throw new IllegalStateException("unknown state: " + this.state);
+      }
+    }
+  }
+
+  /**
+   * Moves the bytes from {@link #scan} to {@code end} of a quoted field to
+   * {@link #write}, this is a no-op unless an escaped quote has been read.
+   */
+  private void unescape(int end) {
+    int length = end - this.scan;
+    if (this.write != this.scan) {
+      System.arraycopy(this.buffer, this.scan, this.buffer, this.write, length);
+    }
+    this.write += length;
+  }
+
+  private boolean endRecordAtEndOfInput() {
+    this.position = this.limit;
+    switch (this.state) {
+      case FIELD_START:
+        if (this.fieldCount == 0) {
+          // no more record
+          return false;
+        }
+        // trailing delimiter
+        this.addField(this.scan, this.scan);
+        return true;
+      case UNQUOTED:
+        this.addField(this.fieldStart, stripCarriageReturn(this.buffer, this.fieldStart, this.limit));
+        return true;
+      case AFTER_QUOTED:
+        this.addField(this.fieldStart, stripCarriageReturn(this.buffer, this.quotedEnd, this.write));
+        return true;
+      default:
+        // unterminated quoted field
+        this.addField(this.fieldStart, this.write);
+        return true;
+    }
+  }
+
+  private static int stripCarriageReturn(byte[] buffer, int start, int end) {
+    if ((end > start) && (buffer[end - 1] == CR)) {
+      return end - 1;
+    }
+    return end;
+  }
+
+  private void addField(int start, int end) {
+    if (this.fieldCount == this.fieldStarts.length) {
+      this.fieldStarts = Arrays.copyOf(this.fieldStarts, this.fieldCount * 2);
+      this.fieldEnds = Arrays.copyOf(this.fieldEnds, this.fieldCount * 2);
+    }
+    this.fieldStarts[this.fieldCount] = start;
+    this.fieldEnds[this.fieldCount] = end;
+    this.fieldCount += 1;
+  }
+
+  /**
+   * Reads more bytes into the buffer. The current record is moved to the
+   * start of the buffer first, the buffer grows if the record does not fit.
+   */
+  private int fill() throws IOException {
+    int start = this.position;
+    if (start > 0) {
+      System.arraycopy(this.buffer, start, this.buffer, 0, this.limit - start);
+      this.position = 0;
+      this.limit -= start;
+      this.scan -= start;
+      this.fieldStart -= start;
+      this.write -= start;
+      this.quotedEnd -= start;
+      for (int i = 0; i < this.fieldCount; i++) {
+        this.fieldStarts[i] -= start;
+        this.fieldEnds[i] -= start;
+      }
+    }
+    if (this.limit == this.buffer.length) {
+      this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, 16));
+    }
+    int read = this.in.read(this.buffer, this.limit, this.buffer.length - this.limit);
+    if (read == -1) {
+      this.endOfInput = true;
+      return -1;
+    }
+    this.limit += read;
+    return read;
+  }
+
+  /**
+   * Returns the number of fields in the current record.
+   *
+   * @return the number of fields in the current record, 0 if there is no current record
+   */
+  public int getFieldCount() {
+    return this.fieldCount;
+  }
+
+  /**
+   * Returns the length of a field in UTF-8 bytes, after removing quotes.
+   *
+   * <p>This is an upper bound on the number of chars of the field.
+   *
+   * @param index the index of the field in the current record
+   * @return the length of the field in bytes
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public int getByteLength(int index) {
+    Objects.checkIndex(index, this.fieldCount);
+    return this.fieldEnds[index] - this.fieldStarts[index];
+  }
+
+  /**
+   * Decodes a field into a {@link String}.
+   *
+   * @param index the index of the field in the current record
+   * @return the decoded field
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public String getString(int index) {
+    int length = this.getByteLength(index);
+    return new String(this.buffer, this.fieldStarts[index], length, UTF_8);
+  }
+
+  /**
+   * Decodes a field into a {@link String} using a symbol table.
+   *
+   * @param index the index of the field in the current record
+   * @param symbolTable the table used for canonicalizing the field, not {@code null}
+   * @return the decoded field, the cached instance if present
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   * @throws NullPointerException if symbolTable is {@code null}
+   */
+  public String getString(int index, Utf8SymbolTable symbolTable) {
+    int length = this.getByteLength(index);
+    return symbolTable.lookup(this.buffer, this.fieldStarts[index], length);
+  }
+
+  /**
+   * Decodes a field into a char array.
+   *
+   * @param index the index of the field in the current record
+   * @param dst the destination, needs room for at least
+   *            {@link #getByteLength(int)} chars after {@code dstOff}
+   * @param dstOff the offset in {@code dst} of the first char
+   * @return the number of chars written
+   * @throws IndexOutOfBoundsException if the index is out of bounds or
+   *                                   {@code dst} does not have enough room
+   */
+  public int getChars(int index, char[] dst, int dstOff) {
+    int length = this.getByteLength(index);
+    Objects.checkFromIndexSize(dstOff, length, dst.length);
+    return Utf8Codec.produced(Utf8Codec.decode(this.buffer, this.fieldStarts[index], length, dst, dstOff));
+  }
+
+  private void closedCheck() throws IOException {
+    if (this.closed) {
+      throw new IOException("closed reader");
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.in.close();
+    this.closed = true;
+  }
+
+}
@@ -0,0 +1,453 @@
+package com.github.marschall.readers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A sparse index of a UTF-8 file that allows opening a reader at a char
+ * offset or at the start of a line without decoding the whole prefix.
+ *
+ * <p>The index is built in a single pass that counts chars and lines eight
+ * bytes at a time without decoding. Every {@code interval} bytes it records a
+ * checkpoint consisting of the byte offset, char offset, line number and
+ * column number of the first char boundary at or after that byte. Opening a
+ * reader seeks to the nearest checkpoint and decodes only the remainder,
+ * opening at a line start does not decode at all.
+ *
+ * <p>Char offsets and line numbers are exact for valid UTF-8. Lines are
+ * terminated by {@code \n}, line and column numbers are 1-based.
+ *
+ * <p>The index can be persisted to a small sidecar file with
+ * {@link #write(Path)} and loaded with {@link #read(Path)}. The size of the
+ * indexed file is stored in the index and checked when opening a reader.
+ *
+ * <p>Immutable and thread-safe.
+ */
+public final class Utf8FileIndex {
+
+  private static final int MAGIC = 0x55_38_49_58; // U8IX
+
+  private static final int VERSION = 1;
+
+  private static final int DEFAULT_INTERVAL = 1024 * 1024;
+
+  private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+  private static final byte LF = '\n';
+
+  private final int interval;
+
+  private final long byteLength;
+
+  private final long charLength;
+
+  private final long lineCount;
+
+  private final long[] byteOffsets;
+
+  private final long[] charOffsets;
+
+  private final long[] lineNumbers;
+
+  private final long[] columnNumbers;
+
+  private Utf8FileIndex(int interval, long byteLength, long charLength, long lineCount,
+          long[] byteOffsets, long[] charOffsets, long[] lineNumbers, long[] columnNumbers) {
+    this.interval = interval;
+    this.byteLength = byteLength;
+    this.charLength = charLength;
+    this.lineCount = lineCount;
+    this.byteOffsets = byteOffsets;
+    this.charOffsets = charOffsets;
+    this.lineNumbers = lineNumbers;
+    this.columnNumbers = columnNumbers;
+  }
+
+  /**
+   * Builds an index with a checkpoint every MiB.
+   *
+   * @param file the UTF-8 file to index, not {@code null}
+   * @return the index
+   * @throws IOException if reading the file fails
+   */
+  public static Utf8FileIndex build(Path file) throws IOException {
+    return build(file, DEFAULT_INTERVAL);
+  }
+
+  /**
+   * Builds an index.
+   *
+   * @param file the UTF-8 file to index, not {@code null}
+   * @param interval the number of bytes between checkpoints, at least 4
+   * @return the index
+   * @throws IOException if reading the file fails
+   * @throws IllegalArgumentException if interval is too small
+   */
+  public static Utf8FileIndex build(Path file, int interval) throws IOException {
+    Objects.requireNonNull(file);
+    if (interval < 4) {
+      throw new IllegalArgumentException("interval too small");
+    }
+    try (InputStream in = Files.newInputStream(file)) {
+      return new Builder(interval).build(in);
+    }
+  }
+
+  /**
+   * Counts chars and lines over the file and records the checkpoints.
+   */
+  private static final class Builder {
+
+    private final int interval;
+
+    private long[] byteOffsets;
+
+    private long[] charOffsets;
+
+    private long[] lineNumbers;
+
+    private long[] columnNumbers;
+
+    private int checkpointCount;
+
+    // counts up to the current scan position
+    private long charOffset;
+
+    private long lineNumber;
+
+    // number of chars of the current line
+    private long column;
+
+    Builder(int interval) {
+      this.interval = interval;
+      this.byteOffsets = new long[16];
+      this.charOffsets = new long[16];
+      this.lineNumbers = new long[16];
+      this.columnNumbers = new long[16];
+      this.checkpointCount = 0;
+      this.charOffset = 0L;
+      this.lineNumber = 1L;
+      this.column = 0L;
+    }
+
+    Utf8FileIndex build(InputStream in) throws IOException {
+      byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+      long bufferOffset = 0L;
+      this.addCheckpoint(0L);
+      long nextCheckpoint = this.interval;
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        int position = 0;
+        while (nextCheckpoint < bufferOffset + read) {
+          // checkpoints are only recorded at char boundaries
+          int boundary = (int) (nextCheckpoint - bufferOffset);
+          while ((boundary < read) && ((buffer[boundary] & 0xC0) == 0x80)) {
+            boundary += 1;
+          }
+          this.count(buffer, position, boundary);
+          position = boundary;
+          if (boundary == read) {
+            // continues in the next buffer
+            nextCheckpoint = bufferOffset + read;
+            break;
+          }
+          this.addCheckpoint(bufferOffset + boundary);
+          nextCheckpoint = bufferOffset + boundary + this.interval;
+        }
+        this.count(buffer, position, read);
+        bufferOffset += read;
+      }
+      int count = this.checkpointCount;
+      return new Utf8FileIndex(this.interval, bufferOffset, this.charOffset, this.lineNumber,
+              Arrays.copyOf(this.byteOffsets, count), Arrays.copyOf(this.charOffsets, count),
+              Arrays.copyOf(this.lineNumbers, count), Arrays.copyOf(this.columnNumbers, count));
+    }
+
+    private void count(byte[] buffer, int from, int to) {
+      if (to > from) {
+        this.charOffset += Utf8Utils.countChars(buffer, from, to);
+        int lastLineFeed = Utf8Utils.lastIndexOf(buffer, from, to, LF);
+        if (lastLineFeed == -1) {
+          this.column += Utf8Utils.countChars(buffer, from, to);
+        } else {
+          this.lineNumber += Utf8Utils.count(buffer, from, lastLineFeed + 1, LF);
+          this.column = Utf8Utils.countChars(buffer, lastLineFeed + 1, to);
+        }
+      }
+    }
+
+    private void addCheckpoint(long byteOffset) {
+      int count = this.checkpointCount;
+      if (count == this.byteOffsets.length) {
+        int newLength = count * 2;
+        this.byteOffsets = Arrays.copyOf(this.byteOffsets, newLength);
+        this.charOffsets = Arrays.copyOf(this.charOffsets, newLength);
+        this.lineNumbers = Arrays.copyOf(this.lineNumbers, newLength);
+        this.columnNumbers = Arrays.copyOf(this.columnNumbers, newLength);
+      }
+      this.byteOffsets[count] = byteOffset;
+      this.charOffsets[count] = this.charOffset;
+      this.lineNumbers[count] = this.lineNumber;
+      this.columnNumbers[count] = this.column + 1L;
+      this.checkpointCount = count + 1;
+    }
+
+  }
+
+  /**
+   * Writes the index to a sidecar file.
+   *
+   * @param indexFile the file to write to, not {@code null}, replaced if it exists
+   * @throws IOException if writing fails
+   */
+  public void write(Path indexFile) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(this.interval);
+      out.writeLong(this.byteLength);
+      out.writeLong(this.charLength);
+      out.writeLong(this.lineCount);
+      int count = this.byteOffsets.length;
+      out.writeInt(count);
+      for (int i = 0; i < count; i++) {
+        out.writeLong(this.byteOffsets[i]);
+        out.writeLong(this.charOffsets[i]);
+        out.writeLong(this.lineNumbers[i]);
+        out.writeLong(this.columnNumbers[i]);
+      }
+    }
+  }
+
+  /**
+   * Reads an index from a sidecar file written by {@link #write(Path)}.
+   *
+   * @param indexFile the file to read from, not {@code null}
+   * @return the index
+   * @throws IOException if reading fails or the file is not an index
+   */
+  public static Utf8FileIndex read(Path indexFile) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("not an index file");
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw new IOException("unsupported index version: " + version);
+      }
+      int interval = in.readInt();
+      long byteLength = in.readLong();
+      long charLength = in.readLong();
+      long lineCount = in.readLong();
+      int count = in.readInt();
+      if (count <= 0) {
+        throw new IOException("corrupt index file");
+      }
+      long[] byteOffsets = new long[count];
+      long[] charOffsets = new long[count];
+      long[] lineNumbers = new long[count];
+      long[] columnNumbers = new long[count];
+      for (int i = 0; i < count; i++) {
+        byteOffsets[i] = in.readLong();
+        charOffsets[i] = in.readLong();
+        lineNumbers[i] = in.readLong();
+        columnNumbers[i] = in.readLong();
+      }
+      return new Utf8FileIndex(interval, byteLength, charLength, lineCount, byteOffsets, charOffsets, lineNumbers, columnNumbers);
+    }
+  }
+
+  /**
+   * Returns the size of the indexed file in bytes.
+   *
+   * @return the size of the indexed file in bytes
+   */
+  public long getByteLength() {
+    return this.byteLength;
+  }
+
+  /**
+   * Returns the number of chars of the indexed file.
+   *
+   * @return the number of chars of the indexed file
+   */
+  public long getCharLength() {
+    return this.charLength;
+  }
+
+  /**
+   * Returns the number of lines of the indexed file, this is the number of
+   * {@code \n} plus one.
+   *
+   * @return the number of lines of the indexed file
+   */
+  public long getLineCount() {
+    return this.lineCount;
+  }
+
+  /**
+   * Returns the number of checkpoints, including the one at the start of the file.
+   *
+   * @return the number of checkpoints
+   */
+  public int getCheckpointCount() {
+    return this.byteOffsets.length;
+  }
+
+  /**
+   * Opens a reader positioned at a char offset.
+   *
+   * <p>The reader seeks to the nearest checkpoint before the char offset and
+   * skips the remaining chars. The reader tracks line and column numbers.
+   *
+   * @param file the indexed file, not {@code null}
+   * @param charOffset the char offset of the first char to read
+   * @return the reader, the caller is responsible for closing it
+   * @throws IOException if the file does not match the index or opening fails
+   * @throws IllegalArgumentException if charOffset is negative or past the end of the file
+   */
+  public BufferedUtf8InputStreamReader openAtChar(Path file, long charOffset) throws IOException {
+    if ((charOffset < 0L) || (charOffset > this.charLength)) {
+      throw new IllegalArgumentException("char offset out of range");
+    }
+    int checkpoint = lastCheckpointAtOrBefore(this.charOffsets, charOffset);
+    BufferedUtf8InputStreamReader reader = this.open(file, this.byteOffsets[checkpoint],
+            this.lineNumbers[checkpoint], this.columnNumbers[checkpoint]);
+    try {
+      long remaining = charOffset - this.charOffsets[checkpoint];
+      while (remaining > 0L) {
+        long skipped = reader.skip(remaining);
+        if (skipped == 0L) {
+          throw new IOException("file shorter than index");
+        }
+        remaining -= skipped;
+      }
+    } catch (IOException | RuntimeException e) {
+      reader.close();
+      throw e;
+    }
+    return reader;
+  }
+
+  /**
+   * Opens a reader positioned at the start of a line.
+   *
+   * <p>The reader seeks to the nearest checkpoint before the line and scans
+   * the remaining bytes for line feeds without decoding. The reader tracks
+   * line and column numbers.
+   *
+   * @param file the indexed file, not {@code null}
+   * @param lineNumber the 1-based number of the line
+   * @return the reader, the caller is responsible for closing it
+   * @throws IOException if the file does not match the index or opening fails
+   * @throws IllegalArgumentException if lineNumber is not positive or past the end of the file
+   */
+  public BufferedUtf8InputStreamReader openAtLine(Path file, long lineNumber) throws IOException {
+    if ((lineNumber < 1L) || (lineNumber > this.lineCount)) {
+      throw new IllegalArgumentException("line number out of range");
+    }
+    // a checkpoint on the requested line is already past its start
+    int checkpoint = lastCheckpointAtOrBefore(this.lineNumbers, lineNumber - 1L);
+    if (checkpoint == -1) {
+      checkpoint = 0;
+    }
+    long lineStart = this.byteOffsets[checkpoint];
+    long lineFeeds = lineNumber - this.lineNumbers[checkpoint];
+    if (lineFeeds > 0L) {
+      lineStart = this.findLineStart(file, lineStart, lineFeeds);
+    }
+    return this.open(file, lineStart, lineNumber, 1L);
+  }
+
+  private long findLineStart(Path file, long byteOffset, long lineFeeds) throws IOException {
+    try (FileChannel channel = this.openChannel(file)) {
+      channel.position(byteOffset);
+      byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+      ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+      long bufferOffset = byteOffset;
+      long remaining = lineFeeds;
+      while (true) {
+        byteBuffer.clear();
+        int read = channel.read(byteBuffer);
+        if (read == -1) {
+          throw new IOException("file shorter than index");
+        }
+        int count = Utf8Utils.count(buffer, 0, read, LF);
+        if (count < remaining) {
+          remaining -= count;
+        } else {
+          int position = 0;
+          while (true) {
+            int index = Utf8Utils.indexOf(buffer, position, read, LF, LF);
+            remaining -= 1L;
+            if (remaining == 0L) {
+              return bufferOffset + index + 1L;
+            }
+            position = index + 1;
+          }
+        }
+        bufferOffset += read;
+      }
+    }
+  }
+
+  private BufferedUtf8InputStreamReader open(Path file, long byteOffset, long lineNumber, long columnNumber) throws IOException {
+    FileChannel channel = this.openChannel(file);
+    try {
+      channel.position(byteOffset);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    return BufferedUtf8InputStreamReader.builder(Channels.newInputStream(channel))
+            .trackPosition()
+            .position(byteOffset, lineNumber, columnNumber)
+            .build();
+  }
+
+  private FileChannel openChannel(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      if (channel.size() != this.byteLength) {
+        throw new IOException("file size does not match index");
+      }
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    return channel;
+  }
+
+  /**
+   * Returns the index of the last checkpoint whose value is at most the key,
+   * -1 if there is none.
+   */
+  private static int lastCheckpointAtOrBefore(long[] values, long key) {
+    int low = 0;
+    int high = values.length - 1;
+    int result = -1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (values[middle] <= key) {
+        result = middle;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return result;
+  }
+
+}
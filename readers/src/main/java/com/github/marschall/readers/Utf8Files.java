@@ -0,0 +1,59 @@
+package com.github.marschall.readers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Utility methods for UTF-8 files.
+ */
+public final class Utf8Files {
+
+  private Utf8Files() {
+    throw new AssertionError("not instantiable");
+  }
+
+  /**
+   * Reads all lines from a UTF-8 file as a {@link Stream}, like
+   * {@link Files#lines(Path)}.
+   *
+   * <p>The file is mapped into memory and the stream splits it at line feeds,
+   * so a {@link Stream#parallel() parallel} stream decodes the parts of the
+   * file concurrently. Lines end with {@code \n}, {@code \r\n} or {@code \r}.
+   * Unlike {@link Files#lines(Path)} malformed input is replaced with U+FFFD
+   * instead of failing with an {@link UncheckedIOException}.
+   *
+   * <p>Files larger than 2 GiB are not mapped, they are read sequentially.
+   *
+   * @param file the file, not {@code null}
+   * @return the lines of the file, should be closed
+   * @throws IOException if the file can not be opened or mapped
+   */
+  public static Stream<String> lines(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size <= Integer.MAX_VALUE) {
+        // the mapping stays valid after the channel is closed
+        MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0L, size);
+        return StreamSupport.stream(new Utf8LineSpliterator(buffer, 0, (int) size), false);
+      }
+    }
+    BufferedReader reader = new BufferedReader(new BufferedUtf8InputStreamReader(Files.newInputStream(file)));
+    return reader.lines().onClose(() -> {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+}
@@ -13,23 +13,47 @@ import java.util.Objects;
  *
  * <p>Avoids any intermediate allocation.
  *
+ * <p>Optionally collects {@link DecoderStats}, as the reader decodes one
+ * character at a time the statistics are updated per character.
+ *
+ * <p>Malformed input is replaced with U+FFFD by default, it can also be
+ * reported or skipped, see {@link MalformedInputPolicy}. To find the end of
+ * a maximal subpart one byte may be read ahead.
+ *
  * <p>Not thread-safe.
  *
  * @see InputStreamReader
  */
-public final class Utf8InputStreamReader extends Reader {
-
-  private static final int MAX_BYTE_LENGTH = 4;
+public final class Utf8InputStreamReader extends Reader implements CodePointReader {
 
   /**
    * Unicode replacement character.
    */
   private static final int REPLACEMENT = 0xFFFD;
 
+  /**
+   * Returned by {@link #readMultiByteCharacter(int)} for a skipped malformed
+   * sequence.
+   */
+  private static final int SKIPPED = -2;
+
+  private static final int NO_LOOKAHEAD = -2;
+
   private boolean closed;
 
   private final InputStream in;
 
+  // null if statistics are disabled
+  private final DecoderStats stats;
+
+  private final MalformedInputPolicy malformedInputPolicy;
+
+  // byte read ahead to find the end of a malformed sequence, NO_LOOKAHEAD if none
+  private int lookahead;
+
+  // number of bytes consumed
+  private long byteOffset;
+
   private boolean hasPendingLowSurrogate;
 
   private char lowSurrogate;
@@ -41,8 +65,40 @@ public final class Utf8InputStreamReader extends Reader {
    * @throws NullPointerException if in is {@code null}
    */
   public Utf8InputStreamReader(InputStream in) {
+    this(in, null);
+  }
+
+  /**
+   * Constructs a new {@link Utf8InputStreamReader} that collects statistics.
+   *
+   * @param in the input stream from which to read the bytes, not {@code null}
+   * @param stats where to collect the statistics, {@code null} to disable statistics
+   * @throws NullPointerException if in is {@code null}
+   */
+  public Utf8InputStreamReader(InputStream in, DecoderStats stats) {
+    this(in, stats, MalformedInputPolicy.REPLACE);
+  }
+
+  /**
+   * Constructs a new {@link Utf8InputStreamReader} with a policy for
+   * malformed input.
+   *
+   * <p>With {@link MalformedInputPolicy#REPORT} the malformed input is
+   * consumed before the exception is thrown.
+   *
+   * @param in the input stream from which to read the bytes, not {@code null}
+   * @param stats where to collect the statistics, {@code null} to disable statistics
+   * @param malformedInputPolicy what to do with malformed input, not {@code null}
+   * @throws NullPointerException if in or malformedInputPolicy is {@code null}
+   */
+  public Utf8InputStreamReader(InputStream in, DecoderStats stats, MalformedInputPolicy malformedInputPolicy) {
     Objects.requireNonNull(in);
+    Objects.requireNonNull(malformedInputPolicy);
     this.in = in;
+    this.stats = stats;
+    this.malformedInputPolicy = malformedInputPolicy;
+    this.lookahead = NO_LOOKAHEAD;
+    this.byteOffset = 0L;
     this.closed = false;
     this.hasPendingLowSurrogate = false;
   }
@@ -58,81 +114,159 @@ public final class Utf8InputStreamReader extends Reader {
       this.hasPendingLowSurrogate = false;
       return this.lowSurrogate;
     } else {
-      int c1 = this.in.read();
+      int codePoint = this.readCodePointImpl();
+      if (codePoint == -1 || Character.isBmpCodePoint(codePoint)) {
+        // end of stream or BMP character, single Java char
+        return codePoint;
+      } else {
+        this.hasPendingLowSurrogate = true;
+        this.lowSurrogate = Character.lowSurrogate(codePoint);
+        // non-BMP character, two Java char
+        return Character.highSurrogate(codePoint);
+      }
+    }
+  }
+
+  @Override
+  public int readCodePoint() throws IOException {
+    this.closedCheck();
+    if (this.hasPendingLowSurrogate) {
+      this.hasPendingLowSurrogate = false;
+      return this.lowSurrogate;
+    }
+    return this.readCodePointImpl();
+  }
+
+  private int readCodePointImpl() throws IOException {
+    while (true) {
+      long start = this.byteOffset;
+      int c1 = this.readByte();
       if (c1 == -1) {
         return -1;
       }
-      int byteLength = Utf8Utils.getByteLength(c1);
-      if (byteLength == 1) {
-        return c1;
-      } else if (byteLength > MAX_BYTE_LENGTH) {
-        // TODO for longer lengths skip the characters
-        return REPLACEMENT;
+      int codePoint;
+      if (c1 < 0x80) {
+        codePoint = c1;
       } else {
-        int codePoint = this.readMultiByteCharacter(c1, byteLength);
-        if (Character.isBmpCodePoint(codePoint)) {
-          // BMP character, single Java char
-          return (char) codePoint;
-        } else {
-          this.hasPendingLowSurrogate = true;
-          this.lowSurrogate = Character.lowSurrogate(codePoint);
-          // non-BMP character, two Java char
-          return Character.highSurrogate(codePoint);
+        codePoint = this.readMultiByteCharacter(c1);
+      }
+      if (codePoint != SKIPPED) {
+        if (this.stats != null) {
+          this.stats.recordDecoded((int) (this.byteOffset - start), Character.charCount(codePoint), 0);
         }
+        return codePoint;
+      }
+      if (this.stats != null) {
+        this.stats.recordDecoded((int) (this.byteOffset - start), 0, 0);
       }
     }
   }
 
-  private int readMultiByteCharacter(int c1, int byteLength) throws IOException {
-    // https://unicode.org/versions/corrigendum1.html
-    switch (byteLength) {
-      case 2: {
-        int c2 = this.in.read();
-  
-        if (c2 == -1) {
-          return REPLACEMENT;
-        }
-  
-        if (Utf8Utils.isValidTwoByteSequence(c1, c2)) {
-          return ((c1 & 0b00011111) << 6) | (c2 & 0b00111111);
-        } else {
-          return REPLACEMENT;
-        }
-      }
-  
-      case 3: {
-        int c2 = this.in.read();
-        int c3 = this.in.read();
-  
-        if (c2 == -1 | c3 == -1) {
-          return REPLACEMENT;
-        }
-        if (Utf8Utils.isValidThreeByteSequence(c1, c2, c3)) {
-          return ((c1 & 0b00001111) << 12) | ((c2 & 0b00111111) << 6) | (c3 & 0b00111111);
+  private int readByte() throws IOException {
+    int b = this.lookahead;
+    if (b != NO_LOOKAHEAD) {
+      this.lookahead = NO_LOOKAHEAD;
+    } else {
+      b = this.in.read();
+    }
+    if (b != -1) {
+      this.byteOffset += 1L;
+    }
+    return b;
+  }
+
+  /**
+   * Pushes back the byte that ended a malformed sequence.
+   *
+   * @param b the byte, -1 at the end of the input
+   */
+  private void unread(int b) {
+    if (b != -1) {
+      this.lookahead = b;
+      this.byteOffset -= 1L;
+    }
+  }
+
+  /**
+   * Called for every malformed sequence after its maximal subpart has been
+   * consumed.
+   *
+   * @param length the length of the maximal subpart
+   * @return the replacement character or {@link #SKIPPED}
+   * @throws Utf8MalformedInputException if malformed input is reported
+   */
+  private int malformed(int length) throws IOException {
+    if (this.malformedInputPolicy == MalformedInputPolicy.REPORT) {
+      throw new Utf8MalformedInputException(length, this.byteOffset - length);
+    }
+    if (this.stats != null) {
+      this.stats.recordReplacement();
+    }
+    return this.malformedInputPolicy == MalformedInputPolicy.REPLACE ? REPLACEMENT : SKIPPED;
+  }
+
+  @Override
+  public int read(int[] codePoints, int off, int len) throws IOException {
+    this.closedCheck();
+    Objects.checkFromIndexSize(off, len, codePoints.length);
+    if (len == 0) {
+      return 0;
+    }
+    int read = 0;
+    if (this.hasPendingLowSurrogate) {
+      codePoints[off] = this.lowSurrogate;
+      this.hasPendingLowSurrogate = false;
+      read += 1;
+    }
+    while (read < len) {
+      int codePoint = this.readCodePointImpl();
+      if (codePoint == -1) {
+        if (read == 0) {
+          return -1;
         } else {
-          return REPLACEMENT;
+          return read;
         }
       }
-  
-      case 4: {
-        int c2 = this.in.read();
-        int c3 = this.in.read();
-        int c4 = this.in.read();
-        if (c2 == -1 | c3 == -1 | c4 == -1) {
-          return REPLACEMENT;
-        }
-  
-        if (Utf8Utils.isValidFourByteSequence(c1, c2, c3, c4)) {
-          return ((c1 & 0b00000111) << 18) | ((c2 & 0b00111111) << 12) | ((c3 & 0b00111111) << 6) | (c4 & 0b00111111);
-        } else {
-          return REPLACEMENT;
-        }
-  
+      codePoints[off + read] = codePoint;
+      read += 1;
+    }
+    return read;
+  }
+
+  private int readMultiByteCharacter(int c1) throws IOException {
+    // https://unicode.org/versions/corrigendum1.html
+    if ((c1 < 0xC2) || (c1 > 0xF4)) {
+      // continuation byte, overlong two byte sequence or out of range
+      return this.malformed(1);
+    }
+    int byteLength = Utf8Utils.getByteLength(c1);
+    int c2 = this.readByte();
+    if (!Utf8Utils.isValidSecondByte(c1, c2)) {
+      this.unread(c2);
+      return this.malformed(1);
+    }
+    if (byteLength == 2) {
+      return ((c1 & 0b00011111) << 6) | (c2 & 0b00111111);
+    }
+
+    int c3 = this.readByte();
+    if (!Utf8Utils.isContinuation(c3)) {
+      this.unread(c3);
+      return this.malformed(2);
+    }
+    if (byteLength == 3) {
+      if (Utf8Utils.isSurrogateSequence(c1, c2)) {
+        return this.malformed(3);
       }
-  
-      default:
-        return REPLACEMENT;
+      return ((c1 & 0b00001111) << 12) | ((c2 & 0b00111111) << 6) | (c3 & 0b00111111);
+    }
+
+    int c4 = this.readByte();
+    if (!Utf8Utils.isContinuation(c4)) {
+      this.unread(c4);
+      return this.malformed(3);
     }
+    return ((c1 & 0b00000111) << 18) | ((c2 & 0b00111111) << 12) | ((c3 & 0b00111111) << 6) | (c4 & 0b00111111);
   }
 
   @Override
@@ -150,36 +284,24 @@ public final class Utf8InputStreamReader extends Reader {
       skipped += 1L;
     }
     while (skipped < n) {
-      int c1 = this.in.read();
-      if (c1 == -1) {
+      int codePoint = this.readCodePointImpl();
+      if (codePoint == -1) {
         return skipped;
-      }
-      int byteLength = Utf8Utils.getByteLength(c1);
-      if (byteLength == 1 || byteLength > MAX_BYTE_LENGTH) {
-        // ASCII character, single byte
-        // or invalid input, skip single byte
-        // TODO for longer lengths skip the characters
+      } else if (Character.isBmpCodePoint(codePoint)) {
+        // BMP character, single Java char
         skipped += 1L;
       } else {
-        int codePoint = this.readMultiByteCharacter(c1, byteLength);
-        if (codePoint == -1) {
-          return skipped;
-        } else if (Character.isBmpCodePoint(codePoint)) {
-          // BMP character, single Java char
-          skipped += 1L;
+        // non-BMP character, two Java char
+        if ((n - skipped) >= 2) {
+          // we can skip both characters
+          skipped += 2;
         } else {
-          // non-BMP character, two Java char
-          if ((n - skipped) >= 2) {
-            // we can skip both characters
-            skipped += 2;
-          } else {
-            skipped += 1;
-            // we can skip only the high surrogate pair
-            this.hasPendingLowSurrogate = true;
-            this.lowSurrogate = Character.lowSurrogate(codePoint);
-            // we can abort
-            return skipped;
-          }
+          skipped += 1;
+          // we can skip only the high surrogate pair
+          this.hasPendingLowSurrogate = true;
+          this.lowSurrogate = Character.lowSurrogate(codePoint);
+          // we can abort
+          return skipped;
         }
       }
     }
@@ -214,9 +336,13 @@ public final class Utf8InputStreamReader extends Reader {
 
   private int readIntoHeapBuffer(CharBuffer target) throws IOException {
     char[] cbuf = target.array();
-    int off = target.arrayOffset();
+    int off = target.arrayOffset() + target.position();
     int len = target.remaining();
-    return this.read(cbuf, off, len);
+    int read = this.read(cbuf, off, len);
+    if (read > 0) {
+      target.position(target.position() + read);
+    }
+    return read;
   }
 
   private int readIntoDirectBuffer(CharBuffer target) throws IOException {
@@ -225,9 +351,14 @@ public final class Utf8InputStreamReader extends Reader {
     while (read < len) {
       int c = this.readIml();
       if (c == -1) {
-        return read;
+        if (read == 0) {
+          return -1;
+        } else {
+          return read;
+        }
       } else {
         target.put((char) c);
+        read += 1;
       }
     }
     return read;
@@ -0,0 +1,190 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Spliterator} of the lines in a range of UTF-8 bytes, usually a
+ * mapped file.
+ *
+ * <p>Splits happen after a {@code \n}, which in UTF-8 is never part of a
+ * multi-byte sequence, so every split decodes its lines independently. Lines
+ * end with {@code \n}, {@code \r\n} or {@code \r} like in
+ * {@link java.io.BufferedReader#readLine()}.
+ *
+ * <p>Bytes are copied chunk by chunk into a heap array in which line ends
+ * are searched eight bytes at a time. ASCII lines become compact strings with
+ * a single copy, other lines are decoded with {@link Utf8Codec}.
+ */
+final class Utf8LineSpliterator implements Spliterator<String> {
+
+  private static final byte LF = '\n';
+
+  private static final byte CR = '\r';
+
+  private static final int CHUNK_SIZE = 8192;
+
+  // don't split ranges smaller than this
+  static final int MIN_SPLIT_SIZE = 16 * 1024;
+
+  private final ByteBuffer buffer;
+
+  // position in #buffer of the first byte not yet copied into #chunk
+  private int position;
+
+  // end of the range in #buffer, exclusive
+  private int end;
+
+  private byte[] chunk;
+
+  // position in #chunk of the first byte of the next line
+  private int chunkPosition;
+
+  // number of valid bytes in #chunk
+  private int chunkEnd;
+
+  private char[] chars;
+
+  /**
+   * Constructs a new {@link Utf8LineSpliterator}.
+   *
+   * @param buffer the UTF-8 bytes, the position and limit are ignored, not {@code null}
+   * @param position the index of the first byte of the range
+   * @param end the index after the last byte of the range
+   */
+  Utf8LineSpliterator(ByteBuffer buffer, int position, int end) {
+    Objects.requireNonNull(buffer);
+    // every split needs its own position
+    this.buffer = buffer.duplicate();
+    this.position = position;
+    this.end = end;
+    this.chunk = new byte[CHUNK_SIZE];
+    this.chunkPosition = 0;
+    this.chunkEnd = 0;
+    this.chars = null;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super String> action) {
+    Objects.requireNonNull(action);
+    String line = this.readLine();
+    if (line == null) {
+      return false;
+    }
+    action.accept(line);
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super String> action) {
+    Objects.requireNonNull(action);
+    String line = this.readLine();
+    while (line != null) {
+      action.accept(line);
+      line = this.readLine();
+    }
+  }
+
+  private String readLine() {
+    while (true) {
+      int lineEnd = Utf8Utils.indexOf(this.chunk, this.chunkPosition, this.chunkEnd, CR, LF);
+      if (lineEnd != -1) {
+        int next = lineEnd + 1;
+        if (this.chunk[lineEnd] == CR) {
+          if ((next == this.chunkEnd) && (this.position < this.end)) {
+            // need the next byte to check for \r\n
+            this.fill();
+            continue;
+          }
+          if ((next < this.chunkEnd) && (this.chunk[next] == LF)) {
+            next += 1;
+          }
+        }
+        String line = this.decode(this.chunkPosition, lineEnd);
+        this.chunkPosition = next;
+        return line;
+      }
+      if (this.position == this.end) {
+        if (this.chunkPosition == this.chunkEnd) {
+          return null;
+        }
+        // last line without a line end
+        String line = this.decode(this.chunkPosition, this.chunkEnd);
+        this.chunkPosition = this.chunkEnd;
+        return line;
+      }
+      this.fill();
+    }
+  }
+
+  /**
+   * Copies the next bytes of the range into {@link #chunk}, after the ones
+   * that have not been consumed yet.
+   */
+  private void fill() {
+    int retained = this.chunkEnd - this.chunkPosition;
+    byte[] target = this.chunk;
+    if (retained == target.length) {
+      // a line longer than the chunk
+      target = new byte[target.length * 2];
+    }
+    System.arraycopy(this.chunk, this.chunkPosition, target, 0, retained);
+    this.chunk = target;
+    this.chunkPosition = 0;
+    int length = Math.min(this.chunk.length - retained, this.end - this.position);
+    this.buffer.position(this.position);
+    this.buffer.get(this.chunk, retained, length);
+    this.position += length;
+    this.chunkEnd = retained + length;
+  }
+
+  private String decode(int from, int to) {
+    int length = to - from;
+    if (Utf8Utils.isAscii(this.chunk, from, to)) {
+      // a compact string without decoding
+      return new String(this.chunk, from, length, ISO_8859_1);
+    }
+    if ((this.chars == null) || (this.chars.length < length)) {
+      // one char per byte is enough
+      this.chars = new char[Math.max(length, CHUNK_SIZE)];
+    }
+    long result = Utf8Codec.decode(this.chunk, from, length, this.chars, 0, length, true);
+    return new String(this.chars, 0, Utf8Codec.produced(result));
+  }
+
+  @Override
+  public Spliterator<String> trySplit() {
+    int remaining = this.end - this.position;
+    if ((remaining < MIN_SPLIT_SIZE) || (this.chunkPosition != this.chunkEnd)) {
+      // the prefix has to include the bytes in the chunk
+      return null;
+    }
+    // split after the first line feed after the middle
+    int lineFeed = this.position + (remaining / 2);
+    while ((lineFeed < this.end) && (this.buffer.get(lineFeed) != LF)) {
+      lineFeed += 1;
+    }
+    int split = lineFeed + 1;
+    if (split >= this.end) {
+      return null;
+    }
+    Utf8LineSpliterator prefix = new Utf8LineSpliterator(this.buffer, this.position, split);
+    this.position = split;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    return (this.end - this.position) + (this.chunkEnd - this.chunkPosition);
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | NONNULL;
+  }
+
+}
@@ -0,0 +1,46 @@
+package com.github.marschall.readers;
+
+import java.nio.charset.MalformedInputException;
+
+/**
+ * Thrown by a reader with {@link MalformedInputPolicy#REPORT} for malformed
+ * UTF-8 input.
+ *
+ * <p>{@link #getInputLength()} is the length of the maximal subpart, see
+ * {@link MalformedInputPolicy}.
+ */
+public final class Utf8MalformedInputException extends MalformedInputException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The offset in the stream of the first malformed byte.
+   */
+  private final long byteOffset;
+
+  /**
+   * Constructs a new {@link Utf8MalformedInputException}.
+   *
+   * @param inputLength the number of malformed bytes
+   * @param byteOffset the offset in the stream of the first malformed byte
+   */
+  public Utf8MalformedInputException(int inputLength, long byteOffset) {
+    super(inputLength);
+    this.byteOffset = byteOffset;
+  }
+
+  /**
+   * Returns the offset in the stream of the first malformed byte.
+   *
+   * @return the byte offset of the malformed input
+   */
+  public long getByteOffset() {
+    return this.byteOffset;
+  }
+
+  @Override
+  public String getMessage() {
+    return "malformed input of length " + this.getInputLength() + " at byte offset " + this.byteOffset;
+  }
+
+}
@@ -0,0 +1,206 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded canonicalization table that maps short UTF-8 byte sequences to
+ * {@link String}s.
+ *
+ * <p>Lookups are performed on the raw UTF-8 bytes before decoding. On a hit
+ * the cached {@link String} is returned without any allocation, on a miss the
+ * bytes are decoded and, depending on the {@link EvictionPolicy}, added to the
+ * table.
+ *
+ * <p>The table is direct mapped, every hash bucket holds at most one entry.
+ * Entries are immutable so the read path does not need any locking, concurrent
+ * updates to the same bucket may overwrite each other which only results in an
+ * additional miss.
+ *
+ * <p>Thread-safe.
+ *
+ * @see BufferedUtf8InputStreamReader#readToken(char, Utf8SymbolTable)
+ */
+public final class Utf8SymbolTable {
+
+  /**
+   * What happens when a new entry hashes to a bucket that is already occupied.
+   */
+  public enum EvictionPolicy {
+
+    /**
+     * The existing entry is replaced by the new entry.
+     */
+    REPLACE,
+
+    /**
+     * The existing entry is retained, the new value is not cached.
+     */
+    RETAIN;
+
+  }
+
+  private static final int DEFAULT_CAPACITY = 1024;
+
+  private static final int DEFAULT_MAX_TOKEN_LENGTH = 32;
+
+  private final Entry[] entries;
+
+  private final int mask;
+
+  private final int maxTokenLength;
+
+  private final EvictionPolicy evictionPolicy;
+
+  private final LongAdder hits;
+
+  private final LongAdder misses;
+
+  private final LongAdder evictions;
+
+  /**
+   * Constructs a new {@link Utf8SymbolTable} with a capacity of 1024 entries,
+   * a maximum token length of 32 bytes and {@link EvictionPolicy#REPLACE}.
+   */
+  public Utf8SymbolTable() {
+    this(DEFAULT_CAPACITY, DEFAULT_MAX_TOKEN_LENGTH, EvictionPolicy.REPLACE);
+  }
+
+  /**
+   * Constructs a new {@link Utf8SymbolTable}.
+   *
+   * @param capacity the maximum number of entries, rounded up to the next power of two
+   * @param maxTokenLength the maximum length in bytes of tokens that are cached,
+   *                       longer tokens are always decoded
+   * @param evictionPolicy what happens when a bucket is already occupied, not {@code null}
+   * @throws NullPointerException if evictionPolicy is {@code null}
+   * @throws IllegalArgumentException if capacity or maxTokenLength are not positive
+   *                                  or capacity is too large
+   */
+  public Utf8SymbolTable(int capacity, int maxTokenLength, EvictionPolicy evictionPolicy) {
+    Objects.requireNonNull(evictionPolicy);
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    if (capacity > (1 << 30)) {
+      throw new IllegalArgumentException("capacity too large");
+    }
+    if (maxTokenLength <= 0) {
+      throw new IllegalArgumentException("maximum token length must be positive");
+    }
+    int tableSize = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.entries = new Entry[tableSize];
+    this.mask = tableSize - 1;
+    this.maxTokenLength = maxTokenLength;
+    this.evictionPolicy = evictionPolicy;
+    this.hits = new LongAdder();
+    this.misses = new LongAdder();
+    this.evictions = new LongAdder();
+  }
+
+  /**
+   * Returns the canonical {@link String} for a range of UTF-8 bytes.
+   *
+   * @param bytes the array containing the UTF-8 bytes
+   * @param off the offset of the first byte
+   * @param len the number of bytes
+   * @return the decoded {@link String}, the cached instance if present
+   * @throws IndexOutOfBoundsException if off or len are out of bounds
+   */
+  public String lookup(byte[] bytes, int off, int len) {
+    Objects.checkFromIndexSize(off, len, bytes.length);
+    if (len == 0) {
+      return "";
+    }
+    if (len > this.maxTokenLength) {
+      return new String(bytes, off, len, UTF_8);
+    }
+    int hash = hash(bytes, off, len);
+    int index = hash & this.mask;
+    // racy read, safe because all fields of Entry are final
+    Entry entry = this.entries[index];
+    if ((entry != null) && entry.matches(hash, bytes, off, len)) {
+      this.hits.increment();
+      return entry.value;
+    }
+    this.misses.increment();
+    String value = new String(bytes, off, len, UTF_8);
+    if (entry == null) {
+      this.entries[index] = new Entry(hash, Arrays.copyOfRange(bytes, off, off + len), value);
+    } else if (this.evictionPolicy == EvictionPolicy.REPLACE) {
+      this.entries[index] = new Entry(hash, Arrays.copyOfRange(bytes, off, off + len), value);
+      this.evictions.increment();
+    }
+    return value;
+  }
+
+  private static int hash(byte[] bytes, int off, int len) {
+    int hash = len;
+    for (int i = off; i < off + len; i++) {
+      hash = (hash * 31) + bytes[i];
+    }
+    // spread the higher bits to the lower bits used for indexing
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Returns the maximum number of entries.
+   *
+   * @return the maximum number of entries
+   */
+  public int getCapacity() {
+    return this.entries.length;
+  }
+
+  /**
+   * Returns the number of lookups that returned a cached {@link String}.
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return this.hits.sum();
+  }
+
+  /**
+   * Returns the number of lookups of cacheable tokens that had to be decoded.
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return this.misses.sum();
+  }
+
+  /**
+   * Returns the number of entries that were replaced by a different entry.
+   *
+   * @return the number of evictions
+   */
+  public long getEvictions() {
+    return this.evictions.sum();
+  }
+
+  static final class Entry {
+
+    final int hash;
+
+    final byte[] bytes;
+
+    final String value;
+
+    Entry(int hash, byte[] bytes, String value) {
+      this.hash = hash;
+      this.bytes = bytes;
+      this.value = value;
+    }
+
+    boolean matches(int hash, byte[] b, int off, int len) {
+      return (this.hash == hash)
+          && Arrays.equals(this.bytes, 0, this.bytes.length, b, off, off + len);
+    }
+
+  }
+
+}
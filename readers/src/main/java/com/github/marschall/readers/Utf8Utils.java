@@ -1,19 +1,46 @@
 package com.github.marschall.readers;
 
-import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 
 final class Utf8Utils {
 
+  static final int MAX_BYTE_LENGTH = 4;
+
+  /**
+   * Unicode replacement character.
+   */
+  static final int REPLACEMENT = 0xFFFD;
+
+  /**
+   * Returned by {@link #decodeMultiByteCharacter(int, int, byte[], int)} for
+   * a malformed sequence.
+   */
+  static final int MALFORMED = -1;
+
+  static final VarHandle LONG_ACCESS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+  /**
+   * Little endian access so that the lowest byte of a word is the first byte in memory.
+   */
+  static final VarHandle LITTLE_ENDIAN_LONG_ACCESS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private static final long HIGH_BITS = 0b10000000_10000000_10000000_10000000_10000000_10000000_10000000_10000000L;
+
+  private static final long LOW_BITS = 0x01010101_01010101L;
+
   private Utf8Utils() {
     throw new AssertionError("not instantiable");
   }
 
-  static int getByteLength(byte b) throws IOException {
+  static int getByteLength(byte b) {
     int value = Byte.toUnsignedInt(b);
     return getByteLength(value);
   }
 
-  static int getByteLength(int i) throws IOException {
+  static int getByteLength(int i) {
     if ((i & 0b1000_0000) == 0) {
       return 1;
     } else {
@@ -26,6 +53,13 @@ final class Utf8Utils {
     return (c1 >= 0xC2 & c1 <= 0xDF) & ((c2 & 0b11000000) == 0b10000000);
   }
   
+  /**
+   * Checks for the two byte encoding of U+0000 used by Modified UTF-8.
+   */
+  static boolean isModifiedNul(int c1, int c2) {
+    return (c1 == 0xC0) & (c2 == 0x80);
+  }
+
   static boolean isValidThreeByteSequence(int c1, int c2, int c3) {
 //    return ((c1 == 0xE0 & c2 >= 0xA0 & c2 <= 0xBF)
 //        | (c1 >= 0xE1 & c1 <= 0xEF & c2 >= 0x80 & c2 <= 0xBF))
@@ -35,6 +69,14 @@ final class Utf8Utils {
         & ((c3 & 0b11000000) == 0b10000000);
   }
   
+  /**
+   * Checks whether a three byte sequence encodes a surrogate, which is not
+   * valid in UTF-8 but is in Modified UTF-8.
+   */
+  static boolean isSurrogateSequence(int c1, int c2) {
+    return (c1 == 0xED) & (c2 >= 0xA0);
+  }
+
   static boolean isValidFourByteSequence(int c1, int c2, int c3, int c4) {
 //    return ((c1 == 0xF0 & c2 >= 0x90 & c2 <= 0xBF)
 //        | (c1 >= 0xF1 & c1 <= 0xF3 & c2 >= 0x80 & c2 <= 0xBF)
@@ -48,4 +90,447 @@ final class Utf8Utils {
         & ((c4 & 0b11000000) == 0b10000000);
   }
 
+  static boolean isAsciiRange(byte[] src, int srcPos) {
+    long l = (long) LONG_ACCESS.get(src, srcPos);
+    return (l & HIGH_BITS) == 0L;
+  }
+
+  /**
+   * Checks whether a range of bytes is all ASCII, eight bytes at a time.
+   */
+  static boolean isAscii(byte[] src, int from, int to) {
+    int i = from;
+    long bits = 0L;
+    while ((to - i) >= 8) {
+      bits |= (long) LONG_ACCESS.get(src, i);
+      i += 8;
+    }
+    while (i < to) {
+      bits |= src[i] & 0xFF;
+      i += 1;
+    }
+    return (bits & HIGH_BITS) == 0L;
+  }
+
+  /**
+   * Searches a range of bytes for the first byte that is not ASCII, eight
+   * bytes at a time.
+   *
+   * @return the index of the first non-ASCII byte, {@code to} if all bytes are ASCII
+   */
+  static int indexOfNonAscii(byte[] src, int from, int to) {
+    int i = from;
+    while ((to - i) >= 8) {
+      long high = (long) LITTLE_ENDIAN_LONG_ACCESS.get(src, i) & HIGH_BITS;
+      if (high != 0L) {
+        return i + firstMatch(high);
+      }
+      i += 8;
+    }
+    while ((i < to) && (src[i] >= 0)) {
+      i += 1;
+    }
+    return i;
+  }
+
+  /**
+   * Checks whether a range of bytes is valid UTF-8.
+   *
+   * <p>A sequence that is cut off at the end of the range is valid if the
+   * bytes that are present are valid.
+   */
+  static boolean isValid(byte[] src, int from, int to) {
+    int i = from;
+    while (i < to) {
+      if (((to - i) >= 8) && isAsciiRange(src, i)) {
+        i += 8;
+        continue;
+      }
+      int c1 = Byte.toUnsignedInt(src[i]);
+      if (c1 < 0x80) {
+        i += 1;
+        continue;
+      }
+      int byteLength = getByteLength(c1);
+      if ((byteLength == 1) || (byteLength > MAX_BYTE_LENGTH) || (c1 < 0xC2) || (c1 > 0xF4)) {
+        // continuation byte, overlong two byte sequence or out of range
+        return false;
+      }
+      if ((i + byteLength) > to) {
+        // cut off, the bytes that are present have to be the start of a valid sequence
+        return isIncomplete(src, i, to);
+      }
+      boolean valid;
+      switch (byteLength) {
+        case 2:
+          valid = isValidTwoByteSequence(c1, Byte.toUnsignedInt(src[i + 1]));
+          break;
+        case 3: {
+          int c2 = Byte.toUnsignedInt(src[i + 1]);
+          valid = isValidThreeByteSequence(c1, c2, Byte.toUnsignedInt(src[i + 2])) && !isSurrogateSequence(c1, c2);
+          break;
+        }
+        default:
+          valid = isValidFourByteSequence(c1, Byte.toUnsignedInt(src[i + 1]), Byte.toUnsignedInt(src[i + 2]), Byte.toUnsignedInt(src[i + 3]));
+          break;
+      }
+      if (!valid) {
+        return false;
+      }
+      i += byteLength;
+    }
+    return true;
+  }
+
+  /**
+   * Searches a range of complete UTF-8 input for the first malformed
+   * sequence, a sequence that is cut off at the end of the range is
+   * malformed.
+   *
+   * @return the index of the first malformed sequence, -1 if the range is valid
+   */
+  static int indexOfMalformed(byte[] src, int from, int to) {
+    int i = from;
+    while (i < to) {
+      if (((to - i) >= 8) && isAsciiRange(src, i)) {
+        i += 8;
+        continue;
+      }
+      int c1 = Byte.toUnsignedInt(src[i]);
+      if (c1 < 0x80) {
+        i += 1;
+        continue;
+      }
+      int byteLength = getByteLength(c1);
+      if ((byteLength < 2) || (byteLength > MAX_BYTE_LENGTH) || ((i + byteLength) > to)
+          || (decodeMultiByteCharacter(c1, byteLength, src, i + 1) == MALFORMED)) {
+        return i;
+      }
+      i += byteLength;
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the length of the maximal subpart of the sequence starting at
+   * {@code pos}, the longest prefix that is a complete sequence or the start
+   * of a valid sequence, but at least one byte.
+   *
+   * <p>A malformed sequence is replaced with one U+FFFD per maximal subpart,
+   * this gives the same result as {@link String#String(byte[], java.nio.charset.Charset)}.
+   * Like in the JDK a three byte sequence that encodes a surrogate is a single
+   * maximal subpart.
+   *
+   * @param end the end of the available bytes, greater than {@code pos}
+   */
+  static int maximalSubpart(byte[] src, int pos, int end) {
+    int c1 = Byte.toUnsignedInt(src[pos]);
+    if ((c1 < 0xC2) || (c1 > 0xF4) || ((pos + 1) == end)) {
+      // continuation byte, overlong two byte sequence, out of range or cut off
+      return 1;
+    }
+    if (!isValidSecondByte(c1, Byte.toUnsignedInt(src[pos + 1]))) {
+      return 1;
+    }
+    if ((c1 < 0xE0) || ((pos + 2) == end) || !isContinuation(Byte.toUnsignedInt(src[pos + 2]))) {
+      return 2;
+    }
+    if ((c1 < 0xF0) || ((pos + 3) == end) || !isContinuation(Byte.toUnsignedInt(src[pos + 3]))) {
+      return 3;
+    }
+    return 4;
+  }
+
+  /**
+   * Checks whether the second byte of a sequence is valid for a lead byte
+   * between 0xC2 and 0xF4.
+   *
+   * @param c2 the second byte, -1 at the end of the input
+   */
+  static boolean isValidSecondByte(int c1, int c2) {
+    switch (c1) {
+      case 0xE0:
+        // overlong
+        return (c2 >= 0xA0) & (c2 <= 0xBF);
+      case 0xF0:
+        // overlong
+        return (c2 >= 0x90) & (c2 <= 0xBF);
+      case 0xF4:
+        // above U+10FFFF
+        return (c2 >= 0x80) & (c2 <= 0x8F);
+      default:
+        return isContinuation(c2);
+    }
+  }
+
+  /**
+   * Checks for a continuation byte, {@code 10xxxxxx}.
+   *
+   * @param c the byte, -1 at the end of the input
+   */
+  static boolean isContinuation(int c) {
+    return (c & 0b11000000) == 0b10000000;
+  }
+
+  /**
+   * Checks whether the bytes from {@code pos} to {@code end} are the start of
+   * a valid sequence that is cut off, so that more input is needed to decode
+   * it.
+   */
+  static boolean isIncomplete(byte[] src, int pos, int end) {
+    int c1 = Byte.toUnsignedInt(src[pos]);
+    int available = end - pos;
+    return (c1 >= 0xC2) && (c1 <= 0xF4)
+        && (getByteLength(c1) > available)
+        && (maximalSubpart(src, pos, end) == available);
+  }
+
+  static void copy8(byte[] src, int srcPos, char[] dst, int destPos) {
+    dst[destPos] = (char) src[srcPos];
+    dst[destPos + 1] = (char) src[srcPos + 1];
+    dst[destPos + 2] = (char) src[srcPos + 2];
+    dst[destPos + 3] = (char) src[srcPos + 3];
+    dst[destPos + 4] = (char) src[srcPos + 4];
+    dst[destPos + 5] = (char) src[srcPos + 5];
+    dst[destPos + 6] = (char) src[srcPos + 6];
+    dst[destPos + 7] = (char) src[srcPos + 7];
+  }
+
+  static void copy8(byte[] src, int srcPos, int[] dst, int destPos) {
+    dst[destPos] = src[srcPos];
+    dst[destPos + 1] = src[srcPos + 1];
+    dst[destPos + 2] = src[srcPos + 2];
+    dst[destPos + 3] = src[srcPos + 3];
+    dst[destPos + 4] = src[srcPos + 4];
+    dst[destPos + 5] = src[srcPos + 5];
+    dst[destPos + 6] = src[srcPos + 6];
+    dst[destPos + 7] = src[srcPos + 7];
+  }
+
+  /**
+   * Returns a word with every byte set to the given byte.
+   */
+  static long broadcast(byte b) {
+    return Byte.toUnsignedLong(b) * LOW_BITS;
+  }
+
+  /**
+   * Returns a word with the high bit set in the bytes of {@code word} that are
+   * equal to the bytes in {@code pattern}.
+   *
+   * <p>Only the lowest set bit is exact, bytes above a matching byte may have
+   * their high bit set as well because of borrow propagation.
+   */
+  static long matches(long word, long pattern) {
+    long x = word ^ pattern;
+    return (x - LOW_BITS) & ~x & HIGH_BITS;
+  }
+
+  /**
+   * Returns the index of the lowest matching byte of a little endian match word.
+   */
+  static int firstMatch(long matches) {
+    return Long.numberOfTrailingZeros(matches) >>> 3;
+  }
+
+  /**
+   * Searches a range of bytes for the first occurrence of either of two bytes.
+   *
+   * @return the index of the first occurrence, -1 if not found
+   */
+  static int indexOf(byte[] src, int from, int to, byte b1, byte b2) {
+    long pattern1 = broadcast(b1);
+    long pattern2 = broadcast(b2);
+    int i = from;
+    while ((to - i) >= 8) {
+      long word = (long) LITTLE_ENDIAN_LONG_ACCESS.get(src, i);
+      long matches = matches(word, pattern1) | matches(word, pattern2);
+      if (matches != 0L) {
+        return i + firstMatch(matches);
+      }
+      i += 8;
+    }
+    while (i < to) {
+      byte b = src[i];
+      if (b == b1 || b == b2) {
+        return i;
+      }
+      i += 1;
+    }
+    return -1;
+  }
+
+  /**
+   * Searches a range of bytes for the first occurrence of a byte sequence.
+   *
+   * <p>Candidate positions are found eight at a time by matching the first
+   * and the last byte of the needle, only candidates are compared fully.
+   *
+   * @param needle the bytes to search for, not empty
+   * @return the index of the first occurrence, -1 if not found
+   */
+  static int indexOf(byte[] src, int from, int to, byte[] needle) {
+    int last = needle.length - 1;
+    long firstPattern = broadcast(needle[0]);
+    long lastPattern = broadcast(needle[last]);
+    int i = from;
+    while ((to - i - last) >= 8) {
+      long firstWord = (long) LITTLE_ENDIAN_LONG_ACCESS.get(src, i);
+      long lastWord = (long) LITTLE_ENDIAN_LONG_ACCESS.get(src, i + last);
+      // may contain false positives but no false negatives
+      long candidates = matches(firstWord, firstPattern) & matches(lastWord, lastPattern);
+      while (candidates != 0L) {
+        int candidate = i + firstMatch(candidates);
+        if (regionMatches(src, candidate, needle)) {
+          return candidate;
+        }
+        candidates &= candidates - 1L;
+      }
+      i += 8;
+    }
+    while ((to - i) > last) {
+      if ((src[i] == needle[0]) && regionMatches(src, i, needle)) {
+        return i;
+      }
+      i += 1;
+    }
+    return -1;
+  }
+
+  private static boolean regionMatches(byte[] src, int from, byte[] needle) {
+    return Arrays.equals(src, from, from + needle.length, needle, 0, needle.length);
+  }
+
+  /**
+   * Returns a word with the high bit set in exactly the bytes of {@code word}
+   * that are equal to the bytes in {@code pattern}.
+   *
+   * <p>Unlike {@link #matches(long, long)} there is no borrow propagation so
+   * the result can be counted.
+   */
+  static long exactMatches(long word, long pattern) {
+    long x = word ^ pattern;
+    long nonZero = ((x & ~HIGH_BITS) + ~HIGH_BITS) | x;
+    return ~nonZero & HIGH_BITS;
+  }
+
+  /**
+   * Counts the occurrences of a byte in a range of bytes.
+   */
+  static int count(byte[] src, int from, int to, byte b) {
+    long pattern = broadcast(b);
+    int count = 0;
+    int i = from;
+    while ((to - i) >= 8) {
+      long word = (long) LITTLE_ENDIAN_LONG_ACCESS.get(src, i);
+      count += Long.bitCount(exactMatches(word, pattern));
+      i += 8;
+    }
+    while (i < to) {
+      if (src[i] == b) {
+        count += 1;
+      }
+      i += 1;
+    }
+    return count;
+  }
+
+  /**
+   * Searches a range of bytes for the last occurrence of a byte.
+   *
+   * @return the index of the last occurrence, -1 if not found
+   */
+  static int lastIndexOf(byte[] src, int from, int to, byte b) {
+    long pattern = broadcast(b);
+    int i = to;
+    while ((i - from) >= 8) {
+      i -= 8;
+      long word = (long) LITTLE_ENDIAN_LONG_ACCESS.get(src, i);
+      long matches = exactMatches(word, pattern);
+      if (matches != 0L) {
+        return i + ((63 - Long.numberOfLeadingZeros(matches)) >>> 3);
+      }
+    }
+    while (i > from) {
+      i -= 1;
+      if (src[i] == b) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Counts the number of UTF-16 chars a range of UTF-8 bytes decodes to.
+   *
+   * <p>Every byte that is not a continuation byte starts a char, every lead
+   * byte of a four byte sequence starts two chars. The result is exact for
+   * valid input that does not start or end in the middle of a sequence.
+   */
+  static int countChars(byte[] src, int from, int to) {
+    int count = 0;
+    int i = from;
+    while ((to - i) >= 8) {
+      long word = (long) LITTLE_ENDIAN_LONG_ACCESS.get(src, i);
+      // continuation bytes are 10xxxxxx
+      long continuation = word & ~(word << 1) & HIGH_BITS;
+      // four byte sequence lead bytes are 11110xxx
+      long fourByteLead = word & (word << 1) & (word << 2) & (word << 3) & HIGH_BITS;
+      count += 8 - Long.bitCount(continuation) + Long.bitCount(fourByteLead);
+      i += 8;
+    }
+    while (i < to) {
+      int b = src[i] & 0xFF;
+      if ((b & 0xC0) != 0x80) {
+        count += b >= 0xF0 ? 2 : 1;
+      }
+      i += 1;
+    }
+    return count;
+  }
+
+  /**
+   * Decodes a multi-byte sequence whose bytes are all available.
+   *
+   * @param c1 the lead byte
+   * @param byteLength the length of the sequence, between 2 and 4
+   * @param src the array containing the continuation bytes
+   * @param srcPos the index of the first continuation byte
+   * @return the code point or {@link #MALFORMED} if the sequence is invalid
+   */
+  static int decodeMultiByteCharacter(int c1, int byteLength, byte[] src, int srcPos) {
+    // https://unicode.org/versions/corrigendum1.html
+    switch (byteLength) {
+      case 2: {
+        int c2 = Byte.toUnsignedInt(src[srcPos]);
+        if (isValidTwoByteSequence(c1, c2)) {
+          return ((c1 & 0b00011111) << 6) | (c2 & 0b00111111);
+        } else {
+          return MALFORMED;
+        }
+      }
+      case 3: {
+        int c2 = Byte.toUnsignedInt(src[srcPos]);
+        int c3 = Byte.toUnsignedInt(src[srcPos + 1]);
+        if (isValidThreeByteSequence(c1, c2, c3) && !isSurrogateSequence(c1, c2)) {
+          return ((c1 & 0b00001111) << 12) | ((c2 & 0b00111111) << 6) | (c3 & 0b00111111);
+        } else {
+          return MALFORMED;
+        }
+      }
+      case 4: {
+        int c2 = Byte.toUnsignedInt(src[srcPos]);
+        int c3 = Byte.toUnsignedInt(src[srcPos + 1]);
+        int c4 = Byte.toUnsignedInt(src[srcPos + 2]);
+        if (isValidFourByteSequence(c1, c2, c3, c4)) {
+          return ((c1 & 0b00000111) << 18) | ((c2 & 0b00111111) << 12) | ((c3 & 0b00111111) << 6) | (c4 & 0b00111111);
+        } else {
+          return MALFORMED;
+        }
+      }
+      default:
+        return MALFORMED;
+    }
+  }
+
 }
@@ -0,0 +1,200 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Verifies that the readers do not allocate in steady state.
+ */
+class AllocationTests {
+
+  private static final int WARMUP_ROUNDS = 20_000;
+
+  private static final int MEASUREMENT_ROUNDS = 1_000;
+
+  private static final byte[] INPUT = "ASCII only text, followed by ¢ह€한𐍈 and more ASCII text\n".repeat(16).getBytes(UTF_8);
+
+  private static ThreadMXBean threadMXBean;
+
+  private static long measurementOverhead;
+
+  @BeforeAll
+  static void setUp() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof ThreadMXBean);
+    threadMXBean = (ThreadMXBean) bean;
+    assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    // warm up and calibrate the measurement itself
+    long overhead = Long.MAX_VALUE;
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      long before = allocatedBytes();
+      long after = allocatedBytes();
+      overhead = Math.min(overhead, after - before);
+    }
+    measurementOverhead = overhead;
+  }
+
+  private static long allocatedBytes() {
+    return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  @ParameterizedTest
+  @MethodSource("readers")
+  void readSingleChar(Function<ByteArrayInputStream, Reader> factory) throws IOException {
+    ByteArrayInputStream in = new ByteArrayInputStream(INPUT);
+    try (Reader reader = factory.apply(in)) {
+      for (int i = 0; i < WARMUP_ROUNDS; i++) {
+        readSingleChar(reader, in);
+      }
+      long before = allocatedBytes();
+      for (int i = 0; i < MEASUREMENT_ROUNDS; i++) {
+        readSingleChar(reader, in);
+      }
+      assertNoAllocation(before);
+    }
+  }
+
+  private static void readSingleChar(Reader reader, ByteArrayInputStream in) throws IOException {
+    in.reset();
+    while (reader.read() != -1) {
+      // drain
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("readers")
+  void readCharArray(Function<ByteArrayInputStream, Reader> factory) throws IOException {
+    ByteArrayInputStream in = new ByteArrayInputStream(INPUT);
+    char[] buffer = new char[64];
+    try (Reader reader = factory.apply(in)) {
+      for (int i = 0; i < WARMUP_ROUNDS; i++) {
+        readCharArray(reader, in, buffer);
+      }
+      long before = allocatedBytes();
+      for (int i = 0; i < MEASUREMENT_ROUNDS; i++) {
+        readCharArray(reader, in, buffer);
+      }
+      assertNoAllocation(before);
+    }
+  }
+
+  private static void readCharArray(Reader reader, ByteArrayInputStream in, char[] buffer) throws IOException {
+    in.reset();
+    while (reader.read(buffer, 0, buffer.length) != -1) {
+      // drain
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("readers")
+  void readHeapCharBuffer(Function<ByteArrayInputStream, Reader> factory) throws IOException {
+    readCharBuffer(factory, CharBuffer.allocate(64));
+  }
+
+  @ParameterizedTest
+  @MethodSource("readers")
+  void readDirectCharBuffer(Function<ByteArrayInputStream, Reader> factory) throws IOException {
+    readCharBuffer(factory, ByteBuffer.allocateDirect(128).asCharBuffer());
+  }
+
+  private static void readCharBuffer(Function<ByteArrayInputStream, Reader> factory, CharBuffer buffer) throws IOException {
+    ByteArrayInputStream in = new ByteArrayInputStream(INPUT);
+    try (Reader reader = factory.apply(in)) {
+      for (int i = 0; i < WARMUP_ROUNDS; i++) {
+        readCharBuffer(reader, in, buffer);
+      }
+      long before = allocatedBytes();
+      for (int i = 0; i < MEASUREMENT_ROUNDS; i++) {
+        readCharBuffer(reader, in, buffer);
+      }
+      assertNoAllocation(before);
+    }
+  }
+
+  private static void readCharBuffer(Reader reader, ByteArrayInputStream in, CharBuffer buffer) throws IOException {
+    in.reset();
+    buffer.clear();
+    while (reader.read(buffer) != -1) {
+      buffer.clear();
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("readers")
+  void skip(Function<ByteArrayInputStream, Reader> factory) throws IOException {
+    ByteArrayInputStream in = new ByteArrayInputStream(INPUT);
+    try (Reader reader = factory.apply(in)) {
+      for (int i = 0; i < WARMUP_ROUNDS; i++) {
+        skip(reader, in);
+      }
+      long before = allocatedBytes();
+      for (int i = 0; i < MEASUREMENT_ROUNDS; i++) {
+        skip(reader, in);
+      }
+      assertNoAllocation(before);
+    }
+  }
+
+  private static void skip(Reader reader, ByteArrayInputStream in) throws IOException {
+    in.reset();
+    while (reader.skip(64L) > 0L) {
+      // drain
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("readers")
+  void transferTo(Function<ByteArrayInputStream, Reader> factory) throws IOException {
+    ByteArrayInputStream in = new ByteArrayInputStream(INPUT);
+    Writer writer = Writer.nullWriter();
+    try (Reader reader = factory.apply(in)) {
+      for (int i = 0; i < WARMUP_ROUNDS; i++) {
+        transferTo(reader, in, writer);
+      }
+      long before = allocatedBytes();
+      for (int i = 0; i < MEASUREMENT_ROUNDS; i++) {
+        transferTo(reader, in, writer);
+      }
+      assertNoAllocation(before);
+    }
+  }
+
+  private static void transferTo(Reader reader, ByteArrayInputStream in, Writer writer) throws IOException {
+    in.reset();
+    reader.transferTo(writer);
+  }
+
+  private static void assertNoAllocation(long before) {
+    long after = allocatedBytes();
+    assertEquals(0L, after - before - measurementOverhead, "allocated bytes");
+  }
+
+  private static List<Function<ByteArrayInputStream, Reader>> readers() {
+    return List.of(
+        in -> new BufferedUtf8InputStreamReader(in, 128),
+        // the limits are checked but never exceeded
+        in -> BufferedUtf8InputStreamReader.builder(in).bufferSize(128)
+                .maxBytes(Long.MAX_VALUE - 1L).maxChars(Long.MAX_VALUE - 1L).maxLineLength(1024L).build(),
+        Utf8InputStreamReader::new
+        );
+  }
+
+}
@@ -0,0 +1,111 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_16BE;
+import static java.nio.charset.StandardCharsets.UTF_16LE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class AutoDetectingReaderTests {
+
+  private static final String TEXT = "Grüße, the quick brown fox jumps over the lazy dog";
+
+  @Test
+  void invalidBufferSize() {
+    assertThrows(IllegalArgumentException.class, () -> new AutoDetectingReader(new ByteArrayInputStream(new byte[0]), 3));
+  }
+
+  @Test
+  void empty() throws IOException {
+    assertDetected(new byte[0], 16, UTF_8, "");
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {4, 5, 7, 16, 8192})
+  void utf8(int bufferSize) throws IOException {
+    assertDetected("a€𐍈ü".repeat(8).getBytes(UTF_8), bufferSize, UTF_8, "a€𐍈ü".repeat(8));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {4, 5, 16, 8192})
+  void utf8Bom(int bufferSize) throws IOException {
+    assertDetected(withBom(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, TEXT, UTF_8), bufferSize, UTF_8, TEXT);
+  }
+
+  @Test
+  void bomOnly() throws IOException {
+    assertDetected(new byte[] {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, 16, UTF_8, "");
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {4, 5, 16, 8192})
+  void utf16LeBom(int bufferSize) throws IOException {
+    assertDetected(withBom(new byte[] {(byte) 0xFF, (byte) 0xFE}, TEXT, UTF_16LE), bufferSize, UTF_16LE, TEXT);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {4, 5, 16, 8192})
+  void utf16BeBom(int bufferSize) throws IOException {
+    assertDetected(withBom(new byte[] {(byte) 0xFE, (byte) 0xFF}, TEXT, UTF_16BE), bufferSize, UTF_16BE, TEXT);
+  }
+
+  @Test
+  void utf16LeWithoutBom() throws IOException {
+    assertDetected(TEXT.getBytes(UTF_16LE), 8192, UTF_16LE, TEXT);
+  }
+
+  @Test
+  void utf16BeWithoutBom() throws IOException {
+    assertDetected(TEXT.getBytes(UTF_16BE), 8192, UTF_16BE, TEXT);
+  }
+
+  @Test
+  void utf16OddByte() throws IOException {
+    byte[] input = {'a', 0, 'b', 0, 'c'};
+    assertDetected(input, 8192, UTF_16LE, "ab�");
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {4, 16, 8192})
+  void latin1(int bufferSize) throws IOException {
+    assertDetected(TEXT.getBytes(ISO_8859_1), bufferSize, ISO_8859_1, TEXT);
+  }
+
+  @Test
+  void skip() throws IOException {
+    try (Reader reader = new AutoDetectingReader(new ByteArrayInputStream(TEXT.getBytes(ISO_8859_1)), 4)) {
+      assertEquals(4L, reader.skip(4L));
+      assertEquals('e', reader.read());
+    }
+  }
+
+  private static byte[] withBom(byte[] bom, String s, Charset charset) {
+    byte[] text = s.getBytes(charset);
+    byte[] input = new byte[bom.length + text.length];
+    System.arraycopy(bom, 0, input, 0, bom.length);
+    System.arraycopy(text, 0, input, bom.length, text.length);
+    return input;
+  }
+
+  private static void assertDetected(byte[] input, int bufferSize, Charset expectedCharset, String expected) throws IOException {
+    try (AutoDetectingReader reader = new AutoDetectingReader(new ByteArrayInputStream(input), bufferSize)) {
+      assertEquals(expectedCharset, reader.getCharset());
+      StringWriter writer = new StringWriter();
+      reader.transferTo(writer);
+      assertEquals(expected, writer.toString());
+      assertEquals(-1, reader.read());
+    }
+  }
+
+}
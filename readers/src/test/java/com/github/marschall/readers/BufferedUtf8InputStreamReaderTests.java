@@ -0,0 +1,396 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BufferedUtf8InputStreamReaderTests {
+
+  @Test
+  void invalidBufferSizes() {
+    InputStream in = new ByteArrayInputStream(new byte[0]);
+    assertThrows(IllegalArgumentException.class, () -> new BufferedUtf8InputStreamReader(in, 3));
+    assertThrows(IllegalArgumentException.class, () -> new BufferedUtf8InputStreamReader(in, 16, 8));
+  }
+
+  @Test
+  void fixedBufferSize() throws IOException {
+    try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(new byte[1024]), 16)) {
+      assertEquals(16, reader.getBufferSize());
+      char[] buffer = new char[64];
+      while (reader.read(buffer) != -1) {
+        // drain
+      }
+      assertEquals(16, reader.getBufferSize());
+    }
+  }
+
+  @Test
+  void adaptiveGrowsToMaximum() throws IOException {
+    String input = "aä€𐍈".repeat(1000);
+    try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(input.getBytes(UTF_8)), 16, 256)) {
+      assertEquals(16, reader.getBufferSize());
+      StringWriter writer = new StringWriter();
+      reader.transferTo(writer);
+      assertEquals(input.length(), writer.toString().length());
+      assertEquals(input, writer.toString());
+      assertEquals(256, reader.getBufferSize());
+    }
+  }
+
+  @Test
+  void adaptiveShrinks() throws IOException {
+    // a stream that first returns full reads, then at most one byte per read
+    InputStream in = new ByteArrayInputStream(new byte[4096]) {
+
+      @Override
+      public synchronized int read(byte[] b, int off, int len) {
+        if (this.pos < 2048) {
+          return super.read(b, off, len);
+        }
+        return super.read(b, off, Math.min(len, 1));
+      }
+
+      @Override
+      public synchronized int available() {
+        return 0;
+      }
+
+    };
+    try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(in, 16, 256)) {
+      char[] buffer = new char[8];
+      while (reader.getBufferSize() < 256) {
+        assertEquals(8, reader.read(buffer));
+      }
+      while (reader.read(buffer) != -1) {
+        // drain
+      }
+      assertEquals(16, reader.getBufferSize());
+    }
+  }
+
+  @Test
+  void adaptiveShortReads() throws IOException {
+    String input = "€AA€".repeat(100);
+    int[] readSizes = {1, 1, 7};
+    try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ShortReadInputStream(input.getBytes(UTF_8), readSizes), 4, 64)) {
+      StringBuilder builder = new StringBuilder();
+      int c = reader.read();
+      while (c != -1) {
+        builder.append((char) c);
+        c = reader.read();
+      }
+      assertEquals(input, builder.toString());
+    }
+    try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ShortReadInputStream(input.getBytes(UTF_8), readSizes), 4, 64)) {
+      StringBuilder builder = new StringBuilder();
+      char[] buffer = new char[7];
+      int read = reader.read(buffer);
+      while (read != -1) {
+        builder.append(buffer, 0, read);
+        read = reader.read(buffer);
+      }
+      assertEquals(input, builder.toString());
+    }
+    try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ShortReadInputStream(input.getBytes(UTF_8), readSizes), 4, 64)) {
+      StringWriter writer = new StringWriter();
+      reader.transferTo(writer);
+      assertEquals(input, writer.toString());
+    }
+  }
+
+  @Test
+  void markReset() throws IOException {
+    String input = "aä€𐍈".repeat(100);
+    try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(input.getBytes(UTF_8)), 8)) {
+      assertTrue(reader.markSupported());
+      assertEquals('a', reader.read());
+      reader.mark(input.length());
+      char[] first = new char[input.length() - 1];
+      assertEquals(first.length, readFully(reader, first));
+      reader.reset();
+      char[] second = new char[input.length() - 1];
+      assertEquals(second.length, readFully(reader, second));
+      assertArrayEquals(first, second);
+      assertEquals(input.substring(1), new String(second));
+      assertEquals(-1, reader.read());
+    }
+  }
+
+  @Test
+  void markResetPendingLowSurrogate() throws IOException {
+    String input = "𐍈a";
+    try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(input.getBytes(UTF_8)), 4)) {
+      assertEquals(input.charAt(0), reader.read());
+      reader.mark(2);
+      assertEquals(input.charAt(1), reader.read());
+      assertEquals('a', reader.read());
+      reader.reset();
+      assertEquals(input.charAt(1), reader.read());
+      assertEquals('a', reader.read());
+      assertEquals(-1, reader.read());
+    }
+  }
+
+  @Test
+  void markInvalidated() throws IOException {
+    try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(new byte[64]), 4)) {
+      assertThrows(IOException.class, reader::reset);
+      reader.mark(1);
+      char[] buffer = new char[64];
+      assertEquals(64, readFully(reader, buffer));
+      assertThrows(IOException.class, reader::reset);
+      assertThrows(IllegalArgumentException.class, () -> reader.mark(-1));
+    }
+  }
+
+  @Test
+  void readToken() throws IOException {
+    String input = "GET,200,eu-west-1\nGET,404,ä€𐍈\n,";
+    Utf8SymbolTable symbolTable = new Utf8SymbolTable();
+    try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(input.getBytes(UTF_8)), 4)) {
+      String get = reader.readToken(',', symbolTable);
+      assertEquals("GET", get);
+      assertEquals("200", reader.readToken(',', symbolTable));
+      assertEquals("eu-west-1", reader.readToken('\n', symbolTable));
+      assertSame(get, reader.readToken(',', symbolTable));
+      assertEquals("404", reader.readToken(',', null));
+      assertEquals("ä€𐍈", reader.readToken('\n', symbolTable));
+      assertEquals("", reader.readToken(',', symbolTable));
+      assertNull(reader.readToken(',', symbolTable));
+    }
+    assertEquals(1L, symbolTable.getHits());
+    assertEquals(4L, symbolTable.getMisses());
+  }
+
+  @Test
+  void readLineContaining() throws IOException {
+    String input = "INFO start\r\nERROR disk ä\nINFO ERR\n\nWARN € low\r\nINFO 𐍈 ERROR\nERROR";
+    for (int bufferSize : new int[] {4, 7, 8192}) {
+      try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(input.getBytes(UTF_8)), bufferSize)) {
+        byte[] error = "ERROR".getBytes(UTF_8);
+        assertEquals("ERROR disk ä", reader.readLineContaining(error));
+        assertEquals("WARN € low", reader.readLineContaining("€".getBytes(UTF_8)));
+        assertEquals("INFO 𐍈 ERROR", reader.readLineContaining(error));
+        assertEquals("ERROR", reader.readLineContaining(error));
+        assertNull(reader.readLineContaining(error));
+      }
+      try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(input.getBytes(UTF_8)), bufferSize)) {
+        assertNull(reader.readLineContaining("FATAL".getBytes(UTF_8)));
+        assertEquals(-1, reader.read());
+      }
+      try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(input.getBytes(UTF_8)), bufferSize)) {
+        // the rest of a partially read line
+        assertEquals('I', reader.read());
+        assertEquals("NFO start", reader.readLineContaining("start".getBytes(UTF_8)));
+        assertEquals('E', reader.read());
+      }
+    }
+    try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(new byte[0]))) {
+      assertThrows(IllegalArgumentException.class, () -> reader.readLineContaining(new byte[0]));
+      assertThrows(IllegalArgumentException.class, () -> reader.readLineContaining("a\nb".getBytes(UTF_8)));
+    }
+  }
+
+  @Test
+  void readLineContainingRandom() throws IOException {
+    Random random = new Random(42L);
+    String[] words = {"ERROR", "ERR", "OR", "a", "ä", "€", "𐍈", " ", "\n", "\r\n"};
+    byte[] needle = "ERROR".getBytes(UTF_8);
+    for (int i = 0; i < 200; i++) {
+      StringBuilder buffer = new StringBuilder();
+      int length = random.nextInt(200);
+      for (int j = 0; j < length; j++) {
+        buffer.append(words[random.nextInt(words.length)]);
+      }
+      String input = buffer.toString();
+      List<String> expected = new ArrayList<>();
+      try (BufferedReader reader = new BufferedReader(new StringReader(input))) {
+        String line = reader.readLine();
+        while (line != null) {
+          if (line.contains("ERROR")) {
+            expected.add(line);
+          }
+          line = reader.readLine();
+        }
+      }
+      int bufferSize = 4 + random.nextInt(32);
+      List<String> actual = new ArrayList<>();
+      try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(input.getBytes(UTF_8)), bufferSize)) {
+        String line = reader.readLineContaining(needle);
+        while (line != null) {
+          actual.add(line);
+          line = reader.readLineContaining(needle);
+        }
+      }
+      assertEquals(expected, actual, input);
+    }
+  }
+
+  @Test
+  void byteOffset() throws IOException {
+    String input = "aä€𐍈\n".repeat(100);
+    byte[] bytes = input.getBytes(UTF_8);
+    try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(bytes), 7)) {
+      int offset = 0;
+      assertEquals(0L, reader.getByteOffset());
+      for (int i = 0; i < 500; i++) {
+        int codePoint = reader.readCodePoint();
+        offset += new String(Character.toChars(codePoint)).getBytes(UTF_8).length;
+        assertEquals(offset, reader.getByteOffset());
+      }
+      assertEquals(-1, reader.read());
+      assertEquals(bytes.length, reader.getByteOffset());
+    }
+  }
+
+  @Test
+  void positionTrackingDisabled() throws IOException {
+    try (BufferedUtf8InputStreamReader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(new byte[0]))) {
+      assertThrows(IllegalStateException.class, reader::getLineNumber);
+      assertThrows(IllegalStateException.class, reader::getColumnNumber);
+    }
+  }
+
+  @Test
+  void positionTracking() throws IOException {
+    String input = "first line\nä€𐍈\n\n\r\n" + "0123456789".repeat(10) + "\nlast";
+    InputStream in = new ByteArrayInputStream(input.getBytes(UTF_8));
+    try (BufferedUtf8InputStreamReader reader = BufferedUtf8InputStreamReader.builder(in).bufferSize(5).trackPosition().build()) {
+      long line = 1L;
+      long column = 1L;
+      assertEquals(line, reader.getLineNumber());
+      assertEquals(column, reader.getColumnNumber());
+      char[] buffer = new char[3];
+      int read;
+      while ((read = reader.read(buffer)) != -1) {
+        for (int i = 0; i < read; i++) {
+          if (buffer[i] == '\n') {
+            line += 1L;
+            column = 1L;
+          } else {
+            column += 1L;
+          }
+        }
+        assertEquals(line, reader.getLineNumber());
+        assertEquals(column, reader.getColumnNumber());
+      }
+      assertEquals(6L, reader.getLineNumber());
+      assertEquals(5L, reader.getColumnNumber());
+    }
+  }
+
+  @Test
+  void positionTrackingMarkReset() throws IOException {
+    String input = "a\nbb\nccc\ndddd\n";
+    InputStream in = new ByteArrayInputStream(input.getBytes(UTF_8));
+    try (BufferedUtf8InputStreamReader reader = BufferedUtf8InputStreamReader.builder(in).bufferSize(4).trackPosition().build()) {
+      assertEquals("a\n", readString(reader, 2));
+      reader.mark(100);
+      assertEquals("bb\nccc\nd", readString(reader, 8));
+      assertEquals(4L, reader.getLineNumber());
+      assertEquals(2L, reader.getColumnNumber());
+      reader.reset();
+      assertEquals(2L, reader.getLineNumber());
+      assertEquals(1L, reader.getColumnNumber());
+      assertEquals(2L, reader.getByteOffset());
+      assertEquals("bb\nc", readString(reader, 4));
+      assertEquals(3L, reader.getLineNumber());
+      assertEquals(2L, reader.getColumnNumber());
+    }
+  }
+
+  @Test
+  void resumeFromCheckpoint() throws IOException {
+    String input = "line 1\nline 2 ä€\nline 3 𐍈\nline 4\n";
+    byte[] bytes = input.getBytes(UTF_8);
+    long byteOffset;
+    long lineNumber;
+    long columnNumber;
+    try (BufferedUtf8InputStreamReader reader = BufferedUtf8InputStreamReader.builder(new ByteArrayInputStream(bytes)).trackPosition().build()) {
+      assertEquals("line 1\nline 2 ä€\nline", readString(reader, 21));
+      byteOffset = reader.getByteOffset();
+      lineNumber = reader.getLineNumber();
+      columnNumber = reader.getColumnNumber();
+    }
+    assertEquals(3L, lineNumber);
+    assertEquals(5L, columnNumber);
+
+    InputStream in = new ByteArrayInputStream(bytes, (int) byteOffset, bytes.length - (int) byteOffset);
+    try (BufferedUtf8InputStreamReader reader = BufferedUtf8InputStreamReader.builder(in)
+            .trackPosition()
+            .position(byteOffset, lineNumber, columnNumber)
+            .build()) {
+      assertEquals(byteOffset, reader.getByteOffset());
+      assertEquals(" 3 𐍈\n", readString(reader, 6));
+      assertEquals(4L, reader.getLineNumber());
+      assertEquals(1L, reader.getColumnNumber());
+      assertEquals(bytes.length - "line 4\n".length(), reader.getByteOffset());
+    }
+  }
+
+  private static String readString(Reader reader, int length) throws IOException {
+    char[] buffer = new char[length];
+    assertEquals(length, readFully(reader, buffer));
+    return new String(buffer);
+  }
+
+  private static int readFully(Reader reader, char[] buffer) throws IOException {
+    int total = 0;
+    while (total < buffer.length) {
+      int read = reader.read(buffer, total, buffer.length - total);
+      if (read == -1) {
+        break;
+      }
+      total += read;
+    }
+    return total;
+  }
+
+  /**
+   * Returns reads of the given sizes, cycling through them.
+   */
+  static final class ShortReadInputStream extends ByteArrayInputStream {
+
+    private final int[] readSizes;
+
+    private int readIndex;
+
+    ShortReadInputStream(byte[] buf, int[] readSizes) {
+      super(buf);
+      this.readSizes = readSizes;
+      this.readIndex = 0;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) {
+      int readSize = this.readSizes[this.readIndex];
+      this.readIndex = (this.readIndex + 1) % this.readSizes.length;
+      return super.read(b, off, Math.min(len, readSize));
+    }
+
+    @Override
+    public synchronized int available() {
+      return 0;
+    }
+
+  }
+
+}
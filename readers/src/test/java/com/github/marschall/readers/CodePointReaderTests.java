@@ -0,0 +1,80 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class CodePointReaderTests {
+
+  private static final String SAMPLE = "$¢ह€한𐍈$" + "ABCDEFGHIJKLMNOPQRSTUVWXYZ" + "𐍈".repeat(3);
+
+  @ParameterizedTest
+  @MethodSource("readers")
+  void readCodePoint(Reader reader) throws IOException {
+    CodePointReader codePointReader = (CodePointReader) reader;
+    try (reader) {
+      int[] expected = SAMPLE.codePoints().toArray();
+      for (int codePoint : expected) {
+        assertEquals(codePoint, codePointReader.readCodePoint());
+      }
+      assertEquals(-1, codePointReader.readCodePoint());
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("readers")
+  void readCodePointPendingLowSurrogate(Reader reader) throws IOException {
+    CodePointReader codePointReader = (CodePointReader) reader;
+    try (reader) {
+      assertEquals(6L, reader.skip(6L));
+      assertEquals(Character.lowSurrogate(0x10348), codePointReader.readCodePoint());
+      assertEquals('$', codePointReader.readCodePoint());
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("readers")
+  void readCodePointArray(Reader reader) throws IOException {
+    CodePointReader codePointReader = (CodePointReader) reader;
+    try (reader) {
+      int[] expected = SAMPLE.codePoints().toArray();
+      int[] actual = new int[expected.length + 2];
+      int total = 1;
+      int read = codePointReader.read(actual, total, actual.length - total);
+      while (read != -1) {
+        total += read;
+        read = codePointReader.read(actual, total, actual.length - total);
+      }
+      assertEquals(expected.length + 1, total);
+      assertArrayEquals(expected, Arrays.copyOfRange(actual, 1, total));
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("readers")
+  void codePoints(Reader reader) throws IOException {
+    CodePointReader codePointReader = (CodePointReader) reader;
+    try (reader) {
+      assertArrayEquals(SAMPLE.codePoints().toArray(), codePointReader.codePoints().toArray());
+    }
+  }
+
+  private static List<Reader> readers() {
+    byte[] input = SAMPLE.getBytes(UTF_8);
+    return List.of(
+        new BufferedUtf8InputStreamReader(new ByteArrayInputStream(input.clone()), 16),
+        new BufferedUtf8InputStreamReader(new ByteArrayInputStream(input.clone()), 128),
+        new Utf8InputStreamReader(new ByteArrayInputStream(input.clone()))
+        );
+  }
+
+}
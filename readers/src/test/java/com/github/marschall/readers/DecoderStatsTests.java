@@ -0,0 +1,112 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+class DecoderStatsTests {
+
+  @Test
+  void bufferedAscii() throws IOException {
+    DecoderStats stats = new DecoderStats();
+    byte[] input = "0123456789abcdef0123456789abcdef".getBytes(UTF_8);
+    try (Reader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(input), 16, 16, stats)) {
+      char[] buffer = new char[64];
+      assertEquals(16, reader.read(buffer, 0, buffer.length));
+      assertEquals(16, reader.read(buffer, 16, buffer.length - 16));
+      assertEquals(-1, reader.read(buffer, 0, buffer.length));
+    }
+    assertEquals(32L, stats.getBytesDecoded());
+    assertEquals(32L, stats.getCharsDecoded());
+    assertEquals(32L, stats.getBulkBytes());
+    assertEquals(0L, stats.getSlowPathBytes());
+    assertEquals(1.0d, stats.getBulkRatio());
+    assertEquals(2L, stats.getRefills());
+    assertEquals(0L, stats.getCompactions());
+    assertEquals(0L, stats.getReplacements());
+  }
+
+  @Test
+  void bufferedCompactionAndReplacement() throws IOException {
+    DecoderStats stats = new DecoderStats();
+    // the three byte sequence straddles the end of the buffer
+    byte[] input = {'a', 'b', (byte) 0xE2, (byte) 0x82, (byte) 0xAC, (byte) 0xFF};
+    try (Reader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(input), 4, 4, stats)) {
+      char[] buffer = new char[8];
+      assertEquals(2, reader.read(buffer, 0, buffer.length));
+      assertEquals(2, reader.read(buffer, 0, buffer.length));
+      assertEquals('€', buffer[0]);
+      assertEquals(0xFFFD, buffer[1]);
+      assertEquals(-1, reader.read());
+    }
+    assertEquals(6L, stats.getBytesDecoded());
+    assertEquals(4L, stats.getCharsDecoded());
+    assertEquals(0L, stats.getBulkBytes());
+    assertEquals(6L, stats.getSlowPathBytes());
+    // only the cut off sequence is moved
+    assertEquals(1L, stats.getCompactions());
+    assertEquals(1L, stats.getReplacements());
+  }
+
+  @Test
+  void unbuffered() throws IOException {
+    DecoderStats stats = new DecoderStats();
+    byte[] input = "a€𐍈".getBytes(UTF_8);
+    try (Reader reader = new Utf8InputStreamReader(new ByteArrayInputStream(new byte[] {(byte) 0xC3}), stats)) {
+      assertEquals(0xFFFD, reader.read());
+    }
+    try (Reader reader = new Utf8InputStreamReader(new ByteArrayInputStream(input), stats)) {
+      char[] buffer = new char[8];
+      assertEquals(4, reader.read(buffer, 0, buffer.length));
+    }
+    // the cut off sequence is a single byte
+    assertEquals(9L, stats.getBytesDecoded());
+    assertEquals(5L, stats.getCharsDecoded());
+    assertEquals(0.0d, stats.getBulkRatio());
+    assertEquals(0L, stats.getRefills());
+    assertEquals(1L, stats.getReplacements());
+  }
+
+  @Test
+  void reset() throws IOException {
+    DecoderStats stats = new DecoderStats();
+    try (Reader reader = new Utf8InputStreamReader(new ByteArrayInputStream(new byte[] {'a'}), stats)) {
+      assertEquals('a', reader.read());
+    }
+    assertEquals(1L, stats.getBytesDecoded());
+    stats.reset();
+    assertEquals(0L, stats.getBytesDecoded());
+    assertEquals(0L, stats.getCharsDecoded());
+    assertEquals(0.0d, stats.getBulkRatio());
+  }
+
+  @Test
+  void jmx() throws IOException, JMException {
+    DecoderStats stats = new DecoderStats();
+    try (Reader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(new byte[] {'a', 'b'}), 16, 16, stats)) {
+      assertEquals(2L, reader.skip(2L));
+    }
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("com.github.marschall.readers:type=DecoderStats,name=test");
+    server.registerMBean(stats, name);
+    try {
+      assertEquals(2L, server.getAttribute(name, "BytesDecoded"));
+      assertEquals(1L, server.getAttribute(name, "Refills"));
+      server.invoke(name, "reset", new Object[0], new String[0]);
+      assertEquals(0L, server.getAttribute(name, "BytesDecoded"));
+    } finally {
+      server.unregisterMBean(name);
+    }
+  }
+
+}
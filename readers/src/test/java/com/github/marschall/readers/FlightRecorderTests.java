@@ -0,0 +1,73 @@
+package com.github.marschall.readers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class FlightRecorderTests {
+
+  @Test
+  void events(@TempDir Path temporaryFolder) throws IOException {
+    // the malformed byte is in the second buffer
+    byte[] input = {'a', 'b', 'c', 'd', 'e', (byte) 0xFF, 'f'};
+    Path recordingFile = temporaryFolder.resolve("readers.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(RefillEvent.NAME).withThreshold(Duration.ZERO);
+      recording.enable(MalformedInputEvent.NAME);
+      recording.start();
+      try (Reader reader = new BufferedUtf8InputStreamReader(new ByteArrayInputStream(input), 4)) {
+        assertEquals("abcde�f", readFully(reader));
+      }
+      recording.stop();
+      recording.dump(recordingFile);
+    }
+    List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+
+    List<RecordedEvent> refills = eventsNamed(events, RefillEvent.NAME);
+    assertFalse(refills.isEmpty());
+    RecordedEvent first = refills.get(0);
+    assertEquals(4, first.getInt("bytesRequested"));
+    assertEquals(4, first.getInt("bytesRead"));
+    assertFalse(first.getBoolean("shortRead"));
+    assertTrue(refills.stream().anyMatch(event -> event.getBoolean("shortRead")));
+
+    List<RecordedEvent> malformed = eventsNamed(events, MalformedInputEvent.NAME);
+    assertEquals(1, malformed.size());
+    assertEquals(5L, malformed.get(0).getLong("byteOffset"));
+    assertEquals(1, malformed.get(0).getInt("byteCount"));
+  }
+
+  private static List<RecordedEvent> eventsNamed(List<RecordedEvent> events, String name) {
+    return events.stream()
+        .filter(event -> event.getEventType().getName().equals(name))
+        .collect(Collectors.toList());
+  }
+
+  private static String readFully(Reader reader) throws IOException {
+    StringBuilder builder = new StringBuilder();
+    char[] buffer = new char[3];
+    int read = reader.read(buffer, 0, buffer.length);
+    while (read != -1) {
+      builder.append(buffer, 0, read);
+      read = reader.read(buffer, 0, buffer.length);
+    }
+    return builder.toString();
+  }
+
+}
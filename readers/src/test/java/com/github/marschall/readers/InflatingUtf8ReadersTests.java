@@ -0,0 +1,190 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class InflatingUtf8ReadersTests {
+
+  private static final String CONTENT = "ASCII line\n¢ह€한𐍈\n".repeat(2000);
+
+  @Test
+  void gzip() throws IOException {
+    byte[] compressed = gzip(CONTENT);
+    assertEquals(CONTENT, readAll(InflatingUtf8Readers.newGzipReader(channel(compressed))));
+    assertEquals(CONTENT, readAll(InflatingUtf8Readers.newGzipReader(trickle(compressed))));
+  }
+
+  @Test
+  void gzipFile(@TempDir Path temporaryFolder) throws IOException {
+    Path file = temporaryFolder.resolve("input.txt.gz");
+    Files.write(file, gzip(CONTENT));
+    assertEquals(CONTENT, readAll(InflatingUtf8Readers.newGzipReader(file)));
+  }
+
+  @Test
+  void multiMember() throws IOException {
+    byte[] first = gzip("first member ä\n");
+    byte[] empty = gzip("");
+    byte[] second = gzip(CONTENT);
+    byte[] compressed = concat(first, empty, second);
+    String expected = "first member ä\n" + CONTENT;
+    assertEquals(expected, readAll(InflatingUtf8Readers.newGzipReader(channel(compressed))));
+    assertEquals(expected, readAll(InflatingUtf8Readers.newGzipReader(trickle(compressed))));
+  }
+
+  @Test
+  void headerFields() throws IOException {
+    byte[] member = gzip(CONTENT);
+    // set FEXTRA, FNAME, FCOMMENT and FHCRC
+    byte[] header = Arrays.copyOf(member, 10);
+    header[3] = 4 | 8 | 16 | 2;
+    byte[] fields = {3, 0, 'a', 'b', 'c', 'n', 'a', 'm', 'e', 0, 'c', 0, 0x12, 0x34};
+    byte[] compressed = concat(header, fields, Arrays.copyOfRange(member, 10, member.length));
+    assertEquals(CONTENT, readAll(InflatingUtf8Readers.newGzipReader(trickle(compressed))));
+  }
+
+  @Test
+  void trailingGarbageIgnored() throws IOException {
+    byte[][] trailers = {
+        {0, 0, 0, 0},
+        // unsupported compression method
+        {0x1F, (byte) 0x8B, 0},
+        // truncated header
+        {0x1F, (byte) 0x8B, 8, 0, 0},
+        {0x1F, (byte) 0x8B}};
+    for (byte[] trailer : trailers) {
+      byte[] compressed = concat(gzip(CONTENT), trailer);
+      try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+        assertEquals(CONTENT, new String(in.readAllBytes(), UTF_8));
+      }
+      assertEquals(CONTENT, readAll(InflatingUtf8Readers.newGzipReader(channel(compressed))));
+      assertEquals(CONTENT, readAll(InflatingUtf8Readers.newGzipReader(trickle(compressed))));
+    }
+  }
+
+  @Test
+  void singleByteRead() throws IOException {
+    byte[] compressed = gzip("ab");
+    try (InputStream in = new InflatingInputStream(channel(compressed), InflatingInputStream.GZIP)) {
+      assertEquals('a', in.read());
+      assertEquals('b', in.read());
+      assertEquals(-1, in.read());
+    }
+  }
+
+  @Test
+  void notGzip() {
+    byte[] input = "not compressed".getBytes(UTF_8);
+    assertThrows(ZipException.class, () -> readAll(InflatingUtf8Readers.newGzipReader(channel(input))));
+  }
+
+  @Test
+  void corruptCrc() {
+    byte[] compressed = gzip(CONTENT);
+    compressed[compressed.length - 8] ^= 1;
+    assertThrows(ZipException.class, () -> readAll(InflatingUtf8Readers.newGzipReader(channel(compressed))));
+  }
+
+  @Test
+  void truncated() {
+    byte[] compressed = gzip(CONTENT);
+    byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+    assertThrows(EOFException.class, () -> readAll(InflatingUtf8Readers.newGzipReader(channel(truncated))));
+  }
+
+  @Test
+  void deflate() throws IOException {
+    for (boolean nowrap : new boolean[] {true, false}) {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      try (DeflaterOutputStream out = new DeflaterOutputStream(bos, new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap))) {
+        out.write(CONTENT.getBytes(UTF_8));
+      }
+      byte[] compressed = bos.toByteArray();
+      assertEquals(CONTENT, readAll(InflatingUtf8Readers.newInflatingReader(channel(compressed), nowrap)));
+    }
+  }
+
+  private static byte[] gzip(String s) {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(bos)) {
+      out.write(s.getBytes(UTF_8));
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+    return bos.toByteArray();
+  }
+
+  private static byte[] concat(byte[]... arrays) {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    for (byte[] array : arrays) {
+      bos.writeBytes(array);
+    }
+    return bos.toByteArray();
+  }
+
+  private static ReadableByteChannel channel(byte[] bytes) {
+    return Channels.newChannel(new ByteArrayInputStream(bytes));
+  }
+
+  /**
+   * A channel that returns at most one byte per read.
+   */
+  private static ReadableByteChannel trickle(byte[] bytes) {
+    return new ReadableByteChannel() {
+
+      private int position;
+
+      @Override
+      public boolean isOpen() {
+        return true;
+      }
+
+      @Override
+      public void close() {
+        // nothing to close
+      }
+
+      @Override
+      public int read(ByteBuffer dst) {
+        if (this.position == bytes.length) {
+          return -1;
+        }
+        dst.put(bytes[this.position++]);
+        return 1;
+      }
+
+    };
+  }
+
+  private static String readAll(Reader reader) throws IOException {
+    try (reader) {
+      StringWriter writer = new StringWriter();
+      reader.transferTo(writer);
+      return writer.toString();
+    }
+  }
+
+}
@@ -0,0 +1,140 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class LockingReaderTests {
+
+  @Test
+  void delegates() throws IOException {
+    try (LockingReader reader = new LockingReader(new StringReader("abcdef"))) {
+      assertTrue(reader.markSupported());
+      assertEquals('a', reader.read());
+      reader.mark(10);
+      char[] buffer = new char[2];
+      assertEquals(2, reader.read(buffer, 0, 2));
+      assertEquals("bc", new String(buffer));
+      reader.reset();
+      assertEquals(1L, reader.skip(1L));
+      assertTrue(reader.ready());
+      StringWriter writer = new StringWriter();
+      assertEquals(4L, reader.transferTo(writer));
+      assertEquals("cdef", writer.toString());
+      assertEquals(-1, reader.read());
+    }
+  }
+
+  @Test
+  void closeOnce() throws IOException {
+    AtomicInteger closeCount = new AtomicInteger();
+    StringReader delegate = new StringReader("abc") {
+
+      @Override
+      public void close() {
+        closeCount.incrementAndGet();
+        super.close();
+      }
+
+    };
+    LockingReader reader = new LockingReader(delegate);
+    reader.close();
+    reader.close();
+    assertEquals(1, closeCount.get());
+    assertThrows(IOException.class, reader::read);
+    assertThrows(IOException.class, () -> reader.read(new char[4], 0, 4));
+    assertThrows(IOException.class, () -> reader.skip(1L));
+  }
+
+  @Test
+  void concurrentReads() throws Exception {
+    int threads = 4;
+    String input = "aä€𐍈".repeat(10_000);
+    byte[] bytes = input.getBytes(UTF_8);
+    try (LockingReader reader = new LockingReader(new BufferedUtf8InputStreamReader(new ByteArrayInputStream(bytes), 64))) {
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+          futures.add(executor.submit(() -> {
+            char[] buffer = new char[7];
+            int total = 0;
+            int read;
+            while ((read = reader.read(buffer, 0, buffer.length)) != -1) {
+              total += read;
+            }
+            return total;
+          }));
+        }
+        int total = 0;
+        for (Future<Integer> future : futures) {
+          total += future.get(1L, TimeUnit.MINUTES);
+        }
+        assertEquals(input.length(), total);
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  @Test
+  void closeUnblocksRead() throws Exception {
+    CountDownLatch reading = new CountDownLatch(1);
+    CountDownLatch closed = new CountDownLatch(1);
+    InputStream blocking = new InputStream() {
+
+      @Override
+      public int read() throws IOException {
+        reading.countDown();
+        try {
+          closed.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        throw new IOException("stream closed");
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        return this.read();
+      }
+
+      @Override
+      public void close() {
+        closed.countDown();
+      }
+
+    };
+    LockingReader reader = new LockingReader(new BufferedUtf8InputStreamReader(blocking));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Integer> read = executor.submit(() -> reader.read());
+      assertTrue(reading.await(1L, TimeUnit.MINUTES));
+      // does not wait for the lock held by the blocked read
+      reader.close();
+      Exception e = assertThrows(Exception.class, () -> read.get(1L, TimeUnit.MINUTES));
+      assertTrue(e.getCause() instanceof IOException);
+      assertThrows(IOException.class, reader::read);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}
@@ -0,0 +1,298 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class MalformedInputPolicyTests {
+
+  private static final byte[][] EDGE_CASES = {
+      // stray continuation bytes
+      {(byte) 0x80},
+      {'a', (byte) 0xBF, 'b'},
+      // invalid lead bytes
+      {(byte) 0xC0, (byte) 0xAF},
+      {(byte) 0xF5, (byte) 0x80, (byte) 0x80, (byte) 0x80},
+      {(byte) 0xF8, (byte) 0x88, (byte) 0x80, (byte) 0x80, (byte) 0x80},
+      {(byte) 0xFF, 'a'},
+      // overlong
+      {(byte) 0xE0, (byte) 0x80, (byte) 0x80},
+      {(byte) 0xF0, (byte) 0x80, (byte) 0x80, (byte) 0x80},
+      // surrogate
+      {(byte) 0xED, (byte) 0xA0, (byte) 0x80},
+      {(byte) 0xED, (byte) 0xA0, 'a'},
+      // above U+10FFFF
+      {(byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80},
+      // cut off
+      {(byte) 0xE2, (byte) 0x82},
+      {(byte) 0xE2, (byte) 0x82, 'a'},
+      {(byte) 0xF0, (byte) 0x90, (byte) 0x8D},
+      {(byte) 0xF0, (byte) 0x90, (byte) 0x8D, 'a'},
+      {(byte) 0xF0, (byte) 0x90, 'a', (byte) 0x8D},
+      // valid
+      "$¢€𐍈�".getBytes(UTF_8),
+  };
+
+  @Test
+  void replaceMatchesJdk() throws IOException {
+    for (byte[] input : inputs()) {
+      String expected = new String(input, UTF_8);
+      assertDecodes(expected, input, MalformedInputPolicy.REPLACE);
+    }
+  }
+
+  @Test
+  void skip() throws IOException {
+    for (byte[] input : inputs()) {
+      if (!containsReplacementCharacter(input)) {
+        // every U+FFFD in the JDK output is a maximal subpart
+        String expected = new String(input, UTF_8).replace("�", "");
+        assertDecodes(expected, input, MalformedInputPolicy.SKIP);
+      }
+    }
+  }
+
+  @Test
+  void skipOnlyMalformed() throws IOException {
+    byte[] input = new byte[100];
+    for (int i = 0; i < input.length; i++) {
+      input[i] = (byte) 0x80;
+    }
+    try (Reader reader = BufferedUtf8InputStreamReader.builder(new ByteArrayInputStream(input))
+            .bufferSize(8)
+            .malformedInputPolicy(MalformedInputPolicy.SKIP)
+            .build()) {
+      assertEquals(-1, reader.read(new char[4], 0, 4));
+      assertEquals(-1, reader.read());
+    }
+    try (Reader reader = new Utf8InputStreamReader(new ByteArrayInputStream(input), null, MalformedInputPolicy.SKIP)) {
+      assertEquals(-1, reader.read());
+    }
+  }
+
+  @Test
+  void reportBuffered() throws IOException {
+    byte[] input = ("abc".repeat(5000) + "€").getBytes(UTF_8);
+    byte[] malformed = new byte[input.length + 3];
+    System.arraycopy(input, 0, malformed, 0, input.length);
+    malformed[input.length] = (byte) 0xE2;
+    malformed[input.length + 1] = (byte) 0x82;
+    malformed[input.length + 2] = 'd';
+    try (BufferedUtf8InputStreamReader reader = BufferedUtf8InputStreamReader.builder(new ByteArrayInputStream(malformed))
+            .bufferSize(16)
+            .malformedInputPolicy(MalformedInputPolicy.REPORT)
+            .build()) {
+      char[] buffer = new char[64];
+      int read = 0;
+      Utf8MalformedInputException exception = null;
+      while (exception == null) {
+        try {
+          int chunk = reader.read(buffer, 0, buffer.length);
+          assertTrue(chunk > 0);
+          read += chunk;
+        } catch (Utf8MalformedInputException e) {
+          exception = e;
+        }
+      }
+      assertEquals(15001, read);
+      assertEquals(input.length, exception.getByteOffset());
+      assertEquals(2, exception.getInputLength());
+      // the malformed input is not consumed
+      assertEquals(input.length, reader.getByteOffset());
+      assertThrows(Utf8MalformedInputException.class, () -> reader.read());
+    }
+  }
+
+  @Test
+  void reportSingleCharacter() throws IOException {
+    byte[] input = {'a', (byte) 0xFF, 'b'};
+    try (Reader reader = BufferedUtf8InputStreamReader.builder(new ByteArrayInputStream(input))
+            .malformedInputPolicy(MalformedInputPolicy.REPORT)
+            .build()) {
+      assertEquals('a', reader.read());
+      Utf8MalformedInputException exception = assertThrows(Utf8MalformedInputException.class, () -> reader.read());
+      assertEquals(1L, exception.getByteOffset());
+      assertEquals(1, exception.getInputLength());
+      assertThrows(Utf8MalformedInputException.class, () -> reader.skip(1L));
+    }
+    try (Reader reader = new Utf8InputStreamReader(new ByteArrayInputStream(input), null, MalformedInputPolicy.REPORT)) {
+      assertEquals('a', reader.read());
+      Utf8MalformedInputException exception = assertThrows(Utf8MalformedInputException.class, () -> reader.read());
+      assertEquals(1L, exception.getByteOffset());
+      assertEquals(1, exception.getInputLength());
+      // the malformed input is consumed
+      assertEquals('b', reader.read());
+    }
+  }
+
+  @Test
+  void reportCutOff() throws IOException {
+    byte[] input = {'a', 'b', (byte) 0xF0, (byte) 0x90, (byte) 0x8D};
+    try (Reader reader = BufferedUtf8InputStreamReader.builder(new ByteArrayInputStream(input))
+            .malformedInputPolicy(MalformedInputPolicy.REPORT)
+            .build()) {
+      char[] buffer = new char[8];
+      assertEquals(2, reader.read(buffer, 0, buffer.length));
+      Utf8MalformedInputException exception = assertThrows(Utf8MalformedInputException.class, () -> reader.read(buffer, 0, buffer.length));
+      assertEquals(2L, exception.getByteOffset());
+      assertEquals(3, exception.getInputLength());
+    }
+    try (Reader reader = new Utf8InputStreamReader(new ByteArrayInputStream(input), null, MalformedInputPolicy.REPORT)) {
+      assertEquals('a', reader.read());
+      assertEquals('b', reader.read());
+      Utf8MalformedInputException exception = assertThrows(Utf8MalformedInputException.class, () -> reader.read());
+      assertEquals(2L, exception.getByteOffset());
+      assertEquals(3, exception.getInputLength());
+    }
+  }
+
+  @Test
+  void readToken() throws IOException {
+    byte[] input = {'a', (byte) 0x80, 'b', ',', 'c', ','};
+    try (BufferedUtf8InputStreamReader reader = BufferedUtf8InputStreamReader.builder(new ByteArrayInputStream(input))
+            .malformedInputPolicy(MalformedInputPolicy.SKIP)
+            .build()) {
+      assertEquals("ab", reader.readToken(',', null));
+      assertEquals("c", reader.readToken(',', null));
+    }
+    try (BufferedUtf8InputStreamReader reader = BufferedUtf8InputStreamReader.builder(new ByteArrayInputStream(input))
+            .malformedInputPolicy(MalformedInputPolicy.REPORT)
+            .build()) {
+      Utf8MalformedInputException exception = assertThrows(Utf8MalformedInputException.class, () -> reader.readToken(',', null));
+      assertEquals(1L, exception.getByteOffset());
+      assertEquals(0L, reader.getByteOffset());
+    }
+  }
+
+  private static void assertDecodes(String expected, byte[] input, MalformedInputPolicy policy) throws IOException {
+    String message = policy + " " + toHex(input);
+    for (int bufferSize : new int[] {4, 5, 128}) {
+      try (Reader reader = BufferedUtf8InputStreamReader.builder(new ByteArrayInputStream(input))
+              .bufferSize(bufferSize)
+              .malformedInputPolicy(policy)
+              .build()) {
+        assertEquals(expected, readFully(reader, 3), message);
+      }
+      try (Reader reader = BufferedUtf8InputStreamReader.builder(new ByteArrayInputStream(input))
+              .bufferSize(bufferSize)
+              .malformedInputPolicy(policy)
+              .build()) {
+        assertEquals(expected, readSingle(reader), message);
+      }
+      try (BufferedUtf8InputStreamReader reader = BufferedUtf8InputStreamReader.builder(new ByteArrayInputStream(input))
+              .bufferSize(bufferSize)
+              .malformedInputPolicy(policy)
+              .build()) {
+        assertEquals(expected, readCodePoints(reader), message);
+      }
+      try (Reader reader = BufferedUtf8InputStreamReader.builder(new ByteArrayInputStream(input))
+              .bufferSize(bufferSize)
+              .malformedInputPolicy(policy)
+              .build()) {
+        assertEquals(expected.length(), skipFully(reader), message);
+      }
+    }
+    try (Reader reader = new Utf8InputStreamReader(new ByteArrayInputStream(input), null, policy)) {
+      assertEquals(expected, readSingle(reader), message);
+    }
+    char[] chars = new char[input.length * 2];
+    long result = Utf8Codec.decode(input, 0, input.length, chars, 0, chars.length, true, policy);
+    assertEquals(expected, new String(chars, 0, Utf8Codec.produced(result)), message);
+  }
+
+  private static List<byte[]> inputs() {
+    List<byte[]> inputs = new ArrayList<>();
+    for (byte[] edgeCase : EDGE_CASES) {
+      inputs.add(edgeCase);
+    }
+    Random random = new Random(42L);
+    // bytes that are likely to form valid, overlong, cut off and invalid sequences
+    byte[] alphabet = {
+        'a', 'b', ' ', (byte) 0x80, (byte) 0x8F, (byte) 0x90, (byte) 0x9F, (byte) 0xA0, (byte) 0xBF,
+        (byte) 0xC0, (byte) 0xC2, (byte) 0xDF, (byte) 0xE0, (byte) 0xE1, (byte) 0xED, (byte) 0xEF,
+        (byte) 0xF0, (byte) 0xF1, (byte) 0xF4, (byte) 0xF5, (byte) 0xF8, (byte) 0xFF
+    };
+    for (int i = 0; i < 2000; i++) {
+      byte[] input = new byte[random.nextInt(12) + 1];
+      for (int j = 0; j < input.length; j++) {
+        input[j] = alphabet[random.nextInt(alphabet.length)];
+      }
+      inputs.add(input);
+    }
+    return inputs;
+  }
+
+  private static boolean containsReplacementCharacter(byte[] input) {
+    for (int i = 0; i + 2 < input.length; i++) {
+      if ((input[i] == (byte) 0xEF) && (input[i + 1] == (byte) 0xBF) && (input[i + 2] == (byte) 0xBD)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String readFully(Reader reader, int chunkSize) throws IOException {
+    StringBuilder builder = new StringBuilder();
+    char[] buffer = new char[chunkSize];
+    int read = reader.read(buffer, 0, buffer.length);
+    while (read != -1) {
+      assertTrue(read > 0);
+      builder.append(buffer, 0, read);
+      read = reader.read(buffer, 0, buffer.length);
+    }
+    return builder.toString();
+  }
+
+  private static String readSingle(Reader reader) throws IOException {
+    StringBuilder builder = new StringBuilder();
+    int c = reader.read();
+    while (c != -1) {
+      builder.append((char) c);
+      c = reader.read();
+    }
+    return builder.toString();
+  }
+
+  private static String readCodePoints(CodePointReader reader) throws IOException {
+    StringBuilder builder = new StringBuilder();
+    int[] buffer = new int[3];
+    int read = reader.read(buffer, 0, buffer.length);
+    while (read != -1) {
+      assertTrue(read > 0);
+      for (int i = 0; i < read; i++) {
+        builder.appendCodePoint(buffer[i]);
+      }
+      read = reader.read(buffer, 0, buffer.length);
+    }
+    return builder.toString();
+  }
+
+  private static long skipFully(Reader reader) throws IOException {
+    long total = 0L;
+    long skipped = reader.skip(3L);
+    while (skipped > 0L) {
+      total += skipped;
+      skipped = reader.skip(3L);
+    }
+    return total;
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder builder = new StringBuilder();
+    for (byte b : bytes) {
+      builder.append(String.format("%02X ", b));
+    }
+    return builder.toString();
+  }
+
+}
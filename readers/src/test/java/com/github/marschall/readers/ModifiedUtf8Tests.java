@@ -0,0 +1,148 @@
+package com.github.marschall.readers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UTFDataFormatException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ModifiedUtf8Tests {
+
+  private static final List<String> STRINGS = List.of(
+      "",
+      "ASCII only ASCII only",
+      "nul \u0000 in the middle\u0000",
+      "¢ह€한𐍈 and ASCII",
+      "😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀😀",
+      "x".repeat(1000) + "ü");
+
+  @Test
+  void readUTF() throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(writeUTF(STRINGS)));
+    ModifiedUtf8Decoder decoder = new ModifiedUtf8Decoder();
+    for (String expected : STRINGS) {
+      int length = decoder.readUTF(in);
+      assertEquals(expected.length(), length);
+      assertEquals(expected.length(), decoder.getLength());
+      assertEquals(expected, new String(decoder.getChars(), 0, length));
+    }
+  }
+
+  @Test
+  void readUTFMalformed() throws IOException {
+    ModifiedUtf8Decoder decoder = new ModifiedUtf8Decoder();
+    byte[][] malformed = {
+        {0, 2, 'a', (byte) 0x80},
+        {0, 4, (byte) 0xF0, (byte) 0x9F, (byte) 0x98, (byte) 0x80},
+        {0, 2, (byte) 0xC1, (byte) 0x80},
+        {0, 2, 'a', (byte) 0xE2}};
+    for (byte[] input : malformed) {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(input));
+      assertThrows(UTFDataFormatException.class, () -> decoder.readUTF(in), () -> Arrays.toString(input));
+      assertEquals(0, decoder.getLength());
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {4, 5, 7, 16, 8192})
+  void reader(int bufferSize) throws IOException {
+    String expected = String.join("", STRINGS);
+    try (Reader reader = new ModifiedUtf8InputStreamReader(new ByteArrayInputStream(encode(expected)), bufferSize)) {
+      assertEquals(expected, readFully(reader));
+    }
+  }
+
+  @Test
+  void readerSingleChar() throws IOException {
+    String expected = "a\u0000😀";
+    try (Reader reader = new ModifiedUtf8InputStreamReader(new ByteArrayInputStream(encode(expected)))) {
+      for (int i = 0; i < expected.length(); i++) {
+        assertEquals(expected.charAt(i), reader.read());
+      }
+      assertEquals(-1, reader.read());
+    }
+  }
+
+  @Test
+  void readerSkip() throws IOException {
+    String expected = "0123456789abcdef\u0000😀xyz";
+    try (Reader reader = new ModifiedUtf8InputStreamReader(new ByteArrayInputStream(encode(expected)), 4)) {
+      assertEquals(18L, reader.skip(18L));
+      assertEquals('\uDE00', reader.read());
+      assertEquals(3L, reader.skip(10L));
+      assertEquals(-1, reader.read());
+    }
+  }
+
+  @Test
+  void readerMalformed() throws IOException {
+    // four byte sequence, lone continuation byte, invalid two byte sequence and truncated sequence
+    byte[] input = {(byte) 0xF0, (byte) 0x9F, 'a', (byte) 0x80, (byte) 0xC3, 'b', (byte) 0xE2, (byte) 0x82};
+    try (Reader reader = new ModifiedUtf8InputStreamReader(new ByteArrayInputStream(input), 4)) {
+      assertEquals("��a��b�", readFully(reader));
+    }
+  }
+
+  @Test
+  void readerTruncated() throws IOException {
+    // only the lead byte and its continuation bytes are replaced at the end of the stream
+    byte[][] inputs = {
+        {(byte) 0xE2, 'A'}, {(byte) 0xC3, 'A'}, {'A', (byte) 0xE2, (byte) 0x82}, {'A', (byte) 0xE2, 'A'}};
+    String[] expected = {"\uFFFDA", "\uFFFDA", "A\uFFFD", "A\uFFFDA"};
+    for (int i = 0; i < inputs.length; i++) {
+      try (Reader reader = new ModifiedUtf8InputStreamReader(new ByteArrayInputStream(inputs[i]), 4)) {
+        assertEquals(expected[i], readFully(reader));
+      }
+      try (Reader reader = new ModifiedUtf8InputStreamReader(new ByteArrayInputStream(inputs[i]), 4)) {
+        StringBuilder builder = new StringBuilder();
+        int c = reader.read();
+        while (c != -1) {
+          builder.append((char) c);
+          c = reader.read();
+        }
+        assertEquals(expected[i], builder.toString());
+      }
+      try (Reader reader = new ModifiedUtf8InputStreamReader(new ByteArrayInputStream(inputs[i]), 4)) {
+        assertEquals(expected[i].length(), reader.skip(10L));
+      }
+    }
+  }
+
+  private static byte[] writeUTF(List<String> strings) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bos)) {
+      for (String s : strings) {
+        out.writeUTF(s);
+      }
+    }
+    return bos.toByteArray();
+  }
+
+  private static byte[] encode(String s) throws IOException {
+    byte[] withLength = writeUTF(List.of(s));
+    return Arrays.copyOfRange(withLength, 2, withLength.length);
+  }
+
+  private static String readFully(Reader reader) throws IOException {
+    StringBuilder builder = new StringBuilder();
+    char[] buffer = new char[13];
+    int read = reader.read(buffer, 0, buffer.length);
+    while (read != -1) {
+      builder.append(buffer, 0, read);
+      read = reader.read(buffer, 0, buffer.length);
+    }
+    return builder.toString();
+  }
+
+}
@@ -0,0 +1,241 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.marschall.readers.ReadLimitExceededException.Limit;
+
+class ReadLimitTests {
+
+  @Test
+  void invalidLimits() {
+    BufferedUtf8InputStreamReader.Builder builder = BufferedUtf8InputStreamReader.builder(new ByteArrayInputStream(new byte[0]));
+    assertThrows(IllegalArgumentException.class, () -> builder.maxBytes(-1L));
+    assertThrows(IllegalArgumentException.class, () -> builder.maxChars(-1L));
+    assertThrows(IllegalArgumentException.class, () -> builder.maxLineLength(-1L));
+  }
+
+  @Test
+  void maxBytes() throws IOException {
+    String input = "0123456789ä€𐍈".repeat(10);
+    int byteLength = input.getBytes(UTF_8).length;
+    for (int bufferSize : new int[] {4, 7, 8192}) {
+      try (BufferedUtf8InputStreamReader reader = reader(input, bufferSize).maxBytes(byteLength).build()) {
+        assertEquals(input, transfer(reader));
+      }
+      ByteArrayInputStream in = new ByteArrayInputStream(input.getBytes(UTF_8));
+      try (BufferedUtf8InputStreamReader reader = BufferedUtf8InputStreamReader.builder(in).bufferSize(bufferSize).maxBytes(byteLength - 1L).build()) {
+        assertLimitExceeded(Limit.BYTES, byteLength - 1L, () -> transfer(reader));
+        // at most one byte more than the limit has been read
+        assertEquals(0, in.available());
+        assertLimitExceeded(Limit.BYTES, byteLength - 1L, () -> reader.read());
+      }
+    }
+    try (BufferedUtf8InputStreamReader reader = reader("a", 8192).maxBytes(0L).build()) {
+      assertLimitExceeded(Limit.BYTES, 0L, () -> reader.read());
+    }
+  }
+
+  @Test
+  void maxChars() throws IOException {
+    for (int bufferSize : new int[] {4, 7, 8192}) {
+      try (BufferedUtf8InputStreamReader reader = reader("0123456789", bufferSize).maxChars(10L).build()) {
+        assertEquals("0123456789", transfer(reader));
+      }
+      try (BufferedUtf8InputStreamReader reader = reader("0123456789abc", bufferSize).maxChars(10L).build()) {
+        char[] buffer = new char[100];
+        int read = 0;
+        while (read < 10) {
+          read += reader.read(buffer, read, buffer.length - read);
+        }
+        assertEquals(10, read);
+        assertLimitExceeded(Limit.CHARS, 10L, () -> reader.read(buffer));
+      }
+      try (BufferedUtf8InputStreamReader reader = reader("0123456789abc", bufferSize).maxChars(10L).build()) {
+        assertLimitExceeded(Limit.CHARS, 10L, () -> transfer(reader));
+      }
+      try (BufferedUtf8InputStreamReader reader = reader("0123456789abc", bufferSize).maxChars(10L).build()) {
+        long skipped = 0L;
+        while (skipped < 10L) {
+          skipped += reader.skip(100L);
+        }
+        assertEquals(10L, skipped);
+        assertLimitExceeded(Limit.CHARS, 10L, () -> reader.skip(100L));
+      }
+    }
+  }
+
+  @Test
+  void maxCharsSupplementary() throws IOException {
+    try (BufferedUtf8InputStreamReader reader = reader("a𐍈b", 8192).maxChars(3L).build()) {
+      assertEquals('a', reader.readCodePoint());
+      assertEquals(0x10348, reader.readCodePoint());
+      assertLimitExceeded(Limit.CHARS, 3L, () -> reader.readCodePoint());
+    }
+    try (BufferedUtf8InputStreamReader reader = reader("a𐍈b", 8192).maxChars(2L).build()) {
+      int[] codePoints = new int[8];
+      assertLimitExceeded(Limit.CHARS, 2L, () -> reader.read(codePoints, 0, codePoints.length));
+    }
+    try (BufferedUtf8InputStreamReader reader = reader("a𐍈b", 8192).maxChars(2L).build()) {
+      char[] buffer = new char[8];
+      assertEquals(2, reader.read(buffer));
+      assertEquals("a\uD800", new String(buffer, 0, 2));
+      // the pending low surrogate counts as well
+      assertLimitExceeded(Limit.CHARS, 2L, () -> reader.read());
+    }
+  }
+
+  @Test
+  void maxCharsMarkReset() throws IOException {
+    try (BufferedUtf8InputStreamReader reader = reader("0123456789", 8192).maxChars(10L).build()) {
+      reader.mark(100);
+      assertEquals(10L, reader.skip(100L));
+      reader.reset();
+      assertEquals("0123456789", transfer(reader));
+    }
+  }
+
+  @Test
+  void maxCharsReadToken() throws IOException {
+    try (BufferedUtf8InputStreamReader reader = reader("01234,56789,a", 8192).maxChars(10L).build()) {
+      assertEquals("01234", reader.readToken(',', null));
+      assertEquals("56789", reader.readToken(',', null));
+      assertLimitExceeded(Limit.CHARS, 10L, () -> reader.readToken(',', null));
+    }
+  }
+
+  @Test
+  void maxLineLength() throws IOException {
+    String valid = "01234\n\nä€\n0123\r\n01234";
+    String invalid = "01234\n012345\n0";
+    for (int bufferSize : new int[] {4, 7, 8192}) {
+      try (BufferedUtf8InputStreamReader reader = reader(valid, bufferSize).maxLineLength(5L).build()) {
+        assertEquals(valid, transfer(reader));
+      }
+      try (BufferedUtf8InputStreamReader reader = reader(invalid, bufferSize).maxLineLength(5L).build()) {
+        assertLimitExceeded(Limit.LINE_LENGTH, 5L, () -> transfer(reader));
+      }
+      try (BufferedUtf8InputStreamReader reader = reader(invalid, bufferSize).maxLineLength(5L).build()) {
+        assertLimitExceeded(Limit.LINE_LENGTH, 5L, () -> {
+          while (reader.skip(100L) > 0L) {
+            // consume
+          }
+        });
+      }
+      try (BufferedUtf8InputStreamReader reader = reader(invalid, bufferSize).maxLineLength(5L).build()) {
+        assertLimitExceeded(Limit.LINE_LENGTH, 5L, () -> {
+          while (reader.read() != -1) {
+            // consume
+          }
+        });
+      }
+      try (BufferedUtf8InputStreamReader reader = reader(invalid, bufferSize).maxLineLength(5L).build()) {
+        assertEquals("01234", reader.readLineContaining("0".getBytes(UTF_8)));
+        assertLimitExceeded(Limit.LINE_LENGTH, 5L, () -> reader.readLineContaining("0".getBytes(UTF_8)));
+      }
+      try (BufferedUtf8InputStreamReader reader = reader(invalid, bufferSize).maxLineLength(5L).build()) {
+        assertEquals("01234", reader.readToken('\n', null));
+        assertLimitExceeded(Limit.LINE_LENGTH, 5L, () -> reader.readToken('\n', null));
+      }
+    }
+  }
+
+  @Test
+  void maxLineLengthUnterminated() throws IOException {
+    // the buffer starts with 16 bytes and grows once before the line is too long
+    RepeatingInputStream in = new RepeatingInputStream((byte) 'a', 50_000_000L);
+    try (BufferedUtf8InputStreamReader reader = BufferedUtf8InputStreamReader.builder(in).bufferSize(16).maxLineLength(16L).build()) {
+      assertLimitExceeded(Limit.LINE_LENGTH, 16L, () -> reader.readToken(',', null));
+    }
+    assertEquals(32L, in.getBytesRead());
+
+    for (String needle : new String[] {"a", "b"}) {
+      in = new RepeatingInputStream((byte) 'a', 50_000_000L);
+      try (BufferedUtf8InputStreamReader reader = BufferedUtf8InputStreamReader.builder(in).bufferSize(16).maxLineLength(16L).build()) {
+        assertLimitExceeded(Limit.LINE_LENGTH, 16L, () -> reader.readLineContaining(needle.getBytes(UTF_8)));
+      }
+      assertEquals(32L, in.getBytesRead());
+    }
+  }
+
+  @Test
+  void message() {
+    assertEquals("line length limit of 5 exceeded", new ReadLimitExceededException(Limit.LINE_LENGTH, 5L).getMessage());
+  }
+
+  private static BufferedUtf8InputStreamReader.Builder reader(String input, int bufferSize) {
+    return BufferedUtf8InputStreamReader.builder(new ByteArrayInputStream(input.getBytes(UTF_8))).bufferSize(bufferSize);
+  }
+
+  private static String transfer(BufferedUtf8InputStreamReader reader) throws IOException {
+    StringWriter writer = new StringWriter();
+    reader.transferTo(writer);
+    return writer.toString();
+  }
+
+  private static void assertLimitExceeded(Limit limit, long maxValue, ThrowingRunnable runnable) {
+    ReadLimitExceededException exception = assertThrows(ReadLimitExceededException.class, runnable::run);
+    assertEquals(limit, exception.getLimit());
+    assertEquals(maxValue, exception.getMaxValue());
+  }
+
+  /**
+   * Returns the same byte a number of times and counts the bytes read.
+   */
+  static final class RepeatingInputStream extends InputStream {
+
+    private final byte value;
+
+    private final long length;
+
+    private long bytesRead;
+
+    RepeatingInputStream(byte value, long length) {
+      this.value = value;
+      this.length = length;
+      this.bytesRead = 0L;
+    }
+
+    long getBytesRead() {
+      return this.bytesRead;
+    }
+
+    @Override
+    public int read() {
+      if (this.bytesRead == this.length) {
+        return -1;
+      }
+      this.bytesRead += 1L;
+      return this.value;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (this.bytesRead == this.length) {
+        return -1;
+      }
+      int read = (int) Math.min(len, this.length - this.bytesRead);
+      Arrays.fill(b, off, off + read, this.value);
+      this.bytesRead += read;
+      return read;
+    }
+
+  }
+
+  @FunctionalInterface
+  interface ThrowingRunnable {
+
+    void run() throws IOException;
+
+  }
+
+}
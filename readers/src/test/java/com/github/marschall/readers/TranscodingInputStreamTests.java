@@ -0,0 +1,155 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_16;
+import static java.nio.charset.StandardCharsets.UTF_16BE;
+import static java.nio.charset.StandardCharsets.UTF_16LE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class TranscodingInputStreamTests {
+
+  private static final Charset[] CHARSETS = {ISO_8859_1, US_ASCII, UTF_16LE, UTF_16BE};
+
+  private static final int[] BUFFER_SIZES = {4, 5, 8192};
+
+  private static final int[] READ_SIZES = {1, 3, 8192};
+
+  @Test
+  void fromUtf8() throws IOException {
+    String input = "ASCII only ASCII only, äÿĀ€한𐍈 and ASCII";
+    for (Charset target : CHARSETS) {
+      assertTranscoded(input.getBytes(target), TranscodingInputStream.fromUtf8(new ByteArrayInputStream(input.getBytes(UTF_8)), target));
+    }
+  }
+
+  @Test
+  void toUtf8() throws IOException {
+    String input = "ASCII only ASCII only, äÿĀ€한𐍈 and ASCII";
+    for (Charset source : CHARSETS) {
+      byte[] bytes = input.getBytes(source);
+      byte[] expected = new String(bytes, source).getBytes(UTF_8);
+      assertTranscoded(expected, TranscodingInputStream.toUtf8(new ByteArrayInputStream(bytes), source));
+    }
+  }
+
+  @Test
+  void fromUtf8Random() throws IOException {
+    Random random = new Random(42L);
+    // ASCII, Latin-1, BMP, supplementary and malformed fragments
+    byte[][] fragments = {
+        "abcdefgh".getBytes(UTF_8), "a".getBytes(UTF_8), "ä".getBytes(UTF_8),
+        "€".getBytes(UTF_8), "𐍈".getBytes(UTF_8),
+        {(byte) 0x80}, {(byte) 0xE2, (byte) 0x82}, {(byte) 0xF0, (byte) 0x90},
+        {(byte) 0xED, (byte) 0xA0, (byte) 0x80}, {(byte) 0xC0, (byte) 0xAF}, {(byte) 0xFF}};
+    for (int i = 0; i < 500; i++) {
+      byte[] input = randomInput(random, fragments);
+      for (Charset target : CHARSETS) {
+        byte[] expected = new String(input, UTF_8).getBytes(target);
+        for (int bufferSize : BUFFER_SIZES) {
+          for (int readSize : READ_SIZES) {
+            InputStream stream = TranscodingInputStream.fromUtf8(new ByteArrayInputStream(input), target, bufferSize);
+            assertArrayEquals(expected, readAll(stream, readSize), target.name());
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void toUtf8Random() throws IOException {
+    Random random = new Random(42L);
+    for (int i = 0; i < 500; i++) {
+      byte[] input = new byte[random.nextInt(40)];
+      for (int j = 0; j < input.length; j++) {
+        // mostly ASCII with surrogate and high bytes
+        switch (random.nextInt(4)) {
+          case 0:
+            input[j] = (byte) (0xD8 + random.nextInt(8));
+            break;
+          case 1:
+            input[j] = (byte) random.nextInt(256);
+            break;
+          default:
+            input[j] = (byte) ('a' + random.nextInt(26));
+            break;
+        }
+      }
+      for (Charset source : CHARSETS) {
+        byte[] expected = new String(input, source).getBytes(UTF_8);
+        for (int bufferSize : BUFFER_SIZES) {
+          for (int readSize : READ_SIZES) {
+            InputStream stream = TranscodingInputStream.toUtf8(new ByteArrayInputStream(input), source, bufferSize);
+            assertArrayEquals(expected, readAll(stream, readSize), source.name());
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void singleByteRead() throws IOException {
+    try (InputStream stream = TranscodingInputStream.fromUtf8(new ByteArrayInputStream("a€".getBytes(UTF_8)), UTF_16BE)) {
+      assertEquals(0x00, stream.read());
+      assertEquals('a', stream.read());
+      assertEquals(0x20, stream.read());
+      assertEquals(0xAC, stream.read());
+      assertEquals(-1, stream.read());
+      assertEquals(-1, stream.read());
+    }
+  }
+
+  @Test
+  void invalidArguments() throws IOException {
+    InputStream in = new ByteArrayInputStream(new byte[0]);
+    assertThrows(IllegalArgumentException.class, () -> TranscodingInputStream.fromUtf8(in, UTF_16));
+    assertThrows(IllegalArgumentException.class, () -> TranscodingInputStream.toUtf8(in, UTF_8));
+    assertThrows(NullPointerException.class, () -> TranscodingInputStream.fromUtf8(null, ISO_8859_1));
+    InputStream stream = TranscodingInputStream.fromUtf8(in, ISO_8859_1);
+    stream.close();
+    assertThrows(IOException.class, () -> stream.read());
+  }
+
+  private static byte[] randomInput(Random random, byte[][] fragments) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    int length = random.nextInt(20);
+    for (int i = 0; i < length; i++) {
+      buffer.writeBytes(fragments[random.nextInt(fragments.length)]);
+    }
+    return buffer.toByteArray();
+  }
+
+  private static void assertTranscoded(byte[] expected, InputStream stream) throws IOException {
+    try (stream) {
+      assertArrayEquals(expected, stream.readAllBytes());
+    }
+  }
+
+  private static byte[] readAll(InputStream stream, int readSize) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    byte[] buffer = new byte[readSize];
+    try (stream) {
+      int read = stream.read(buffer, 0, readSize);
+      while (read != -1) {
+        assertTrue(read > 0);
+        result.write(buffer, 0, read);
+        read = stream.read(buffer, 0, readSize);
+      }
+    }
+    return result.toByteArray();
+  }
+
+}
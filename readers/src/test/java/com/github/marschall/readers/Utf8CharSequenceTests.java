@@ -0,0 +1,120 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+class Utf8CharSequenceTests {
+
+  private static final String MIXED = "INFO ä€𐍈 request 1\nERROR 한 failed 42\n";
+
+  @Test
+  void ascii() {
+    String input = "INFO request 1\nERROR failed 42\n".repeat(10);
+    Utf8CharSequence sequence = new Utf8CharSequence(input.getBytes(UTF_8));
+    assertTrue(sequence.isAscii());
+    assertSequence(input, sequence);
+  }
+
+  @Test
+  void nonAscii() {
+    for (int repeat : new int[] {0, 1, 30, 300}) {
+      String input = MIXED.repeat(repeat);
+      Utf8CharSequence sequence = new Utf8CharSequence(input.getBytes(UTF_8));
+      assertEquals(repeat == 0, sequence.isAscii());
+      assertSequence(input, sequence);
+    }
+  }
+
+  @Test
+  void randomAccess() {
+    String input = MIXED.repeat(300);
+    Utf8CharSequence sequence = new Utf8CharSequence(input.getBytes(UTF_8));
+    for (int i = input.length() - 1; i >= 0; i -= 97) {
+      assertEquals(input.charAt(i), sequence.charAt(i));
+      assertEquals(input.charAt(input.length() - 1 - i), sequence.charAt(input.length() - 1 - i));
+    }
+  }
+
+  @Test
+  void subSequence() {
+    String input = MIXED.repeat(100);
+    Utf8CharSequence sequence = new Utf8CharSequence(input.getBytes(UTF_8));
+    CharSequence view = sequence.subSequence(1000, 3000);
+    assertSequence(input.substring(1000, 3000), view);
+    assertSequence(input.substring(1100, 1200), view.subSequence(100, 200));
+    assertEquals("", sequence.subSequence(5, 5).toString());
+    assertThrows(IndexOutOfBoundsException.class, () -> sequence.subSequence(-1, 5));
+    assertThrows(IndexOutOfBoundsException.class, () -> sequence.charAt(input.length()));
+    assertThrows(IndexOutOfBoundsException.class, () -> view.charAt(2000));
+  }
+
+  @Test
+  void byteBuffer() {
+    String input = MIXED.repeat(20);
+    byte[] bytes = input.getBytes(UTF_8);
+    byte[] padded = new byte[bytes.length + 10];
+    System.arraycopy(bytes, 0, padded, 5, bytes.length);
+    ByteBuffer heap = ByteBuffer.wrap(padded, 5, bytes.length);
+    assertSequence(input, new Utf8CharSequence(heap));
+    assertSequence(input, new Utf8CharSequence(heap.slice()));
+    assertEquals(5, heap.position());
+
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    assertSequence(input, new Utf8CharSequence(direct));
+    assertEquals(0, direct.position());
+  }
+
+  @Test
+  void malformed() {
+    byte[] bytes = new byte[2000];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) ((i % 7 == 0) ? 0x80 : (i % 11 == 0) ? 0xE2 : 'a');
+    }
+    Utf8CharSequence sequence = new Utf8CharSequence(bytes);
+    assertFalse(sequence.isAscii());
+    String decoded = sequence.toString();
+    assertEquals(sequence.length(), decoded.length());
+    assertTrue(decoded.indexOf('�') >= 0);
+    for (int i = 0; i < decoded.length(); i++) {
+      assertEquals(decoded.charAt(i), sequence.charAt(i));
+    }
+  }
+
+  @Test
+  void regex() {
+    String input = MIXED.repeat(500);
+    Pattern pattern = Pattern.compile("ERROR (\\S+) failed (\\d+)");
+    List<String> expected = findAll(pattern, input);
+    assertEquals(500, expected.size());
+    assertEquals(expected, findAll(pattern, new Utf8CharSequence(input.getBytes(UTF_8))));
+  }
+
+  private static List<String> findAll(Pattern pattern, CharSequence input) {
+    List<String> matches = new ArrayList<>();
+    Matcher matcher = pattern.matcher(input);
+    while (matcher.find()) {
+      matches.add(matcher.start() + ":" + matcher.group(1) + ":" + matcher.group(2));
+    }
+    return matches;
+  }
+
+  private static void assertSequence(String expected, CharSequence actual) {
+    assertEquals(expected.length(), actual.length());
+    for (int i = 0; i < expected.length(); i++) {
+      assertEquals(expected.charAt(i), actual.charAt(i));
+    }
+    assertEquals(expected, actual.toString());
+  }
+
+}
@@ -0,0 +1,92 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class Utf8CodecTests {
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+      "",
+      "ASCII only ASCII only",
+      "ASCII only ASCII only, ¢ह€한𐍈 and ASCII",
+      "😀😀😀😀😀😀😀😀😀"})
+  void roundTrip(String s) {
+    char[] chars = s.toCharArray();
+    byte[] bytes = new byte[chars.length * 3 + 1];
+    long encoded = Utf8Codec.encode(chars, 0, chars.length, bytes, 1);
+    assertEquals(chars.length, Utf8Codec.consumed(encoded));
+    byte[] expectedBytes = s.getBytes(UTF_8);
+    assertArrayEquals(expectedBytes, Arrays.copyOfRange(bytes, 1, 1 + Utf8Codec.produced(encoded)));
+
+    char[] decoded = new char[chars.length + 1];
+    long result = Utf8Codec.decode(bytes, 1, Utf8Codec.produced(encoded), decoded, 1);
+    assertEquals(expectedBytes.length, Utf8Codec.consumed(result));
+    assertEquals(chars.length, Utf8Codec.produced(result));
+    assertEquals(s, new String(decoded, 1, chars.length));
+  }
+
+  @Test
+  void decodeDestinationFull() {
+    byte[] input = "0123456789€😀".getBytes(UTF_8);
+    char[] output = new char[12];
+    long result = Utf8Codec.decode(input, 0, input.length, output, 0);
+    // the surrogate pair is not split
+    assertEquals(13, Utf8Codec.consumed(result));
+    assertEquals(11, Utf8Codec.produced(result));
+    assertEquals("0123456789€", new String(output, 0, 11));
+  }
+
+  @Test
+  void decodeIncompleteInput() {
+    byte[] input = {'a', (byte) 0xE2, (byte) 0x82};
+    char[] output = new char[4];
+    long result = Utf8Codec.decode(input, 0, input.length, output, 0);
+    assertEquals(3, Utf8Codec.consumed(result));
+    assertEquals(2, Utf8Codec.produced(result));
+    assertEquals("a�", new String(output, 0, 2));
+
+    result = Utf8Codec.decode(input, 0, input.length, output, 0, output.length, false);
+    assertEquals(1, Utf8Codec.consumed(result));
+    assertEquals(1, Utf8Codec.produced(result));
+  }
+
+  @Test
+  void encodeUnpairedSurrogates() {
+    String s = "a\uD800b\uDC00\uD800";
+    char[] chars = s.toCharArray();
+    byte[] output = new byte[16];
+    long result = Utf8Codec.encode(chars, 0, chars.length, output, 0);
+    assertEquals(chars.length, Utf8Codec.consumed(result));
+    assertArrayEquals(s.getBytes(UTF_8), Arrays.copyOf(output, Utf8Codec.produced(result)));
+  }
+
+  @Test
+  void encodeDestinationFull() {
+    char[] chars = "0123456789€".toCharArray();
+    byte[] output = new byte[12];
+    long result = Utf8Codec.encode(chars, 0, chars.length, output, 0);
+    assertEquals(10, Utf8Codec.consumed(result));
+    assertEquals(10, Utf8Codec.produced(result));
+  }
+
+  @Test
+  void bounds() {
+    byte[] bytes = new byte[4];
+    char[] chars = new char[4];
+    assertThrows(IndexOutOfBoundsException.class, () -> Utf8Codec.decode(bytes, 1, 4, chars, 0));
+    assertThrows(IndexOutOfBoundsException.class, () -> Utf8Codec.decode(bytes, 0, 4, chars, 5));
+    assertThrows(IndexOutOfBoundsException.class, () -> Utf8Codec.encode(chars, -1, 2, bytes, 0));
+    assertThrows(IndexOutOfBoundsException.class, () -> Utf8Codec.encode(chars, 0, 4, bytes, 5));
+    assertEquals(0L, Utf8Codec.decode(bytes, 0, 4, chars, 4));
+  }
+
+}
@@ -0,0 +1,325 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class Utf8DecodingProcessorTests {
+
+  private static final String CONTENT = "ASCII only ASCII only, ¢ह€한𐍈 and ASCII\n";
+
+  @Test
+  void decode() {
+    String input = CONTENT.repeat(100);
+    for (int chunkSize : new int[] {1, 2, 3, 5, 7, 64, 100_000}) {
+      Utf8DecodingProcessor processor = new Utf8DecodingProcessor(16);
+      ListPublisher publisher = new ListPublisher(split(input.getBytes(UTF_8), chunkSize));
+      publisher.subscribe(processor);
+      CollectingSubscriber subscriber = new CollectingSubscriber(processor, Long.MAX_VALUE);
+      processor.subscribe(subscriber);
+      assertTrue(subscriber.completed);
+      assertNull(subscriber.error);
+      assertEquals(input, subscriber.toString());
+      for (String chunk : subscriber.chunks) {
+        assertTrue(chunk.length() <= 16);
+        assertFalse(Character.isHighSurrogate(chunk.charAt(chunk.length() - 1)));
+      }
+    }
+  }
+
+  @Test
+  void malformed() {
+    byte[] input = {'a', (byte) 0xFF, 'b', (byte) 0xE2, (byte) 0x82};
+    Utf8DecodingProcessor processor = new Utf8DecodingProcessor();
+    new ListPublisher(split(input, 1)).subscribe(processor);
+    CollectingSubscriber subscriber = new CollectingSubscriber(processor, Long.MAX_VALUE);
+    processor.subscribe(subscriber);
+    assertTrue(subscriber.completed);
+    assertEquals("a�b�", subscriber.toString());
+  }
+
+  @Test
+  void backpressure() {
+    byte[] input = "0123456789".repeat(10).getBytes(UTF_8);
+    Utf8DecodingProcessor processor = new Utf8DecodingProcessor(4);
+    ListPublisher publisher = new ListPublisher(split(input, 10));
+    publisher.subscribe(processor);
+    CollectingSubscriber subscriber = new CollectingSubscriber(processor, 0L);
+    processor.subscribe(subscriber);
+    assertEquals(0, publisher.requested);
+    assertEquals(0, subscriber.chunks.size());
+
+    subscriber.subscription.request(1L);
+    assertEquals(1, publisher.requested);
+    assertEquals(List.of("0123"), subscriber.chunks);
+
+    // the first buffer is not consumed yet, nothing is requested
+    subscriber.subscription.request(2L);
+    assertEquals(1, publisher.requested);
+    assertEquals(List.of("0123", "4567", "89"), subscriber.chunks);
+
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertTrue(subscriber.completed);
+    assertEquals(10, publisher.requested);
+    assertEquals(new String(input, UTF_8), subscriber.toString());
+  }
+
+  @Test
+  void completeWithoutDemand() {
+    Utf8DecodingProcessor processor = new Utf8DecodingProcessor();
+    new ListPublisher(List.of()).subscribe(processor);
+    CollectingSubscriber subscriber = new CollectingSubscriber(processor, 0L);
+    processor.subscribe(subscriber);
+    subscriber.subscription.request(1L);
+    assertTrue(subscriber.completed);
+    assertEquals(0, subscriber.chunks.size());
+  }
+
+  @Test
+  void buffersAreRecycled() {
+    Utf8DecodingProcessor processor = new Utf8DecodingProcessor(4);
+    new ListPublisher(split("0123456789ab".getBytes(UTF_8), 4)).subscribe(processor);
+    List<CharBuffer> received = new ArrayList<>();
+    processor.subscribe(new Flow.Subscriber<CharBuffer>() {
+
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+      }
+
+      @Override
+      public void onNext(CharBuffer item) {
+        received.add(item);
+        processor.release(item);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        throw new AssertionError(throwable);
+      }
+
+      @Override
+      public void onComplete() {
+        // ignore
+      }
+
+    });
+    assertEquals(3, received.size());
+    assertSame(received.get(0), received.get(1));
+    assertSame(received.get(1), received.get(2));
+  }
+
+  @Test
+  void foreignBuffersAreNotRecycled() {
+    Utf8DecodingProcessor processor = new Utf8DecodingProcessor(4);
+    char[] callerArray = new char[4];
+    processor.release(CharBuffer.wrap(callerArray));
+    new ListPublisher(split("0123456789ab".getBytes(UTF_8), 4)).subscribe(processor);
+    CollectingSubscriber subscriber = new CollectingSubscriber(processor, Long.MAX_VALUE);
+    processor.subscribe(subscriber);
+    assertEquals("0123456789ab", subscriber.toString());
+    assertArrayEquals(new char[4], callerArray);
+  }
+
+  @Test
+  void error() {
+    Utf8DecodingProcessor processor = new Utf8DecodingProcessor();
+    CollectingSubscriber subscriber = new CollectingSubscriber(processor, Long.MAX_VALUE);
+    processor.subscribe(subscriber);
+    processor.onSubscribe(new Utf8DecodingProcessor.CancelledSubscription());
+    IllegalStateException exception = new IllegalStateException();
+    processor.onError(exception);
+    assertSame(exception, subscriber.error);
+
+    CollectingSubscriber second = new CollectingSubscriber(processor, Long.MAX_VALUE);
+    processor.subscribe(second);
+    assertTrue(second.error instanceof IllegalStateException);
+  }
+
+  @Test
+  void nonPositiveRequest() {
+    Utf8DecodingProcessor processor = new Utf8DecodingProcessor();
+    ListPublisher publisher = new ListPublisher(List.of(ByteBuffer.wrap(new byte[] {'a'})));
+    publisher.subscribe(processor);
+    CollectingSubscriber subscriber = new CollectingSubscriber(processor, 0L);
+    processor.subscribe(subscriber);
+    subscriber.subscription.request(0L);
+    assertTrue(subscriber.error instanceof IllegalArgumentException);
+    assertTrue(publisher.cancelled);
+  }
+
+  @Test
+  void asynchronous() throws Exception {
+    String input = CONTENT.repeat(1000);
+    byte[] bytes = input.getBytes(UTF_8);
+    Utf8DecodingProcessor processor = new Utf8DecodingProcessor(64);
+    StringBuilder builder = new StringBuilder();
+    CompletableFuture<String> result = new CompletableFuture<>();
+    processor.subscribe(new Flow.Subscriber<CharBuffer>() {
+
+      private Flow.Subscription subscription;
+
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1L);
+      }
+
+      @Override
+      public void onNext(CharBuffer item) {
+        builder.append(item);
+        processor.release(item);
+        this.subscription.request(1L);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+      }
+
+      @Override
+      public void onComplete() {
+        result.complete(builder.toString());
+      }
+
+    });
+    try (SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>()) {
+      publisher.subscribe(processor);
+      for (ByteBuffer chunk : split(bytes, 37)) {
+        publisher.submit(chunk);
+      }
+    }
+    assertEquals(input, result.get(1L, TimeUnit.MINUTES));
+  }
+
+  private static List<ByteBuffer> split(byte[] bytes, int chunkSize) {
+    List<ByteBuffer> chunks = new ArrayList<>();
+    for (int i = 0; i < bytes.length; i += chunkSize) {
+      byte[] chunk = Arrays.copyOfRange(bytes, i, Math.min(i + chunkSize, bytes.length));
+      // alternate heap and direct buffers
+      if ((chunks.size() % 2) == 0) {
+        chunks.add(ByteBuffer.wrap(chunk));
+      } else {
+        chunks.add(ByteBuffer.allocateDirect(chunk.length).put(chunk).flip());
+      }
+    }
+    return chunks;
+  }
+
+  /**
+   * Synchronously publishes a list of buffers on demand.
+   */
+  static final class ListPublisher implements Flow.Publisher<ByteBuffer> {
+
+    private final List<ByteBuffer> buffers;
+
+    int requested;
+
+    boolean cancelled;
+
+    private int index;
+
+    ListPublisher(List<ByteBuffer> buffers) {
+      this.buffers = buffers;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+
+        @Override
+        public void request(long n) {
+          ListPublisher.this.requested += (int) n;
+          for (long i = 0; (i < n) && !ListPublisher.this.cancelled; i++) {
+            if (ListPublisher.this.index < ListPublisher.this.buffers.size()) {
+              subscriber.onNext(ListPublisher.this.buffers.get(ListPublisher.this.index++));
+            }
+            if (ListPublisher.this.index == ListPublisher.this.buffers.size()) {
+              ListPublisher.this.cancelled = true;
+              subscriber.onComplete();
+            }
+          }
+        }
+
+        @Override
+        public void cancel() {
+          ListPublisher.this.cancelled = true;
+        }
+
+      });
+      if (this.buffers.isEmpty()) {
+        this.cancelled = true;
+        subscriber.onComplete();
+      }
+    }
+
+  }
+
+  static final class CollectingSubscriber implements Flow.Subscriber<CharBuffer> {
+
+    private final Utf8DecodingProcessor processor;
+
+    private final long initialRequest;
+
+    final List<String> chunks;
+
+    Flow.Subscription subscription;
+
+    boolean completed;
+
+    Throwable error;
+
+    CollectingSubscriber(Utf8DecodingProcessor processor, long initialRequest) {
+      this.processor = processor;
+      this.initialRequest = initialRequest;
+      this.chunks = new ArrayList<>();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (this.initialRequest > 0L) {
+        subscription.request(this.initialRequest);
+      }
+    }
+
+    @Override
+    public void onNext(CharBuffer item) {
+      this.chunks.add(item.toString());
+      this.processor.release(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      this.error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      this.completed = true;
+    }
+
+    @Override
+    public String toString() {
+      return String.join("", this.chunks);
+    }
+
+  }
+
+}
@@ -0,0 +1,118 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class Utf8FieldReaderTests {
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 4, 7, 8192})
+  void unquoted(int bufferSize) throws IOException {
+    String input = "GET,200,eu-west-1\nPOST,404,ä€𐍈\r\n,,\n\nlast";
+    assertEquals(List.of(
+        List.of("GET", "200", "eu-west-1"),
+        List.of("POST", "404", "ä€𐍈"),
+        List.of("", "", ""),
+        List.of(""),
+        List.of("last")),
+        readAll(input, ',', bufferSize));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 4, 7, 8192})
+  void quoted(int bufferSize) throws IOException {
+    String input = "\"a,b\",\"say \"\"hi\"\"\",\"multi\r\nline\"\r\n\"\"\"\"\"\",\"x\"y,\"unterminated";
+    assertEquals(List.of(
+        List.of("a,b", "say \"hi\"", "multi\r\nline"),
+        List.of("\"\"", "xy", "unterminated")),
+        readAll(input, ',', bufferSize));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 4, 7, 8192})
+  void quotedCarriageReturn(int bufferSize) throws IOException {
+    // only a carriage return after the closing quote ends the line
+    String input = "\"c\r\"\n\"c\r\"\r\n\"c\"x\r\n\"c\r\"";
+    assertEquals(List.of(
+        List.of("c\r"),
+        List.of("c\r"),
+        List.of("cx"),
+        List.of("c\r")),
+        readAll(input, ',', bufferSize));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 4, 7, 8192})
+  void tabSeparated(int bufferSize) throws IOException {
+    String input = "key\tvalue\nlong-enough-for-swar-scanning\tÄÖÜ äöü\n";
+    assertEquals(List.of(
+        List.of("key", "value"),
+        List.of("long-enough-for-swar-scanning", "ÄÖÜ äöü")),
+        readAll(input, '\t', bufferSize));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 8192})
+  void getChars(int bufferSize) throws IOException {
+    String input = "a,\"ä€𐍈\"";
+    try (Utf8FieldReader reader = new Utf8FieldReader(new ByteArrayInputStream(input.getBytes(UTF_8)), ',', bufferSize)) {
+      assertEquals(true, reader.nextRecord());
+      assertEquals(9, reader.getByteLength(1));
+      char[] chars = new char[10];
+      int length = reader.getChars(1, chars, 1);
+      assertEquals("ä€𐍈", new String(chars, 1, length));
+      assertThrows(IndexOutOfBoundsException.class, () -> reader.getChars(1, chars, 2));
+      assertThrows(IndexOutOfBoundsException.class, () -> reader.getString(2));
+      assertFalse(reader.nextRecord());
+      assertEquals(0, reader.getFieldCount());
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 8192})
+  void symbolTable(int bufferSize) throws IOException {
+    String input = "GET,200\nGET,404\n";
+    Utf8SymbolTable symbolTable = new Utf8SymbolTable();
+    try (Utf8FieldReader reader = new Utf8FieldReader(new ByteArrayInputStream(input.getBytes(UTF_8)), ',', bufferSize)) {
+      assertEquals(true, reader.nextRecord());
+      String first = reader.getString(0, symbolTable);
+      assertEquals("GET", first);
+      assertEquals(true, reader.nextRecord());
+      assertSame(first, reader.getString(0, symbolTable));
+      assertFalse(reader.nextRecord());
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(chars = {'"', '\r', '\n', 'ä'})
+  void invalidDelimiter(char delimiter) {
+    assertThrows(IllegalArgumentException.class, () -> new Utf8FieldReader(new ByteArrayInputStream(new byte[0]), delimiter));
+  }
+
+  private static List<List<String>> readAll(String input, char delimiter, int bufferSize) throws IOException {
+    List<List<String>> records = new ArrayList<>();
+    try (Utf8FieldReader reader = new Utf8FieldReader(new ByteArrayInputStream(input.getBytes(UTF_8)), delimiter, bufferSize)) {
+      while (reader.nextRecord()) {
+        List<String> fields = new ArrayList<>(reader.getFieldCount());
+        for (int i = 0; i < reader.getFieldCount(); i++) {
+          fields.add(reader.getString(i));
+        }
+        records.add(fields);
+      }
+      assertFalse(reader.nextRecord());
+    }
+    return records;
+  }
+
+}
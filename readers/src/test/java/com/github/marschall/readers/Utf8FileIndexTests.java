@@ -0,0 +1,121 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class Utf8FileIndexTests {
+
+  private static final String CONTENT = "line 1 aä€𐍈\n\nline 3 0123456789\n𐍈𐍈𐍈𐍈\nlast line";
+
+  @Test
+  void build(@TempDir Path temporaryFolder) throws IOException {
+    Path file = write(temporaryFolder, CONTENT);
+    Utf8FileIndex index = Utf8FileIndex.build(file, 5);
+    assertEquals(CONTENT.getBytes(UTF_8).length, index.getByteLength());
+    assertEquals(CONTENT.length(), index.getCharLength());
+    assertEquals(5L, index.getLineCount());
+    assertTrue(index.getCheckpointCount() > 10);
+
+    assertEquals(1, Utf8FileIndex.build(file).getCheckpointCount());
+    assertThrows(IllegalArgumentException.class, () -> Utf8FileIndex.build(file, 3));
+  }
+
+  @Test
+  void openAtChar(@TempDir Path temporaryFolder) throws IOException {
+    Path file = write(temporaryFolder, CONTENT);
+    for (int interval : new int[] {4, 7, 64}) {
+      Utf8FileIndex index = Utf8FileIndex.build(file, interval);
+      for (int i = 0; i <= CONTENT.length(); i++) {
+        try (BufferedUtf8InputStreamReader reader = index.openAtChar(file, i)) {
+          String prefix = CONTENT.substring(0, i);
+          assertEquals(lineNumber(prefix), reader.getLineNumber());
+          assertEquals(columnNumber(prefix), reader.getColumnNumber());
+          assertEquals(CONTENT.substring(i), readAll(reader));
+        }
+      }
+      assertThrows(IllegalArgumentException.class, () -> index.openAtChar(file, -1L));
+      assertThrows(IllegalArgumentException.class, () -> index.openAtChar(file, CONTENT.length() + 1L));
+    }
+  }
+
+  @Test
+  void openAtLine(@TempDir Path temporaryFolder) throws IOException {
+    Path file = write(temporaryFolder, CONTENT);
+    String[] lines = CONTENT.split("\n", -1);
+    for (int interval : new int[] {4, 7, 64}) {
+      Utf8FileIndex index = Utf8FileIndex.build(file, interval);
+      for (int line = 1; line <= lines.length; line++) {
+        try (BufferedUtf8InputStreamReader reader = index.openAtLine(file, line)) {
+          assertEquals(line, reader.getLineNumber());
+          assertEquals(1L, reader.getColumnNumber());
+          assertEquals(String.join("\n", Arrays.copyOfRange(lines, line - 1, lines.length)), readAll(reader));
+        }
+      }
+      assertThrows(IllegalArgumentException.class, () -> index.openAtLine(file, 0L));
+      assertThrows(IllegalArgumentException.class, () -> index.openAtLine(file, lines.length + 1L));
+    }
+  }
+
+  @Test
+  void writeAndRead(@TempDir Path temporaryFolder) throws IOException {
+    String content = CONTENT.repeat(100);
+    Path file = write(temporaryFolder, content);
+    Utf8FileIndex index = Utf8FileIndex.build(file, 64);
+    Path indexFile = temporaryFolder.resolve("input.txt.idx");
+    index.write(indexFile);
+
+    Utf8FileIndex read = Utf8FileIndex.read(indexFile);
+    assertEquals(index.getByteLength(), read.getByteLength());
+    assertEquals(index.getCharLength(), read.getCharLength());
+    assertEquals(index.getLineCount(), read.getLineCount());
+    assertEquals(index.getCheckpointCount(), read.getCheckpointCount());
+    try (BufferedUtf8InputStreamReader reader = read.openAtLine(file, 250L)) {
+      String line = content.split("\n", -1)[249];
+      assertEquals(line, readAll(reader).substring(0, line.length()));
+    }
+
+    Files.write(indexFile, new byte[] {1, 2, 3, 4});
+    assertThrows(IOException.class, () -> Utf8FileIndex.read(indexFile));
+  }
+
+  @Test
+  void fileChanged(@TempDir Path temporaryFolder) throws IOException {
+    Path file = write(temporaryFolder, CONTENT);
+    Utf8FileIndex index = Utf8FileIndex.build(file, 8);
+    write(temporaryFolder, CONTENT + "\nappended");
+    assertThrows(IOException.class, () -> index.openAtChar(file, 0L));
+    assertThrows(IOException.class, () -> index.openAtLine(file, 2L));
+  }
+
+  private static Path write(Path temporaryFolder, String content) throws IOException {
+    Path file = temporaryFolder.resolve("input.txt");
+    Files.write(file, content.getBytes(UTF_8));
+    return file;
+  }
+
+  private static String readAll(BufferedUtf8InputStreamReader reader) throws IOException {
+    StringWriter writer = new StringWriter();
+    reader.transferTo(writer);
+    return writer.toString();
+  }
+
+  private static long lineNumber(String prefix) {
+    return prefix.chars().filter(c -> c == '\n').count() + 1L;
+  }
+
+  private static long columnNumber(String prefix) {
+    return prefix.length() - prefix.lastIndexOf('\n');
+  }
+
+}
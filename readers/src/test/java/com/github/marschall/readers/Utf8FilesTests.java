@@ -0,0 +1,100 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class Utf8FilesTests {
+
+  @Test
+  void lines(@TempDir Path temporaryFolder) throws IOException {
+    String[] contents = {
+        "", "\n", "a", "a\n", "\n\n", "a\r\nb\rc\n\rd", "line 1 aä€𐍈\n\nline 3\r\n𐍈𐍈𐍈𐍈\r",
+        "x".repeat(20_000) + "\r\n" + "€".repeat(10_000)
+    };
+    for (String content : contents) {
+      Path file = Files.writeString(temporaryFolder.resolve("lines.txt"), content);
+      assertEquals(jdkLines(file), utf8Lines(file, false));
+    }
+  }
+
+  @Test
+  void malformed(@TempDir Path temporaryFolder) throws IOException {
+    Path file = Files.write(temporaryFolder.resolve("malformed.txt"), new byte[] {'a', (byte) 0x80, '\n', (byte) 0xE2, (byte) 0x82});
+    assertEquals(List.of("a�", "�"), utf8Lines(file, false));
+  }
+
+  @Test
+  void parallel(@TempDir Path temporaryFolder) throws IOException {
+    Random random = new Random(42L);
+    String[] words = {"word", "ä", "€", "𐍈", " ", "\n", "\r\n", "\r", "0123456789"};
+    StringBuilder buffer = new StringBuilder();
+    while (buffer.length() < 1024 * 1024) {
+      buffer.append(words[random.nextInt(words.length)]);
+    }
+    Path file = Files.writeString(temporaryFolder.resolve("parallel.txt"), buffer);
+    List<String> expected = jdkLines(file);
+    assertEquals(expected, utf8Lines(file, false));
+    assertEquals(expected, utf8Lines(file, true));
+  }
+
+  @Test
+  void trySplit() {
+    StringBuilder buffer = new StringBuilder();
+    for (int i = 0; i < 10_000; i++) {
+      buffer.append("line ").append(i).append(" ä€𐍈\n");
+    }
+    String content = buffer.toString();
+    byte[] bytes = content.getBytes(UTF_8);
+    Spliterator<String> spliterator = new Utf8LineSpliterator(ByteBuffer.wrap(bytes), 0, bytes.length);
+    List<Spliterator<String>> splits = new ArrayList<>();
+    splitAll(spliterator, splits);
+    assertTrue(splits.size() > 8);
+
+    List<String> lines = new ArrayList<>();
+    for (Spliterator<String> split : splits) {
+      split.forEachRemaining(lines::add);
+      // consumed splits are not split any further
+      assertNull(split.trySplit());
+    }
+    assertEquals(List.of(content.split("\n")), lines);
+  }
+
+  private static void splitAll(Spliterator<String> spliterator, List<Spliterator<String>> splits) {
+    Spliterator<String> prefix = spliterator.trySplit();
+    if (prefix == null) {
+      splits.add(spliterator);
+      return;
+    }
+    splitAll(prefix, splits);
+    splitAll(spliterator, splits);
+  }
+
+  private static List<String> jdkLines(Path file) throws IOException {
+    try (Stream<String> lines = Files.lines(file)) {
+      return lines.collect(Collectors.toList());
+    }
+  }
+
+  private static List<String> utf8Lines(Path file, boolean parallel) throws IOException {
+    try (Stream<String> lines = Utf8Files.lines(file)) {
+      return (parallel ? lines.parallel() : lines).collect(Collectors.toList());
+    }
+  }
+
+}
@@ -0,0 +1,78 @@
+package com.github.marschall.readers;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.marschall.readers.Utf8SymbolTable.EvictionPolicy;
+
+class Utf8SymbolTableTests {
+
+  @Test
+  void hitsAndMisses() {
+    Utf8SymbolTable symbolTable = new Utf8SymbolTable();
+    byte[] input = "xGETxGETx".getBytes(UTF_8);
+    String first = symbolTable.lookup(input, 1, 3);
+    assertEquals("GET", first);
+    assertSame(first, symbolTable.lookup(input, 5, 3));
+    assertEquals(1L, symbolTable.getHits());
+    assertEquals(1L, symbolTable.getMisses());
+    assertEquals("", symbolTable.lookup(input, 0, 0));
+  }
+
+  @Test
+  void nonAscii() {
+    Utf8SymbolTable symbolTable = new Utf8SymbolTable();
+    byte[] input = "ä€𐍈".getBytes(UTF_8);
+    String first = symbolTable.lookup(input, 0, input.length);
+    assertEquals("ä€𐍈", first);
+    assertSame(first, symbolTable.lookup(input.clone(), 0, input.length));
+  }
+
+  @Test
+  void longTokensNotCached() {
+    Utf8SymbolTable symbolTable = new Utf8SymbolTable(16, 4, EvictionPolicy.REPLACE);
+    byte[] input = "abcde".getBytes(UTF_8);
+    String first = symbolTable.lookup(input, 0, input.length);
+    assertEquals("abcde", first);
+    assertNotSame(first, symbolTable.lookup(input, 0, input.length));
+    assertEquals(0L, symbolTable.getHits());
+    assertEquals(0L, symbolTable.getMisses());
+  }
+
+  @Test
+  void replace() {
+    Utf8SymbolTable symbolTable = new Utf8SymbolTable(1, 8, EvictionPolicy.REPLACE);
+    byte[] a = "a".getBytes(UTF_8);
+    byte[] b = "b".getBytes(UTF_8);
+    String first = symbolTable.lookup(a, 0, 1);
+    symbolTable.lookup(b, 0, 1);
+    assertNotSame(first, symbolTable.lookup(a, 0, 1));
+    assertEquals(2L, symbolTable.getEvictions());
+  }
+
+  @Test
+  void retain() {
+    Utf8SymbolTable symbolTable = new Utf8SymbolTable(1, 8, EvictionPolicy.RETAIN);
+    byte[] a = "a".getBytes(UTF_8);
+    byte[] b = "b".getBytes(UTF_8);
+    String first = symbolTable.lookup(a, 0, 1);
+    assertEquals("b", symbolTable.lookup(b, 0, 1));
+    assertSame(first, symbolTable.lookup(a, 0, 1));
+    assertEquals(0L, symbolTable.getEvictions());
+  }
+
+  @Test
+  void invalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new Utf8SymbolTable(0, 8, EvictionPolicy.REPLACE));
+    assertThrows(IllegalArgumentException.class, () -> new Utf8SymbolTable(8, 0, EvictionPolicy.REPLACE));
+    assertThrows(NullPointerException.class, () -> new Utf8SymbolTable(8, 8, null));
+    assertEquals(8, new Utf8SymbolTable(5, 8, EvictionPolicy.REPLACE).getCapacity());
+    assertThrows(IndexOutOfBoundsException.class, () -> new Utf8SymbolTable().lookup(new byte[1], 1, 1));
+  }
+
+}
@@ -1,8 +1,13 @@
 package com.github.marschall.readers;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 
@@ -30,4 +35,112 @@ class Utf8UtilsTest {
 //    assertThrows(IOException.class, () -> Utf8Utils.getByteLength((byte) -1));
   }
 
+  @Test
+  void indexOf() {
+    byte[] input = "0123456789abcdef,0123\n".getBytes(UTF_8);
+    assertEquals(16, Utf8Utils.indexOf(input, 0, input.length, (byte) ',', (byte) '\n'));
+    assertEquals(21, Utf8Utils.indexOf(input, 17, input.length, (byte) ',', (byte) '\n'));
+    assertEquals(-1, Utf8Utils.indexOf(input, 0, 16, (byte) ',', (byte) '\n'));
+    for (int i = 0; i < input.length; i++) {
+      assertEquals(i, Utf8Utils.indexOf(input, i, input.length, input[i], input[i]));
+    }
+  }
+
+  @Test
+  void indexOfNeedle() {
+    byte[] input = "0123456789abcdef,0123\n€€".getBytes(UTF_8);
+    assertEquals(10, Utf8Utils.indexOf(input, 0, input.length, "abc".getBytes(UTF_8)));
+    assertEquals(-1, Utf8Utils.indexOf(input, 0, 12, "abc".getBytes(UTF_8)));
+    assertEquals(17, Utf8Utils.indexOf(input, 1, input.length, "0123".getBytes(UTF_8)));
+    assertEquals(22, Utf8Utils.indexOf(input, 0, input.length, "€".getBytes(UTF_8)));
+
+    Random random = new Random(42L);
+    for (int i = 0; i < 1000; i++) {
+      // small alphabet to produce many partial matches
+      byte[] src = new byte[random.nextInt(64)];
+      for (int j = 0; j < src.length; j++) {
+        src[j] = (byte) ('a' + random.nextInt(3));
+      }
+      byte[] needle = new byte[1 + random.nextInt(4)];
+      for (int j = 0; j < needle.length; j++) {
+        needle[j] = (byte) ('a' + random.nextInt(3));
+      }
+      int from = src.length == 0 ? 0 : random.nextInt(src.length);
+      int to = from + random.nextInt(src.length - from + 1);
+      assertEquals(naiveIndexOf(src, from, to, needle), Utf8Utils.indexOf(src, from, to, needle));
+    }
+  }
+
+  private static int naiveIndexOf(byte[] src, int from, int to, byte[] needle) {
+    for (int i = from; i <= to - needle.length; i++) {
+      if (Arrays.equals(src, i, i + needle.length, needle, 0, needle.length)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Test
+  void isValid() {
+    byte[] valid = "ASCII only ASCII only, \u00A2\u0939\u20AC\uD55C\uD800\uDF48 and ASCII".getBytes(UTF_8);
+    assertTrue(Utf8Utils.isValid(valid, 0, valid.length));
+    // cut off in the middle of the four byte sequence
+    int cut = "ASCII only ASCII only, \u00A2\u0939\u20AC\uD55C".getBytes(UTF_8).length + 2;
+    assertTrue(Utf8Utils.isValid(valid, 0, cut));
+    assertTrue(Utf8Utils.isValid(new byte[0], 0, 0));
+
+    assertFalse(Utf8Utils.isValid(new byte[] {'a', (byte) 0x80}, 0, 2));
+    assertFalse(Utf8Utils.isValid(new byte[] {(byte) 0xC0, (byte) 0x80}, 0, 2));
+    assertFalse(Utf8Utils.isValid(new byte[] {(byte) 0xE0, (byte) 0x80, (byte) 0x80}, 0, 3));
+    assertFalse(Utf8Utils.isValid(new byte[] {(byte) 0xF5, (byte) 0x80, (byte) 0x80, (byte) 0x80}, 0, 4));
+    // surrogate
+    assertFalse(Utf8Utils.isValid(new byte[] {(byte) 0xED, (byte) 0xA0, (byte) 0x80}, 0, 3));
+    // cut off overlong sequence
+    assertFalse(Utf8Utils.isValid(new byte[] {(byte) 0xE0, (byte) 0x80}, 0, 2));
+    assertFalse(Utf8Utils.isValid(new byte[] {(byte) 0xE2, 'a'}, 0, 2));
+    assertFalse(Utf8Utils.isValid(new byte[] {(byte) 0xFC, (byte) 0xDF}, 0, 2));
+  }
+
+  @Test
+  void count() {
+    byte[] input = "a\nb\n\n\u0A0A\n0123456789\n".getBytes(UTF_8);
+    assertEquals(5, Utf8Utils.count(input, 0, input.length, (byte) '\n'));
+    assertEquals(0, Utf8Utils.count(input, 0, 1, (byte) '\n'));
+    for (int from = 0; from < input.length; from++) {
+      int expected = 0;
+      for (int i = from; i < input.length; i++) {
+        if (input[i] == '\n') {
+          expected += 1;
+        }
+      }
+      assertEquals(expected, Utf8Utils.count(input, from, input.length, (byte) '\n'));
+    }
+  }
+
+  @Test
+  void lastIndexOf() {
+    byte[] input = "0123456789abcdef\n0123\n0123456789abcdef".getBytes(UTF_8);
+    assertEquals(21, Utf8Utils.lastIndexOf(input, 0, input.length, (byte) '\n'));
+    assertEquals(16, Utf8Utils.lastIndexOf(input, 0, 21, (byte) '\n'));
+    assertEquals(-1, Utf8Utils.lastIndexOf(input, 0, 16, (byte) '\n'));
+    assertEquals(-1, Utf8Utils.lastIndexOf(input, 22, input.length, (byte) '\n'));
+    for (int i = 0; i < input.length; i++) {
+      assertEquals(i, Utf8Utils.lastIndexOf(input, 0, i + 1, input[i]));
+    }
+  }
+
+  @Test
+  void countChars() {
+    String input = "ASCII only, \u00A2\u0939\u20AC\uD55C\uD800\uDF48 and ASCII \uD800\uDF48\uD800\uDF48";
+    byte[] bytes = input.getBytes(UTF_8);
+    assertEquals(input.length(), Utf8Utils.countChars(bytes, 0, bytes.length));
+    assertEquals(0, Utf8Utils.countChars(bytes, 0, 0));
+    for (int end = 1; end <= input.length(); end++) {
+      if (!Character.isHighSurrogate(input.charAt(end - 1))) {
+        String prefix = input.substring(0, end);
+        assertEquals(prefix.length(), Utf8Utils.countChars(bytes, 0, prefix.getBytes(UTF_8).length));
+      }
+    }
+  }
+
 }